@@ -380,6 +380,10 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     private final BytesRef spare = new BytesRef();
     private final BytesRef bytes = new BytesRef();
 
+    // whether a document of this block has already been read, and whether
+    // bytes holds the whole decompressed block
+    private boolean documentRead, decompressed;
+
     boolean contains(int docID) {
       return docID >= docBase && docID < docBase + chunkDocs;
     }
@@ -406,6 +410,7 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     }
 
     private void doReset(int docID) throws IOException {
+      documentRead = decompressed = false;
       docBase = fieldsStream.readVInt();
       final int token = fieldsStream.readVInt();
       chunkDocs = token >>> 1;
@@ -512,9 +517,20 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
       if (length == 0) {
         // empty
         documentInput = new ByteArrayDataInput();
-      } else if (merging) {
+      } else if (merging || decompressed) {
         // already decompressed
         documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset + offset, length);
+      } else if (documentRead && sliced == false) {
+        // several documents of the same block are read, typically when
+        // fetching the top hits of a query: decompress the whole block once
+        // instead of decompressing its prefix on every document
+        fieldsStream.seek(startPointer);
+        decompressor.decompress(fieldsStream, totalLength, 0, totalLength, bytes);
+        if (bytes.length != totalLength) {
+          throw new CorruptIndexException("Corrupted: expected chunk size = " + totalLength + ", got " + bytes.length, fieldsStream);
+        }
+        decompressed = true;
+        documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset + offset, length);
       } else if (sliced) {
         fieldsStream.seek(startPointer);
         decompressor.decompress(fieldsStream, chunkSize, offset, Math.min(length, chunkSize - offset), bytes);
@@ -561,6 +577,7 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
         assert bytes.length == length;
         documentInput = new ByteArrayDataInput(bytes.bytes, bytes.offset, bytes.length);
       }
+      documentRead = true;
 
       return new SerializedDocument(documentInput, length, numStoredFields);
     }
@@ -524,68 +524,86 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
       } else if (matchingFieldsReader.getCompressionMode() == compressionMode && 
                  matchingFieldsReader.getChunkSize() == chunkSize && 
                  matchingFieldsReader.getPackedIntsVersion() == PackedInts.VERSION_CURRENT &&
-                 liveDocs == null &&
                  !tooDirty(matchingFieldsReader)) { 
-        // optimized merge, raw byte copy
-        // its not worth fine-graining this if there are deletions.
+        // optimized merge, raw byte copy of chunks that have no deletions,
+        // chunks that have deletions are recompressed
         
         // if the format is older, its always handled by the naive merge case above
         assert matchingFieldsReader.getVersion() == VERSION_CURRENT;        
         matchingFieldsReader.checkIntegrity();
         
-        // flush any pending chunks
-        if (numBufferedDocs > 0) {
-          flush();
-          numDirtyChunks++; // incomplete: we had to force this flush
-        }
-        
         // iterate over each chunk. we use the stored fields index to find chunk boundaries,
         // read the docstart + doccount from the chunk header (we write a new header, since doc numbers will change),
         // and just copy the bytes directly.
         IndexInput rawDocs = matchingFieldsReader.getFieldsStream();
         CompressingStoredFieldsIndexReader index = matchingFieldsReader.getIndexReader();
-        rawDocs.seek(index.getStartPointer(0));
+        long copiedChunks = 0;
+        boolean copiedLastChunk = false;
         int docID = 0;
         while (docID < maxDoc) {
           // read header
+          rawDocs.seek(index.getStartPointer(docID));
           int base = rawDocs.readVInt();
           if (base != docID) {
             throw new CorruptIndexException("invalid state: base=" + base + ", docID=" + docID, rawDocs);
           }
           int code = rawDocs.readVInt();
-          
-          // write a new index entry and new header for this chunk.
-          int bufferedDocs = code >>> 1;
-          indexWriter.writeIndex(bufferedDocs, fieldsStream.getFilePointer());
-          fieldsStream.writeVInt(docBase); // rebase
-          fieldsStream.writeVInt(code);
-          docID += bufferedDocs;
-          docBase += bufferedDocs;
-          docCount += bufferedDocs;
-          
-          if (docID > maxDoc) {
-            throw new CorruptIndexException("invalid state: base=" + base + ", count=" + bufferedDocs + ", maxDoc=" + maxDoc, rawDocs);
+          int chunkDocs = code >>> 1;
+          if (docID + chunkDocs > maxDoc) {
+            throw new CorruptIndexException("invalid state: base=" + base + ", count=" + chunkDocs + ", maxDoc=" + maxDoc, rawDocs);
           }
-          
-          // copy bytes until the next chunk boundary (or end of chunk data).
-          // using the stored fields index for this isn't the most efficient, but fast enough
-          // and is a source of redundancy for detecting bad things.
-          final long end;
-          if (docID == maxDoc) {
-            end = matchingFieldsReader.getMaxPointer();
+          final int chunkEnd = docID + chunkDocs;
+
+          if (allLive(liveDocs, docID, chunkEnd) && copyChunk()) {
+            // flush any pending chunks
+            if (numBufferedDocs > 0) {
+              flush();
+              numDirtyChunks++; // incomplete: we had to force this flush
+            }
+
+            // write a new index entry and new header for this chunk.
+            indexWriter.writeIndex(chunkDocs, fieldsStream.getFilePointer());
+            fieldsStream.writeVInt(docBase); // rebase
+            fieldsStream.writeVInt(code);
+            docBase += chunkDocs;
+            docCount += chunkDocs;
+
+            // copy bytes until the next chunk boundary (or end of chunk data).
+            // using the stored fields index for this isn't the most efficient, but fast enough
+            // and is a source of redundancy for detecting bad things.
+            final long end;
+            if (chunkEnd == maxDoc) {
+              end = matchingFieldsReader.getMaxPointer();
+            } else {
+              end = index.getStartPointer(chunkEnd);
+            }
+            fieldsStream.copyBytes(rawDocs, end - rawDocs.getFilePointer());
+            copiedChunks++;
+            copiedLastChunk = chunkEnd == maxDoc;
           } else {
-            end = index.getStartPointer(docID);
+            // recompress the live documents of this chunk
+            for (; docID < chunkEnd; docID++) {
+              if (liveDocs != null && liveDocs.get(docID) == false) {
+                continue;
+              }
+              SerializedDocument doc = matchingFieldsReader.document(docID);
+              startDocument();
+              bufferedDocs.copyBytes(doc.in, doc.length);
+              numStoredFieldsInDoc = doc.numStoredFields;
+              finishDocument();
+              ++docCount;
+            }
           }
-          fieldsStream.copyBytes(rawDocs, end - rawDocs.getFilePointer());
+          docID = chunkEnd;
         }
                
-        if (rawDocs.getFilePointer() != matchingFieldsReader.getMaxPointer()) {
+        if (copiedLastChunk && rawDocs.getFilePointer() != matchingFieldsReader.getMaxPointer()) {
           throw new CorruptIndexException("invalid state: pos=" + rawDocs.getFilePointer() + ", max=" + matchingFieldsReader.getMaxPointer(), rawDocs);
         }
         
-        // since we bulk merged all chunks, we inherit any dirty ones from this segment.
-        numChunks += matchingFieldsReader.getNumChunks();
-        numDirtyChunks += matchingFieldsReader.getNumDirtyChunks();
+        // we inherit any dirty ones from the chunks that we copied from this segment.
+        numChunks += copiedChunks;
+        numDirtyChunks += inheritedDirtyChunks(matchingFieldsReader.getNumChunks(), matchingFieldsReader.getNumDirtyChunks(), copiedChunks);
       } else {
         // optimized merge, we copy serialized (but decompressed) bytes directly
         // even on simple docs (1 stored field), it seems to help by about 20%
@@ -611,6 +629,45 @@ public final class CompressingStoredFieldsWriter extends StoredFieldsWriter {
     return docCount;
   }
   
+  /**
+   * Returns true if a chunk without deletions should be copied as-is rather
+   * than recompressed along with the pending documents. Copying requires to
+   * flush pending documents into an incomplete chunk first, so we only do it
+   * if there are no pending documents or if they already fill half a chunk.
+   * Otherwise the documents of the chunk are appended to the pending ones,
+   * so that merges of segments with deletions do not degrade the
+   * compression ratio with many small chunks.
+   */
+  private boolean copyChunk() {
+    return numBufferedDocs == 0 ||
+        bufferedDocs.length >= chunkSize / 2 ||
+        numBufferedDocs >= maxDocsPerChunk / 2;
+  }
+
+  /** Returns true if none of the documents between {@code from} inclusive
+   *  and {@code to} exclusive is deleted. */
+  static boolean allLive(Bits liveDocs, int from, int to) {
+    if (liveDocs != null) {
+      for (int docID = from; docID < to; docID++) {
+        if (liveDocs.get(docID) == false) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Returns the number of dirty chunks that we inherit from a segment
+   *  when copying {@code copiedChunks} out of its {@code numChunks}
+   *  chunks. We don't know which chunks are dirty so we assume that they
+   *  are evenly spread and round up. */
+  static long inheritedDirtyChunks(long numChunks, long numDirtyChunks, long copiedChunks) {
+    if (copiedChunks >= numChunks) {
+      return numDirtyChunks;
+    }
+    return (numDirtyChunks * copiedChunks + numChunks - 1) / numChunks;
+  }
+
   /** 
    * Returns true if we should recompress this reader, even though we could bulk merge compressed data 
    * <p>
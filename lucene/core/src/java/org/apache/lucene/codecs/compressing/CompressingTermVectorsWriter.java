@@ -754,65 +754,79 @@ public final class CompressingTermVectorsWriter extends TermVectorsWriter {
           matchingVectorsReader.getVersion() == VERSION_CURRENT && 
           matchingVectorsReader.getPackedIntsVersion() == PackedInts.VERSION_CURRENT &&
           BULK_MERGE_ENABLED &&
-          liveDocs == null &&
           !tooDirty(matchingVectorsReader)) {
-        // optimized merge, raw byte copy
-        // its not worth fine-graining this if there are deletions.
+        // optimized merge, raw byte copy of chunks that have no deletions,
+        // chunks that have deletions are recompressed
         
         matchingVectorsReader.checkIntegrity();
         
-        // flush any pending chunks
-        if (!pendingDocs.isEmpty()) {
-          flush();
-          numDirtyChunks++; // incomplete: we had to force this flush
-        }
-        
         // iterate over each chunk. we use the vectors index to find chunk boundaries,
         // read the docstart + doccount from the chunk header (we write a new header, since doc numbers will change),
         // and just copy the bytes directly.
         IndexInput rawDocs = matchingVectorsReader.getVectorsStream();
         CompressingStoredFieldsIndexReader index = matchingVectorsReader.getIndexReader();
-        rawDocs.seek(index.getStartPointer(0));
+        long copiedChunks = 0;
+        boolean copiedLastChunk = false;
         int docID = 0;
         while (docID < maxDoc) {
           // read header
+          rawDocs.seek(index.getStartPointer(docID));
           int base = rawDocs.readVInt();
           if (base != docID) {
             throw new CorruptIndexException("invalid state: base=" + base + ", docID=" + docID, rawDocs);
           }
           int bufferedDocs = rawDocs.readVInt();
-          
-          // write a new index entry and new header for this chunk.
-          indexWriter.writeIndex(bufferedDocs, vectorsStream.getFilePointer());
-          vectorsStream.writeVInt(docCount); // rebase
-          vectorsStream.writeVInt(bufferedDocs);
-          docID += bufferedDocs;
-          docCount += bufferedDocs;
-          numDocs += bufferedDocs;
-          
-          if (docID > maxDoc) {
+          if (docID + bufferedDocs > maxDoc) {
             throw new CorruptIndexException("invalid state: base=" + base + ", count=" + bufferedDocs + ", maxDoc=" + maxDoc, rawDocs);
           }
-          
-          // copy bytes until the next chunk boundary (or end of chunk data).
-          // using the stored fields index for this isn't the most efficient, but fast enough
-          // and is a source of redundancy for detecting bad things.
-          final long end;
-          if (docID == maxDoc) {
-            end = matchingVectorsReader.getMaxPointer();
+          final int chunkEnd = docID + bufferedDocs;
+
+          if (CompressingStoredFieldsWriter.allLive(liveDocs, docID, chunkEnd) && copyChunk()) {
+            // flush any pending chunks
+            if (!pendingDocs.isEmpty()) {
+              flush();
+              numDirtyChunks++; // incomplete: we had to force this flush
+            }
+
+            // write a new index entry and new header for this chunk.
+            indexWriter.writeIndex(bufferedDocs, vectorsStream.getFilePointer());
+            vectorsStream.writeVInt(docCount); // rebase
+            vectorsStream.writeVInt(bufferedDocs);
+            docCount += bufferedDocs;
+            numDocs += bufferedDocs;
+
+            // copy bytes until the next chunk boundary (or end of chunk data).
+            // using the stored fields index for this isn't the most efficient, but fast enough
+            // and is a source of redundancy for detecting bad things.
+            final long end;
+            if (chunkEnd == maxDoc) {
+              end = matchingVectorsReader.getMaxPointer();
+            } else {
+              end = index.getStartPointer(chunkEnd);
+            }
+            vectorsStream.copyBytes(rawDocs, end - rawDocs.getFilePointer());
+            copiedChunks++;
+            copiedLastChunk = chunkEnd == maxDoc;
           } else {
-            end = index.getStartPointer(docID);
+            // recompress the live documents of this chunk
+            for (; docID < chunkEnd; docID++) {
+              if (liveDocs != null && liveDocs.get(docID) == false) {
+                continue;
+              }
+              addAllDocVectors(matchingVectorsReader.get(docID), mergeState);
+              ++docCount;
+            }
           }
-          vectorsStream.copyBytes(rawDocs, end - rawDocs.getFilePointer());
+          docID = chunkEnd;
         }
                
-        if (rawDocs.getFilePointer() != matchingVectorsReader.getMaxPointer()) {
+        if (copiedLastChunk && rawDocs.getFilePointer() != matchingVectorsReader.getMaxPointer()) {
           throw new CorruptIndexException("invalid state: pos=" + rawDocs.getFilePointer() + ", max=" + matchingVectorsReader.getMaxPointer(), rawDocs);
         }
         
-        // since we bulk merged all chunks, we inherit any dirty ones from this segment.
-        numChunks += matchingVectorsReader.getNumChunks();
-        numDirtyChunks += matchingVectorsReader.getNumDirtyChunks();
+        // we inherit any dirty ones from the chunks that we copied from this segment.
+        numChunks += copiedChunks;
+        numDirtyChunks += CompressingStoredFieldsWriter.inheritedDirtyChunks(matchingVectorsReader.getNumChunks(), matchingVectorsReader.getNumDirtyChunks(), copiedChunks);
       } else {        
         // naive merge...
         if (vectorsReader != null) {
@@ -837,6 +851,17 @@ public final class CompressingTermVectorsWriter extends TermVectorsWriter {
     return docCount;
   }
 
+  /**
+   * Returns true if a chunk without deletions should be copied as-is rather
+   * than recompressed along with the pending documents, see
+   * CompressingStoredFieldsWriter#copyChunk.
+   */
+  private boolean copyChunk() {
+    return pendingDocs.isEmpty() ||
+        termSuffixes.length >= chunkSize / 2 ||
+        pendingDocs.size() >= MAX_DOCUMENTS_PER_CHUNK / 2;
+  }
+
   /** 
    * Returns true if we should recompress this reader, even though we could bulk merge compressed data 
    * <p>
@@ -30,6 +30,7 @@ import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.SegmentReadState;
 import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
@@ -63,6 +64,8 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
 
   final ForUtil forUtil;
   private int version;
+  // merges read all postings sequentially, so hints would only add overhead
+  private final boolean prefetch;
 
   /** Sole constructor. */
   public Lucene50PostingsReader(SegmentReadState state) throws IOException {
@@ -76,6 +79,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
     // for FOOTER_MAGIC + algorithmID. This is cheap and can detect some forms of corruption
     // such as file truncation.
     
+    prefetch = state.context.context != IOContext.Context.MERGE;
     String docName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, Lucene50PostingsFormat.DOC_EXTENSION);
     try {
       docIn = state.directory.openInput(docName, state.context);
@@ -234,6 +238,32 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
     }
   }
 
+  /** Lower bound of the number of bytes to prefetch for a term: smaller
+   *  ranges fit in a page that is likely read anyway. */
+  private static final long MIN_PREFETCH_BYTES = 1 << 12;
+  /** Upper bound of the number of bytes to prefetch for a term. */
+  private static final long MAX_PREFETCH_BYTES = 1 << 16;
+
+  /** Hint that the first doc and freq blocks of the given term are going
+   *  to be read, so that several postings lists can be loaded in parallel. */
+  private void prefetchDocs(IndexInput docIn, IntBlockTermState termState) throws IOException {
+    if (prefetch == false) {
+      return;
+    }
+    long length;
+    if (termState.skipOffset != -1) {
+      // blocks end where skip data starts
+      length = termState.skipOffset;
+    } else {
+      // at most one block, and docs and freqs take at most 2 vints per doc
+      length = 10L * termState.docFreq;
+    }
+    length = Math.min(Math.min(length, MAX_PREFETCH_BYTES), docIn.length() - termState.docStartFP);
+    if (length >= MIN_PREFETCH_BYTES) {
+      docIn.prefetch(termState.docStartFP, length);
+    }
+  }
+
   final class BlockDocsEnum extends PostingsEnum {
     private final byte[] encoded;
     
@@ -304,6 +334,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
           docIn = startDocIn.clone();
         }
         docIn.seek(docTermStartFP);
+        prefetchDocs(docIn, termState);
       }
 
       doc = -1;
@@ -460,7 +491,50 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
       docBufferUpto++;
       return doc = accum;
     }
-    
+
+    @Override
+    public int read(int[] docs, int[] freqs, int upTo) throws IOException {
+      assert doc != -1;
+      if (doc >= upTo || docs.length == 0) {
+        return 0;
+      }
+      docs[0] = doc;
+      if (freqs != null) {
+        freqs[0] = freq;
+      }
+      int count = 1;
+      while (count < docs.length) {
+        if (docUpto == docFreq) {
+          doc = NO_MORE_DOCS;
+          return count;
+        }
+        if (docBufferUpto == BLOCK_SIZE) {
+          refillDocs();
+        }
+        // copy as many docs as possible from the decoded block
+        final int n = Math.min(docs.length - count, Math.min(BLOCK_SIZE - docBufferUpto, docFreq - docUpto));
+        for (int i = 0; i < n; ++i) {
+          accum += docDeltaBuffer[docBufferUpto];
+          docUpto++;
+          if (accum >= upTo) {
+            doc = accum;
+            freq = freqBuffer[docBufferUpto];
+            docBufferUpto++;
+            return count;
+          }
+          docs[count] = accum;
+          if (freqs != null) {
+            freqs[count] = freqBuffer[docBufferUpto];
+          }
+          docBufferUpto++;
+          count++;
+        }
+      }
+      // the arrays are full, move to the next doc
+      nextDoc();
+      return count;
+    }
+
     @Override
     public long cost() {
       return docFreq;
@@ -559,6 +633,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
           docIn = startDocIn.clone();
         }
         docIn.seek(docTermStartFP);
+        prefetchDocs(docIn, termState);
       }
       posPendingFP = posTermStartFP;
       posPendingCount = 0;
@@ -931,6 +1006,7 @@ public final class Lucene50PostingsReader extends PostingsReaderBase {
           docIn = startDocIn.clone();
         }
         docIn.seek(docTermStartFP);
+        prefetchDocs(docIn, termState);
       }
       posPendingFP = posTermStartFP;
       payPendingFP = payTermStartFP;
@@ -24,6 +24,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -33,11 +35,14 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.InfoStream;
-import org.apache.lucene.util.PriorityQueue;
+import org.apache.lucene.util.TaskExecutor;
 
 /* Tracks the stream of {@link BufferedDeletes}.
  * When DocumentsWriterPerThread flushes, its buffered
@@ -64,15 +69,21 @@ class BufferedUpdatesStream implements Accountable {
   // will be correct:
   private long nextGen = 1;
 
-  // used only by assert
-  private BytesRef lastDeleteTerm;
-
   private final InfoStream infoStream;
+  private final ExecutorService executor;
   private final AtomicLong bytesUsed = new AtomicLong();
   private final AtomicInteger numTerms = new AtomicInteger();
 
   public BufferedUpdatesStream(InfoStream infoStream) {
+    this(infoStream, null);
+  }
+
+  /** Creates a new stream. If {@code executor} is non-null, buffered
+   *  deletes and updates are resolved against several segments in
+   *  parallel on it. */
+  public BufferedUpdatesStream(InfoStream infoStream, ExecutorService executor) {
     this.infoStream = infoStream;
+    this.executor = executor;
   }
 
   // Appends a new packet of buffered deletes to the stream,
@@ -148,7 +159,8 @@ class BufferedUpdatesStream implements Accountable {
   
   /** Resolves the buffered deleted Term/Query/docIDs, into
    *  actual deleted docIDs in the liveDocs MutableBits for
-   *  each SegmentReader. */
+   *  each SegmentReader. Segments are resolved in parallel
+   *  if an executor was provided. */
   public synchronized ApplyDeletesResult applyDeletesAndUpdates(IndexWriter.ReaderPool pool, List<SegmentCommitInfo> infos) throws IOException {
     final long t0 = System.currentTimeMillis();
 
@@ -192,6 +204,10 @@ class BufferedUpdatesStream implements Accountable {
       int infosIDX = infos.size()-1;
       int delIDX = updates.size()-1;
 
+      // Query deletes and doc values updates to apply to each segment, or null:
+      final SegmentUpdates[] segUpdates = new SegmentUpdates[infos.size()];
+      boolean anyUpdates = false;
+
       // Backwards merge sort the segment delGens with the packet delGens in the buffered stream:
       while (infosIDX >= 0) {
         final FrozenBufferedUpdates packet = delIDX >= 0 ? updates.get(delIDX) : null;
@@ -217,29 +233,15 @@ class BufferedUpdatesStream implements Accountable {
         } else if (packet != null && segGen == packet.delGen()) {
           assert packet.isSegmentPrivate : "Packet and Segments deletegen can only match on a segment private del packet gen=" + segGen;
 
-          if (segStates == null) {
-            segStates = openSegmentStates(pool, infos);
-          }
-
-          SegmentState segState = segStates[infosIDX];
-
           // Lock order: IW -> BD -> RP
           assert pool.infoIsLive(info);
-          int delCount = 0;
-          final DocValuesFieldUpdates.Container dvUpdates = new DocValuesFieldUpdates.Container();
+          final SegmentUpdates segUpdate = new SegmentUpdates();
           if (coalescedUpdates != null) {
-            delCount += applyQueryDeletes(coalescedUpdates.queriesIterable(), segState);
-            applyDocValuesUpdates(coalescedUpdates.numericDVUpdates, segState, dvUpdates);
-            applyDocValuesUpdates(coalescedUpdates.binaryDVUpdates, segState, dvUpdates);
-          }
-          delCount += applyQueryDeletes(packet.queriesIterable(), segState);
-          applyDocValuesUpdates(Arrays.asList(packet.numericDVUpdates), segState, dvUpdates);
-          applyDocValuesUpdates(Arrays.asList(packet.binaryDVUpdates), segState, dvUpdates);
-          if (dvUpdates.any()) {
-            segState.rld.writeFieldUpdates(info.info.dir, dvUpdates);
+            segUpdate.add(coalescedUpdates);
           }
-
-          totDelCount += delCount;
+          segUpdate.add(packet);
+          segUpdates[infosIDX] = segUpdate;
+          anyUpdates = true;
 
           /*
            * Since we are on a segment private del packet we must not
@@ -251,34 +253,71 @@ class BufferedUpdatesStream implements Accountable {
 
         } else {
           if (coalescedUpdates != null) {
-            if (segStates == null) {
-              segStates = openSegmentStates(pool, infos);
-            }
-            SegmentState segState = segStates[infosIDX];
             // Lock order: IW -> BD -> RP
             assert pool.infoIsLive(info);
-            int delCount = 0;
-            delCount += applyQueryDeletes(coalescedUpdates.queriesIterable(), segState);
-            DocValuesFieldUpdates.Container dvUpdates = new DocValuesFieldUpdates.Container();
-            applyDocValuesUpdates(coalescedUpdates.numericDVUpdates, segState, dvUpdates);
-            applyDocValuesUpdates(coalescedUpdates.binaryDVUpdates, segState, dvUpdates);
-            if (dvUpdates.any()) {
-              segState.rld.writeFieldUpdates(info.info.dir, dvUpdates);
-            }
-
-            totDelCount += delCount;
+            final SegmentUpdates segUpdate = new SegmentUpdates();
+            segUpdate.add(coalescedUpdates);
+            segUpdates[infosIDX] = segUpdate;
+            anyUpdates = true;
           }
 
           infosIDX--;
         }
       }
 
-      // Now apply all term deletes:
+      final CoalescedUpdates termDeletes;
       if (coalescedUpdates != null && coalescedUpdates.totalTermCount != 0) {
-        if (segStates == null) {
-          segStates = openSegmentStates(pool, infos);
+        termDeletes = coalescedUpdates;
+      } else {
+        termDeletes = null;
+      }
+
+      if (anyUpdates || termDeletes != null) {
+        segStates = openSegmentStates(pool, infos);
+
+        final long startNS = System.nanoTime();
+        final List<Callable<SegmentResult>> tasks = new ArrayList<>();
+        for (int i = 0; i < segStates.length; i++) {
+          final SegmentState segState = segStates[i];
+          final SegmentUpdates segUpdate = segUpdates[i];
+          if (segUpdate != null || termDeletes != null) {
+            tasks.add(new Callable<SegmentResult>() {
+              @Override
+              public SegmentResult call() throws IOException {
+                return applyToSegment(segState, segUpdate, termDeletes);
+              }
+            });
+          }
+        }
+
+        // Deletes and updates are applied on this thread, which holds the
+        // IndexWriter's lock:
+        long totTermSeekCount = 0;
+        for (SegmentResult segResult : execute(tasks)) {
+          totDelCount += segResult.delCount;
+          totTermVisitedCount += segResult.termVisitedCount;
+          totTermSeekCount += segResult.termSeekCount;
+          final ReadersAndUpdates rld = segResult.segState.rld;
+          if (segResult.deletes != null) {
+            rld.initWritableLiveDocs();
+            final DocIdSetIterator it = new BitSetIterator(segResult.deletes, 0L);
+            for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+              rld.delete(doc);
+            }
+          }
+          if (segResult.dvUpdates.any()) {
+            rld.writeFieldUpdates(rld.info.info.dir, segResult.dvUpdates);
+          }
+        }
+
+        if (termDeletes != null && infoStream.isEnabled("BD")) {
+          infoStream.message("BD",
+                             String.format(Locale.ROOT, "applyTermDeletes took %.1f msec for %d segments and %d packets; %d del terms visited; %d seeks",
+                                           (System.nanoTime()-startNS)/1000000.,
+                                           segStates.length,
+                                           termDeletes.terms.size(),
+                                           totTermVisitedCount, totTermSeekCount));
         }
-        totTermVisitedCount += applyTermDeletes(coalescedUpdates, segStates);
       }
 
       assert checkDeleteStats();
@@ -305,6 +344,23 @@ class BufferedUpdatesStream implements Accountable {
     return result;
   }
 
+  /** Runs the given tasks on the executor, or on the current thread if
+   *  there is no executor, and returns their results. This is called while
+   *  holding the lock on the {@link IndexWriter}, but tasks that the executor
+   *  did not start are run on the current thread, so that a saturated
+   *  executor cannot block applying deletes. */
+  private <T> List<T> execute(List<Callable<T>> tasks) throws IOException {
+    try {
+      // waits for all tasks, even if one of them failed, since segment
+      // readers are released as soon as we return
+      return TaskExecutor.invokeAll(executor, tasks);
+    } catch (IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   private List<SegmentCommitInfo> sortByDelGen(List<SegmentCommitInfo> infos) {
     infos = new ArrayList<>(infos);
     // Smaller delGens come first:
@@ -367,16 +423,18 @@ class BufferedUpdatesStream implements Accountable {
     final SegmentReader reader;
     final int startDelCount;
 
-    TermsEnum termsEnum;
+    // live docs when the segment was opened, only modified once all
+    // segments have been resolved:
+    final Bits liveDocs;
+
     PostingsEnum postingsEnum;
-    BytesRef term;
-    boolean any;
 
     public SegmentState(IndexWriter.ReaderPool pool, SegmentCommitInfo info) throws IOException {
       rld = pool.get(info, true);
       startDelCount = rld.getPendingDeleteCount();
       reader = rld.getReader(IOContext.READ);
       delGen = info.getBufferedDeletesGen();
+      liveDocs = rld.getLiveDocs();
     }
 
     public void finish(IndexWriter.ReaderPool pool) throws IOException {
@@ -388,18 +446,6 @@ class BufferedUpdatesStream implements Accountable {
     }
   }
 
-  /** Does a merge sort by current term across all segments. */
-  static class SegmentQueue extends PriorityQueue<SegmentState> {
-    public SegmentQueue(int size) {
-      super(size);
-    }
-
-    @Override
-    protected boolean lessThan(SegmentState a, SegmentState b) {
-      return a.term.compareTo(b.term) < 0;
-    }
-  }
-
   /** Opens SegmentReader and inits SegmentState for each segment. */
   private SegmentState[] openSegmentStates(IndexWriter.ReaderPool pool, List<SegmentCommitInfo> infos) throws IOException {
     int numReaders = infos.size();
@@ -450,7 +496,7 @@ class BufferedUpdatesStream implements Accountable {
       try {
         segStates[j].finish(pool);
       } catch (Throwable th) {
-        if (firstExc != null) {
+        if (firstExc == null) {
           firstExc = th;
         }
       }
@@ -468,20 +514,103 @@ class BufferedUpdatesStream implements Accountable {
     return new ApplyDeletesResult(totDelCount > 0, gen, allDeleted);      
   }
 
-  /** Merge sorts the deleted terms and all segments to resolve terms to docIDs for deletion. */
-  private synchronized long applyTermDeletes(CoalescedUpdates updates, SegmentState[] segStates) throws IOException {
+  /** Query deletes and doc values updates to apply to a single segment,
+   *  in the order that they must be applied. */
+  private static class SegmentUpdates {
+    final List<QueryAndLimit> queries = new ArrayList<>();
+    final List<DocValuesUpdate> dvUpdates = new ArrayList<>();
+
+    // copies since coalesced updates keep growing
+    void add(CoalescedUpdates updates) {
+      for (QueryAndLimit query : updates.queriesIterable()) {
+        queries.add(query);
+      }
+      dvUpdates.addAll(updates.numericDVUpdates);
+      dvUpdates.addAll(updates.binaryDVUpdates);
+    }
+
+    void add(FrozenBufferedUpdates packet) {
+      for (QueryAndLimit query : packet.queriesIterable()) {
+        queries.add(query);
+      }
+      dvUpdates.addAll(Arrays.asList(packet.numericDVUpdates));
+      dvUpdates.addAll(Arrays.asList(packet.binaryDVUpdates));
+    }
+  }
 
-    long startNS = System.nanoTime();
+  /** Deleted docs and doc values updates resolved against a segment, which
+   *  must be applied to its {@link ReadersAndUpdates} while holding the
+   *  IndexWriter's lock. */
+  private static class SegmentResult {
+    final SegmentState segState;
+    final DocValuesFieldUpdates.Container dvUpdates = new DocValuesFieldUpdates.Container();
+    // docs to delete, allocated on the first delete
+    FixedBitSet deletes;
+    long delCount;
+    long termVisitedCount;
+    long termSeekCount;
+
+    SegmentResult(SegmentState segState) {
+      this.segState = segState;
+    }
 
-    int numReaders = segStates.length;
+    boolean isLive(int docID) {
+      return (segState.liveDocs == null || segState.liveDocs.get(docID))
+          && (deletes == null || deletes.get(docID) == false);
+    }
+
+    /** Mark the given doc as deleted, returns true if it was live. */
+    boolean delete(int docID) {
+      if (segState.liveDocs != null && segState.liveDocs.get(docID) == false) {
+        return false;
+      }
+      if (deletes == null) {
+        deletes = new FixedBitSet(segState.reader.maxDoc());
+      }
+      return deletes.getAndSet(docID) == false;
+    }
+  }
+
+  /** Resolves query deletes, doc values updates and term deletes against a
+   *  single segment into a {@link SegmentResult}. This only reads the given
+   *  segment, so it may run concurrently for different segments. */
+  private static SegmentResult applyToSegment(SegmentState segState, SegmentUpdates segUpdates, CoalescedUpdates termDeletes) throws IOException {
+    final SegmentResult result = new SegmentResult(segState);
+    if (segUpdates != null) {
+      result.delCount += applyQueryDeletes(segUpdates.queries, result);
+      applyDocValuesUpdates(segUpdates.dvUpdates, result);
+    }
+    if (termDeletes != null) {
+      result.termVisitedCount += applyTermDeletes(termDeletes, result);
+    }
+    return result;
+  }
+
+  /** Resolves the deleted terms to docIDs of the given segment for deletion.
+   *  Deleted terms are sorted, so this intersects them with the terms
+   *  dictionary of the segment: the terms enum only moves forward, a deleted
+   *  term that sorts before the current term of the segment is skipped
+   *  without seeking and runs of consecutive terms are read with
+   *  {@link TermsEnum#next()}. Other terms are looked up with
+   *  {@link TermsEnum#seekExact(BytesRef)}, which can reuse the state of the
+   *  previous seek since targets share prefixes, and lets terms
+   *  dictionaries that have a cheap negative lookup, like bloom filters,
+   *  skip missing terms. */
+  private static long applyTermDeletes(CoalescedUpdates updates, SegmentResult result) throws IOException {
+
+    final SegmentState state = result.segState;
 
     long delTermVisitedCount = 0;
-    long segTermVisitedCount = 0;
 
     FieldTermIterator iter = updates.termIterator();
 
     String field = null;
-    SegmentQueue queue = null;
+    TermsEnum termsEnum = null;
+    // current term of termsEnum if known, else null
+    BytesRef segTerm = null;
+    // true if termsEnum has no more terms
+    boolean exhausted = false;
+    final BytesRefBuilder lastTerm = new BytesRefBuilder();
 
     BytesRef term;
 
@@ -490,117 +619,85 @@ class BufferedUpdatesStream implements Accountable {
       if (iter.field() != field) {
         // field changed
         field = iter.field();
-
-        queue = new SegmentQueue(numReaders);
-
-        long segTermCount = 0;
-        for(int i=0;i<numReaders;i++) {
-          SegmentState state = segStates[i];
-          Terms terms = state.reader.fields().terms(field);
-          if (terms != null) {
-            segTermCount += terms.size();
-            state.termsEnum = terms.iterator();
-            state.term = state.termsEnum.next();
-            if (state.term != null) {
-              queue.add(state);
-            }
-          }
-        }
-
-        assert checkDeleteTerm(null);
+        Terms terms = state.reader.fields().terms(field);
+        termsEnum = terms == null ? null : terms.iterator();
+        segTerm = null;
+        exhausted = false;
+        lastTerm.clear();
+      } else if (term.equals(lastTerm.get())) {
+        // the same term may have been deleted by several packets; the
+        // newest packet comes first and already deleted the docs
+        continue;
       }
+      lastTerm.copyBytes(term);
 
-      assert checkDeleteTerm(term);
+      if (termsEnum == null || exhausted) {
+        // no more terms in this field
+        continue;
+      }
 
       delTermVisitedCount++;
 
       long delGen = iter.delGen();
 
-      while (queue.size() != 0) {
-
-        // Get next term merged across all segments
-        SegmentState state = queue.top();
-        segTermVisitedCount++;
+      assert state.delGen != delGen;
 
-        int cmp = term.compareTo(state.term);
+      if (state.delGen > delGen) {
+        // the segment is newer than the delete
+        continue;
+      }
 
+      if (segTerm != null) {
+        final int cmp = term.compareTo(segTerm);
         if (cmp < 0) {
-          break;
-        } else if (cmp == 0) {
-          // fall through
-        } else {
-          TermsEnum.SeekStatus status = state.termsEnum.seekCeil(term);
-          if (status == TermsEnum.SeekStatus.FOUND) {
-            // fallthrough
-          } else {
-            if (status == TermsEnum.SeekStatus.NOT_FOUND) {
-              state.term = state.termsEnum.term();
-              queue.updateTop();
-            } else {
-              // No more terms in this segment
-              queue.pop();
-            }
-
-            continue;
-          }
+          // not in this segment
+          continue;
+        } else if (cmp > 0) {
+          segTerm = null;
         }
+      }
 
-        assert state.delGen != delGen;
-
-        if (state.delGen < delGen) {
-
-          // we don't need term frequencies for this
-          final Bits acceptDocs = state.rld.getLiveDocs();
-          state.postingsEnum = state.termsEnum.postings(state.postingsEnum, PostingsEnum.NONE);
+      if (segTerm == null) {
+        result.termSeekCount++;
+        if (termsEnum.seekExact(term) == false) {
+          continue;
+        }
+      }
 
-          assert state.postingsEnum != null;
+      // we don't need term frequencies for this
+      state.postingsEnum = termsEnum.postings(state.postingsEnum, PostingsEnum.NONE);
 
-          while (true) {
-            final int docID = state.postingsEnum.nextDoc();
-            if (docID == DocIdSetIterator.NO_MORE_DOCS) {
-              break;
-            }
-            if (acceptDocs != null && acceptDocs.get(docID) == false) {
-              continue;
-            }
-            if (!state.any) {
-              state.rld.initWritableLiveDocs();
-              state.any = true;
-            }
+      assert state.postingsEnum != null;
 
-            // NOTE: there is no limit check on the docID
-            // when deleting by Term (unlike by Query)
-            // because on flush we apply all Term deletes to
-            // each segment.  So all Term deleting here is
-            // against prior segments:
-            state.rld.delete(docID);
-          }
+      while (true) {
+        final int docID = state.postingsEnum.nextDoc();
+        if (docID == DocIdSetIterator.NO_MORE_DOCS) {
+          break;
         }
 
-        state.term = state.termsEnum.next();
-        if (state.term == null) {
-          queue.pop();
-        } else {
-          queue.updateTop();
-        }
+        // NOTE: there is no limit check on the docID
+        // when deleting by Term (unlike by Query)
+        // because on flush we apply all Term deletes to
+        // each segment.  So all Term deleting here is
+        // against prior segments:
+        result.delete(docID);
       }
-    }
 
-    if (infoStream.isEnabled("BD")) {
-      infoStream.message("BD",
-                         String.format(Locale.ROOT, "applyTermDeletes took %.1f msec for %d segments and %d packets; %d del terms visited; %d seg terms visited",
-                                       (System.nanoTime()-startNS)/1000000.,
-                                       numReaders,
-                                       updates.terms.size(),
-                                       delTermVisitedCount, segTermVisitedCount));
+      // the next deleted term is often the next term, eg. with
+      // sequential ids:
+      segTerm = termsEnum.next();
+      if (segTerm == null) {
+        exhausted = true;
+      }
     }
 
     return delTermVisitedCount;
   }
 
   // DocValues updates
-  private synchronized void applyDocValuesUpdates(Iterable<? extends DocValuesUpdate> updates, 
-      SegmentState segState, DocValuesFieldUpdates.Container dvUpdatesContainer) throws IOException {
+  private static void applyDocValuesUpdates(Iterable<? extends DocValuesUpdate> updates, SegmentResult result) throws IOException {
+    final SegmentState segState = result.segState;
+    final DocValuesFieldUpdates.Container dvUpdatesContainer = result.dvUpdates;
     Fields fields = segState.reader.fields();
 
     // TODO: we can process the updates per DV field, from last to first so that
@@ -650,7 +747,6 @@ class BufferedUpdatesStream implements Accountable {
 
       if (termsEnum.seekExact(term.bytes())) {
         // we don't need term frequencies for this
-        final Bits acceptDocs = segState.rld.getLiveDocs();
         postingsEnum = termsEnum.postings(postingsEnum, PostingsEnum.NONE);
 
         DocValuesFieldUpdates dvUpdates = dvUpdatesContainer.getUpdates(update.field, update.type);
@@ -662,7 +758,7 @@ class BufferedUpdatesStream implements Accountable {
           if (doc >= limit) {
             break; // no more docs that can be updated for this term
           }
-          if (acceptDocs != null && acceptDocs.get(doc) == false) {
+          if (result.isLive(doc) == false) {
             continue;
           }
           dvUpdates.add(doc, update.value);
@@ -681,9 +777,9 @@ class BufferedUpdatesStream implements Accountable {
   }
 
   // Delete by query
-  private static long applyQueryDeletes(Iterable<QueryAndLimit> queriesIter, SegmentState segState) throws IOException {
+  private static long applyQueryDeletes(Iterable<QueryAndLimit> queriesIter, SegmentResult result) throws IOException {
     long delCount = 0;
-    final LeafReaderContext readerContext = segState.reader.getContext();
+    final LeafReaderContext readerContext = result.segState.reader.getContext();
     for (QueryAndLimit ent : queriesIter) {
       Query query = ent.query;
       int limit = ent.limit;
@@ -702,11 +798,7 @@ class BufferedUpdatesStream implements Accountable {
             continue;
           }
 
-          if (!segState.any) {
-            segState.rld.initWritableLiveDocs();
-            segState.any = true;
-          }
-          if (segState.rld.delete(doc)) {
+          if (result.delete(doc)) {
             delCount++;
           }
         }
@@ -716,16 +808,6 @@ class BufferedUpdatesStream implements Accountable {
     return delCount;
   }
 
-  // used only by assert
-  private boolean checkDeleteTerm(BytesRef term) {
-    if (term != null) {
-      assert lastDeleteTerm == null || term.compareTo(lastDeleteTerm) >= 0: "lastTerm=" + lastDeleteTerm + " vs term=" + term;
-    }
-    // TODO: we re-use term now in our merged iterable, but we shouldn't clone, instead copy for this assert
-    lastDeleteTerm = term == null ? null : BytesRef.deepCopyOf(term);
-    return true;
-  }
-
   // only for assert
   private boolean checkDeleteStats() {
     int numTerms2 = 0;
@@ -18,9 +18,13 @@ package org.apache.lucene.index;
  */
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.codecs.DimensionalFormat;
@@ -39,6 +43,7 @@ import org.apache.lucene.util.BytesRefHash.MaxBytesLengthExceededException;
 import org.apache.lucene.util.Counter;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.TaskExecutor;
 
 /** Default general purpose indexing chain, which handles
  *  indexing all types of fields. */
@@ -85,23 +90,14 @@ final class DefaultIndexingChain extends DocConsumer {
   }
 
   @Override
-  public void flush(SegmentWriteState state) throws IOException, AbortingException {
+  public void flush(final SegmentWriteState state) throws IOException, AbortingException {
 
     // NOTE: caller (DocumentsWriterPerThread) handles
     // aborting on any exception from this method
 
-    int maxDoc = state.segmentInfo.maxDoc();
-    writeNorms(state);
-    writeDocValues(state);
-    writeDimensionalValues(state);
-    
-    // it's possible all docs hit non-aborting exceptions...
-    initStoredFieldsWriter();
-    fillStoredFields(maxDoc);
-    storedFieldsWriter.finish(state.fieldInfos, maxDoc);
-    storedFieldsWriter.close();
+    final int maxDoc = state.segmentInfo.maxDoc();
 
-    Map<String,TermsHashPerField> fieldsToFlush = new HashMap<>();
+    final Map<String,TermsHashPerField> fieldsToFlush = new HashMap<>();
     for (int i=0;i<fieldHash.length;i++) {
       PerField perField = fieldHash[i];
       while (perField != null) {
@@ -112,7 +108,53 @@ final class DefaultIndexingChain extends DocConsumer {
       }
     }
 
-    termsHash.flush(fieldsToFlush, state);
+    // Each of these tasks writes its own files, so they may run
+    // concurrently:
+    final List<Callable<Void>> tasks = new ArrayList<>();
+    tasks.add(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        writeNorms(state);
+        return null;
+      }
+    });
+    tasks.add(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        writeDocValues(state);
+        return null;
+      }
+    });
+    tasks.add(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        writeDimensionalValues(state);
+        return null;
+      }
+    });
+    tasks.add(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException, AbortingException {
+        // it's possible all docs hit non-aborting exceptions...
+        initStoredFieldsWriter();
+        fillStoredFields(maxDoc);
+        storedFieldsWriter.finish(state.fieldInfos, maxDoc);
+        storedFieldsWriter.close();
+        return null;
+      }
+    });
+    tasks.add(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        termsHash.flush(fieldsToFlush, state);
+        return null;
+      }
+    });
+    runFlushTasks(tasks, docWriter.indexWriterConfig.getFlushExecutor());
+
+    // Postings have been written, give their buffers back to the
+    // allocator so that they can be reused by the next segment:
+    termsHash.reset();
 
     // Important to save after asking consumer to flush so
     // consumer can alter the FieldInfo* if necessary.  EG,
@@ -121,6 +163,20 @@ final class DefaultIndexingChain extends DocConsumer {
     docWriter.codec.fieldInfosFormat().write(state.directory, state.segmentInfo, "", state.fieldInfos, IOContext.DEFAULT);
   }
 
+  /** Runs the given flush tasks, concurrently if an executor is provided,
+   *  and waits for all of them to complete. */
+  private static void runFlushTasks(List<Callable<Void>> tasks, ExecutorService executor) throws IOException, AbortingException {
+    try {
+      // waits for all tasks, even if one of them failed, so that no file is
+      // still being written when the segment is aborted
+      TaskExecutor.invokeAll(executor, tasks);
+    } catch (IOException | AbortingException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   /** Writes all buffered dimensional values. */
   private void writeDimensionalValues(SegmentWriteState state) throws IOException {
     DimensionalWriter dimensionalWriter = null;
@@ -122,6 +122,8 @@ final class DocumentsWriter implements Closeable, Accountable {
   final DocumentsWriterFlushControl flushControl;
   private final IndexWriter writer;
   private final Queue<Event> events;
+  // shared pool of free indexing buffers, or null
+  final IndexingBufferPool bufferPool;
 
   
   DocumentsWriter(IndexWriter writer, LiveIndexWriterConfig config, Directory directoryOrig, Directory directory) {
@@ -134,6 +136,8 @@ final class DocumentsWriter implements Closeable, Accountable {
     this.writer = writer;
     this.events = new ConcurrentLinkedQueue<>();
     flushControl = new DocumentsWriterFlushControl(this, config, writer.bufferedUpdatesStream);
+    final long bufferPoolBytes = (long) (config.getIndexingBufferPoolSizeMB() * 1024 * 1024);
+    bufferPool = bufferPoolBytes > 0 ? new IndexingBufferPool(bufferPoolBytes) : null;
   }
   
   synchronized boolean deleteQueries(final Query... queries) throws IOException {
@@ -389,7 +393,7 @@ final class DocumentsWriter implements Closeable, Accountable {
       final FieldInfos.Builder infos = new FieldInfos.Builder(writer.globalFieldNumberMap);
       state.dwpt = new DocumentsWriterPerThread(writer, writer.newSegmentName(), directoryOrig,
                                                 directory, config, infoStream, deleteQueue, infos,
-                                                writer.pendingNumDocs, writer.enableTestPoints);
+                                                writer.pendingNumDocs, bufferPool, writer.enableTestPoints);
     }
   }
 
@@ -152,15 +152,24 @@ class DocumentsWriterPerThread {
   final DocumentsWriterDeleteQueue deleteQueue;
   private final DeleteSlice deleteSlice;
   private final NumberFormat nf = NumberFormat.getInstance(Locale.ROOT);
+
+  /** Maximum number of free blocks of each kind that term vectors keep
+   *  for the next document when indexing buffers are pooled. */
+  static final int MAX_LOCAL_TERM_VECTORS_BLOCKS = 4;
+
   final Allocator byteBlockAllocator;
   final IntBlockPool.Allocator intBlockAllocator;
+  // term vectors release their blocks after every document
+  final Allocator termVectorsByteBlockAllocator;
+  final IntBlockPool.Allocator termVectorsIntBlockAllocator;
   private final AtomicLong pendingNumDocs;
-  private final LiveIndexWriterConfig indexWriterConfig;
+  final LiveIndexWriterConfig indexWriterConfig;
   private final boolean enableTestPoints;
   private final IndexWriter indexWriter;
   
   public DocumentsWriterPerThread(IndexWriter writer, String segmentName, Directory directoryOrig, Directory directory, LiveIndexWriterConfig indexWriterConfig, InfoStream infoStream, DocumentsWriterDeleteQueue deleteQueue,
-                                  FieldInfos.Builder fieldInfos, AtomicLong pendingNumDocs, boolean enableTestPoints) throws IOException {
+                                  FieldInfos.Builder fieldInfos, AtomicLong pendingNumDocs, IndexingBufferPool bufferPool,
+                                  boolean enableTestPoints) throws IOException {
     this.indexWriter = writer;
     this.directoryOrig = directoryOrig;
     this.directory = new TrackingDirectoryWrapper(directory);
@@ -172,9 +181,20 @@ class DocumentsWriterPerThread {
     this.docState.similarity = indexWriterConfig.getSimilarity();
     this.pendingNumDocs = pendingNumDocs;
     bytesUsed = Counter.newCounter();
-    byteBlockAllocator = new DirectTrackingAllocator(bytesUsed);
+    if (bufferPool == null) {
+      byteBlockAllocator = new DirectTrackingAllocator(bytesUsed);
+      intBlockAllocator = new IntBlockAllocator(bytesUsed);
+      termVectorsByteBlockAllocator = byteBlockAllocator;
+      termVectorsIntBlockAllocator = intBlockAllocator;
+    } else {
+      byteBlockAllocator = bufferPool.newByteBlockAllocator(bytesUsed);
+      intBlockAllocator = bufferPool.newIntBlockAllocator(bytesUsed);
+      // keep the blocks of the last document for the next one rather than
+      // going through the shared pool for every document
+      termVectorsByteBlockAllocator = bufferPool.newByteBlockAllocator(bytesUsed, MAX_LOCAL_TERM_VECTORS_BLOCKS);
+      termVectorsIntBlockAllocator = bufferPool.newIntBlockAllocator(bytesUsed, MAX_LOCAL_TERM_VECTORS_BLOCKS);
+    }
     pendingUpdates = new BufferedUpdates();
-    intBlockAllocator = new IntBlockAllocator(bytesUsed);
     this.deleteQueue = deleteQueue;
     assert numDocsInRAM == 0 : "num docs " + numDocsInRAM;
     pendingUpdates.clear();
@@ -20,6 +20,7 @@ import org.apache.lucene.util.ThreadInterruptedException;
 import org.apache.lucene.util.ThreadInterruptedException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -105,17 +106,42 @@ final class DocumentsWriterPerThreadPool {
     }
   }
 
-  private final List<ThreadState> threadStates = new ArrayList<>();
+  private static final int MAX_STRIPES = 64;
 
-  private final List<ThreadState> freeList = new ArrayList<>();
+  // copy-on-write so that flush control can iterate over thread states
+  // without locking; writes are guarded by this
+  private volatile ThreadState[] threadStates = new ThreadState[0];
+
+  // free thread states, striped by requesting thread so that concurrent
+  // indexing threads do not contend on a single free list, and so that a
+  // thread gets back the thread state that it released last. Each stripe
+  // is guarded by its own monitor.
+  private final List<List<ThreadState>> freeLists;
+  private final int stripeMask;
 
   private boolean aborted;
 
+  DocumentsWriterPerThreadPool() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  DocumentsWriterPerThreadPool(int concurrency) {
+    int numStripes = 1;
+    while (numStripes < concurrency && numStripes < MAX_STRIPES) {
+      numStripes <<= 1;
+    }
+    freeLists = new ArrayList<>(numStripes);
+    for (int i = 0; i < numStripes; ++i) {
+      freeLists.add(new ArrayList<ThreadState>());
+    }
+    stripeMask = numStripes - 1;
+  }
+
   /**
    * Returns the active number of {@link ThreadState} instances.
    */
-  synchronized int getActiveThreadStateCount() {
-    return threadStates.size();
+  int getActiveThreadStateCount() {
+    return threadStates.length;
   }
 
   synchronized void setAbort() {
@@ -147,7 +173,9 @@ final class DocumentsWriterPerThreadPool {
     }
     ThreadState threadState = new ThreadState(null);
     threadState.lock(); // lock so nobody else will get this ThreadState
-    threadStates.add(threadState);
+    final ThreadState[] newThreadStates = Arrays.copyOf(threadStates, threadStates.length + 1);
+    newThreadStates[threadStates.length] = threadState;
+    threadStates = newThreadStates;
     return threadState;
   }
 
@@ -162,18 +190,20 @@ final class DocumentsWriterPerThreadPool {
     // don't recycle DWPT by default
   }
 
+  private List<ThreadState> freeList(Thread thread) {
+    return freeLists.get((int) thread.getId() & stripeMask);
+  }
+
   /** This method is used by DocumentsWriter/FlushControl to obtain a ThreadState to do an indexing operation (add/updateDocument). */
   ThreadState getAndLock(Thread requestingThread, DocumentsWriter documentsWriter) {
+    final List<ThreadState> freeList = freeList(requestingThread);
     ThreadState threadState = null;
-    synchronized (this) {
-      if (freeList.isEmpty()) {
-        // ThreadState is already locked before return by this method:
-        return newThreadState();
-      } else {
+    synchronized (freeList) {
+      if (freeList.isEmpty() == false) {
         // Important that we are LIFO here! This way if number of concurrent indexing threads was once high, but has now reduced, we only use a
-        // limited number of thread states:
+        // limited number of thread states. This also gives the requesting
+        // thread the thread state that it released last:
         threadState = freeList.remove(freeList.size()-1);
-
         if (threadState.dwpt == null) {
           // This thread-state is not initialized, e.g. it
           // was just flushed. See if we can instead find
@@ -183,33 +213,76 @@ final class DocumentsWriterPerThreadPool {
           // indefinitely buffered, tying up RAM.  This
           // will instead get those thread states flushed,
           // freeing up RAM for larger segment flushes:
-          for(int i=0;i<freeList.size();i++) {
-            ThreadState ts = freeList.get(i);
-            if (ts.dwpt != null) {
-              // Use this one instead, and swap it with
-              // the un-initialized one:
-              freeList.set(i, threadState);
-              threadState = ts;
-              break;
+          final ThreadState initialized = pollInitialized(freeList);
+          if (initialized != null) {
+            freeList.add(threadState);
+            threadState = initialized;
+          }
+        }
+      }
+    }
+
+    if (threadState == null || threadState.dwpt == null) {
+      // Look for a thread state that already has docs indexed in other
+      // stripes, for the same reason as above:
+      for (int i = 1; i <= stripeMask; ++i) {
+        final List<ThreadState> otherFreeList = freeLists.get(((int) requestingThread.getId() + i) & stripeMask);
+        final ThreadState initialized;
+        synchronized (otherFreeList) {
+          initialized = pollInitialized(otherFreeList);
+        }
+        if (initialized != null) {
+          if (threadState != null) {
+            synchronized (freeList) {
+              freeList.add(threadState);
             }
           }
+          threadState = initialized;
+          break;
         }
       }
     }
 
+    if (threadState == null) {
+      // Any other free thread state is not initialized either, so there is
+      // no point in taking it from another thread
+      for (int i = 1; i <= stripeMask && threadState == null; ++i) {
+        final List<ThreadState> otherFreeList = freeLists.get(((int) requestingThread.getId() + i) & stripeMask);
+        synchronized (otherFreeList) {
+          if (otherFreeList.isEmpty() == false) {
+            threadState = otherFreeList.remove(otherFreeList.size()-1);
+          }
+        }
+      }
+      if (threadState == null) {
+        // ThreadState is already locked before return by this method:
+        return newThreadState();
+      }
+    }
+
     // This could take time, e.g. if the threadState is [briefly] checked for flushing:
     threadState.lock();
 
     return threadState;
   }
 
+  /** Removes and returns the most recently released thread state of the
+   *  given free list that has docs indexed, or null if there is none. The
+   *  caller must hold the lock of the free list. */
+  private static ThreadState pollInitialized(List<ThreadState> freeList) {
+    for (int i = freeList.size() - 1; i >= 0; i--) {
+      if (freeList.get(i).dwpt != null) {
+        return freeList.remove(i);
+      }
+    }
+    return null;
+  }
+
   void release(ThreadState state) {
     state.unlock();
-    synchronized (this) {
+    final List<ThreadState> freeList = freeList(Thread.currentThread());
+    synchronized (freeList) {
       freeList.add(state);
-      // In case any thread is waiting, wake one of them up since we just released a thread state; notify() should be sufficient but we do
-      // notifyAll defensively:
-      notifyAll();
     }
   }
   
@@ -222,12 +295,12 @@ final class DocumentsWriterPerThreadPool {
    * @return the <i>i</i>th active {@link ThreadState} where <i>i</i> is the
    *         given ord.
    */
-  synchronized ThreadState getThreadState(int ord) {
-    return threadStates.get(ord);
+  ThreadState getThreadState(int ord) {
+    return threadStates[ord];
   }
 
-  synchronized int getMaxThreadStates() {
-    return threadStates.size();
+  int getMaxThreadStates() {
+    return threadStates.length;
   }
 
   /**
@@ -49,6 +49,7 @@ import org.apache.lucene.index.FieldInfos.FieldNumbers;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FilterDirectory;
@@ -775,7 +776,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       mergeScheduler.setInfoStream(infoStream);
       codec = config.getCodec();
 
-      bufferedUpdatesStream = new BufferedUpdatesStream(infoStream);
+      bufferedUpdatesStream = new BufferedUpdatesStream(infoStream, config.getApplyDeletesExecutor());
       poolReaders = config.getReaderPooling();
 
       OpenMode mode = config.getOpenMode();
@@ -2603,9 +2604,16 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       SegmentInfo info = new SegmentInfo(directoryOrig, Version.LATEST, mergedName, -1,
                                          false, codec, Collections.emptyMap(), StringHelper.randomId(), new HashMap<>());
 
-      SegmentMerger merger = new SegmentMerger(Arrays.asList(readers), info, infoStream, trackingDir,
+      List<CodecReader> mergeReaders = Arrays.asList(readers);
+      final Sort indexSort = config.getIndexSort();
+      if (indexSort != null && numDocs > 0) {
+        mergeReaders = new MergeSorter(mergeReaders, indexSort).getSortedReaders();
+        info.setIndexSort(indexSort);
+      }
+
+      SegmentMerger merger = new SegmentMerger(mergeReaders, info, infoStream, trackingDir,
                                                globalFieldNumberMap, 
-                                               context);
+                                               context, config.getMergeExecutor());
       
       rateLimiters.set(new MergeRateLimiter(null));
 
@@ -3213,6 +3221,9 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       if (mergedDeletesAndUpdates == null) {
         mergedDeletesAndUpdates = readerPool.get(merge.info, true);
         docMap = merge.getDocMap(mergeState);
+        if (merge.indexSorter != null) {
+          docMap = merge.indexSorter.getDocMap(docMap, mergeState);
+        }
         assert docMap.isConsistent(merge.info.info.maxDoc());
       }
       if (initWritableLiveDocs && !initializedWritableLiveDocs) {
@@ -3963,7 +3974,9 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
     
     IOContext context = new IOContext(merge.getStoreMergeInfo());
 
-    final TrackingDirectoryWrapper dirWrapper = new TrackingDirectoryWrapper(mergeDirectory);
+    // bound to the rate limiter of this merge, since index parts may be
+    // written by the threads of the merge executor
+    final TrackingDirectoryWrapper dirWrapper = new TrackingDirectoryWrapper(addMergeRateLimiter(directory, merge.rateLimiter));
 
     if (infoStream.isEnabled("IW")) {
       infoStream.message("IW", "merging " + segString(merge.segments));
@@ -4048,10 +4061,20 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
       
       // we pass merge.getMergeReaders() instead of merge.readers to allow the
       // OneMerge to return a view over the actual segments to merge
-      final SegmentMerger merger = new SegmentMerger(merge.getMergeReaders(),
+      List<CodecReader> mergeReaders = merge.getMergeReaders();
+      final Sort indexSort = config.getIndexSort();
+      if (indexSort != null && mergeReaders.isEmpty() == false) {
+        merge.indexSorter = new MergeSorter(mergeReaders, indexSort);
+        mergeReaders = merge.indexSorter.getSortedReaders();
+        merge.info.info.setIndexSort(indexSort);
+        if (infoStream.isEnabled("IW")) {
+          infoStream.message("IW", merge.indexSorter.wasSorted() ? "readers already sorted by " + indexSort : "sorting readers by " + indexSort);
+        }
+      }
+      final SegmentMerger merger = new SegmentMerger(mergeReaders,
                                                      merge.info.info, infoStream, dirWrapper,
                                                      globalFieldNumberMap, 
-                                                     context);
+                                                     context, config.getMergeExecutor());
 
       merge.rateLimiter.checkAbort();
 
@@ -4807,6 +4830,14 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
   /** Wraps the incoming {@link Directory} so that we assign a per-thread
    *  {@link MergeRateLimiter} to all created {@link IndexOutput}s. */
   private Directory addMergeRateLimiters(Directory in) {
+    return addMergeRateLimiter(in, null);
+  }
+
+  /** Wraps the incoming {@link Directory} so that all created
+   *  {@link IndexOutput}s are throttled by the given {@link MergeRateLimiter},
+   *  whatever the thread that creates them, or by the per-thread one if the
+   *  given rate limiter is null. */
+  private Directory addMergeRateLimiter(Directory in, final MergeRateLimiter mergeRateLimiter) {
     return new FilterDirectory(in) {
       @Override
       public IndexOutput createOutput(String name, IOContext context) throws IOException {
@@ -4820,7 +4851,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable {
         // somewhere that is failing to pass down the right IOContext:
         assert context.context == IOContext.Context.MERGE: "got context=" + context.context;
 
-        MergeRateLimiter rateLimiter = rateLimiters.get();
+        MergeRateLimiter rateLimiter = mergeRateLimiter != null ? mergeRateLimiter : rateLimiters.get();
         assert rateLimiter != null;
 
         return new RateLimitedIndexOutput(rateLimiter, in.createOutput(name, context));
@@ -18,11 +18,15 @@ package org.apache.lucene.index;
  */
 
 import java.io.PrintStream;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.index.DocumentsWriterPerThread.IndexingChain;
 import org.apache.lucene.index.IndexWriter.IndexReaderWarmer;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.util.InfoStream;
 import org.apache.lucene.util.PrintStreamInfoStream;
@@ -300,6 +304,92 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
     return readerPooling;
   }
 
+  /** Expert: sets the {@link ExecutorService} used to resolve buffered
+   *  deletes and updates against several segments in parallel, which
+   *  shortens the time that {@link IndexWriter} spends applying deletes
+   *  when a near-real-time reader is opened, on commit and before
+   *  merges. By default, this is <code>null</code> and deletes are
+   *  resolved one segment at a time on the thread that applies them.
+   *  Deletes are applied while holding the lock of {@link IndexWriter}, so
+   *  the applying thread runs the segments that the executor does not pick
+   *  up itself rather than waiting for a free thread: the executor may be
+   *  shared with other components. The executor is not shut down by
+   *  {@link IndexWriter}.
+   *
+   * <p>Only takes effect when IndexWriter is first created. */
+  public IndexWriterConfig setApplyDeletesExecutor(ExecutorService applyDeletesExecutor) {
+    this.applyDeletesExecutor = applyDeletesExecutor;
+    return this;
+  }
+
+  @Override
+  public ExecutorService getApplyDeletesExecutor() {
+    return applyDeletesExecutor;
+  }
+
+  /** Expert: sets the {@link ExecutorService} used to flush segments.
+   *  Norms, doc values, dimensional values, stored fields and postings
+   *  of a flushed segment are then written concurrently, which shortens
+   *  the time that indexing threads spend flushing. The indexing thread
+   *  that flushes a segment still waits for all of its files to be
+   *  written. By default, this is <code>null</code> and files are written
+   *  one after the other. The executor is not shut down by
+   *  {@link IndexWriter}.
+   *
+   * <p>Only takes effect when IndexWriter is first created. */
+  public IndexWriterConfig setFlushExecutor(ExecutorService flushExecutor) {
+    this.flushExecutor = flushExecutor;
+    return this;
+  }
+
+  @Override
+  public ExecutorService getFlushExecutor() {
+    return flushExecutor;
+  }
+
+  /** Expert: sets the {@link ExecutorService} used to merge segments.
+   *  Stored fields, term vectors, norms, postings, doc values and
+   *  dimensional values of a merged segment are then merged concurrently,
+   *  which shortens large merges on machines that have idle cores. The
+   *  merge thread still waits for all of them, and they share the
+   *  {@link MergeRateLimiter} of the merge. By default, this is
+   *  <code>null</code> and index parts are merged one after the other.
+   *  The executor is not shut down by {@link IndexWriter}.
+   *
+   * <p>Only takes effect when IndexWriter is first created. */
+  public IndexWriterConfig setMergeExecutor(ExecutorService mergeExecutor) {
+    this.mergeExecutor = mergeExecutor;
+    return this;
+  }
+
+  @Override
+  public ExecutorService getMergeExecutor() {
+    return mergeExecutor;
+  }
+
+  /** Expert: sets the maximum amount of memory, in MB, that is retained in a
+   *  pool of free indexing buffers. The byte and int blocks that buffer
+   *  postings and term vectors of in-memory segments are then returned to
+   *  this pool after a flush and reused by the next segments rather than
+   *  being reallocated, which reduces garbage collection work when using
+   *  large RAM buffers. Blocks in use are still counted against the
+   *  {@link #setRAMBufferSizeMB RAM buffer}, the pool comes on top of it. By
+   *  default, this is <code>0</code>, which disables pooling.
+   *
+   * <p>Only takes effect when IndexWriter is first created. */
+  public IndexWriterConfig setIndexingBufferPoolSizeMB(double indexingBufferPoolSizeMB) {
+    if (indexingBufferPoolSizeMB < 0 || Double.isNaN(indexingBufferPoolSizeMB)) {
+      throw new IllegalArgumentException("indexingBufferPoolSizeMB must be >= 0, got " + indexingBufferPoolSizeMB);
+    }
+    this.indexingBufferPoolSizeMB = indexingBufferPoolSizeMB;
+    return this;
+  }
+
+  @Override
+  public double getIndexingBufferPoolSizeMB() {
+    return indexingBufferPoolSizeMB;
+  }
+
   /**
    * Expert: Controls when segments are flushed to disk during indexing.
    * The {@link FlushPolicy} initialized during {@link IndexWriter} instantiation and once initialized
@@ -439,6 +529,45 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
     return this;
   }
 
+  /** The {@link SortField} types that can be used in an index sort. */
+  private static final EnumSet<SortField.Type> ALLOWED_INDEX_SORT_TYPES = EnumSet.of(
+      SortField.Type.STRING, SortField.Type.LONG, SortField.Type.INT, SortField.Type.DOUBLE, SortField.Type.FLOAT);
+
+  /**
+   * Sets the {@link Sort} order of documents in merged segments. Every
+   * segment that {@link IndexWriter} produces by merging will have its
+   * documents sorted according to this order and will record it, see
+   * {@link SegmentInfo#getIndexSort()}. This allows
+   * {@link org.apache.lucene.search.TopFieldCollector} to stop collecting a
+   * segment early when the search sort is a prefix of the index sort.
+   * <p>
+   * <b>NOTE</b>: This only applies to merged segments, including segments
+   * added through {@link IndexWriter#addIndexes(CodecReader...)}. Segments
+   * that are produced by a flush keep documents in the order in which they
+   * were added and have no index sort, so an index is only entirely sorted
+   * after it has been {@link IndexWriter#forceMerge(int) force-merged} or
+   * once all flushed segments have been merged.
+   * <p>
+   * Only {@link SortField}s of type {@link SortField.Type#STRING},
+   * {@link SortField.Type#LONG}, {@link SortField.Type#INT},
+   * {@link SortField.Type#DOUBLE} or {@link SortField.Type#FLOAT} are
+   * supported. Merge policies that reorder documents themselves must not be
+   * used in conjunction with an index sort.
+   * <p>
+   * Only takes effect when IndexWriter is first created.
+   *
+   * @lucene.experimental
+   */
+  public IndexWriterConfig setIndexSort(Sort sort) {
+    for (SortField sortField : sort.getSort()) {
+      if (ALLOWED_INDEX_SORT_TYPES.contains(sortField.getType()) == false) {
+        throw new IllegalArgumentException("invalid SortField type: must be one of " + ALLOWED_INDEX_SORT_TYPES + " but got: " + sortField);
+      }
+    }
+    this.indexSort = sort;
+    return this;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder(super.toString());
@@ -0,0 +1,233 @@
+package org.apache.lucene.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.IntBlockPool;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A pool of byte and int blocks that is shared by all
+ * {@link DocumentsWriterPerThread}s of an {@link IndexWriter}. Blocks that
+ * are released by a {@link DocumentsWriterPerThread}, after a flush or when
+ * term vectors of a document have been written, are kept for reuse by the
+ * next allocations instead of being left to the garbage collector.
+ * Allocators may keep a few free blocks for themselves in front of the
+ * shared pool, so that buffers that are released after every document, like
+ * the ones of term vectors, do not go through the lock of the pool. Pooled
+ * blocks live long enough to be promoted to the old generation once and then
+ * stay there, so that large RAM buffers do not keep the collector busy
+ * copying and promoting freshly allocated postings blocks.
+ * <p>
+ * The pool retains at most {@code maxBytes} of free blocks and drops the
+ * others. Blocks that are in use are accounted in the {@link Counter} of the
+ * {@link DocumentsWriterPerThread} that uses them, like with non-pooled
+ * allocators, so that {@link DocumentsWriterFlushControl} sees the same RAM
+ * usage either way.
+ * <p>
+ * This class is thread-safe.
+ */
+final class IndexingBufferPool {
+
+  private static final int BYTE_BLOCK_BYTES = ByteBlockPool.BYTE_BLOCK_SIZE;
+  private static final int INT_BLOCK_BYTES = IntBlockPool.INT_BLOCK_SIZE * RamUsageEstimator.NUM_BYTES_INT;
+
+  private final long maxBytes;
+  private final List<byte[]> freeByteBlocks = new ArrayList<>();
+  private final List<int[]> freeIntBlocks = new ArrayList<>();
+  private long bytes;
+
+  /** Create a new pool that retains at most {@code maxBytes} of free blocks. */
+  IndexingBufferPool(long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be > 0, got " + maxBytes);
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /** Return the number of bytes of the free blocks that this pool retains. */
+  synchronized long ramBytesUsed() {
+    return bytes;
+  }
+
+  private synchronized byte[] takeByteBlock() {
+    if (freeByteBlocks.isEmpty()) {
+      return null;
+    }
+    bytes -= BYTE_BLOCK_BYTES;
+    return freeByteBlocks.remove(freeByteBlocks.size() - 1);
+  }
+
+  private synchronized int[] takeIntBlock() {
+    if (freeIntBlocks.isEmpty()) {
+      return null;
+    }
+    bytes -= INT_BLOCK_BYTES;
+    return freeIntBlocks.remove(freeIntBlocks.size() - 1);
+  }
+
+  /** Return the number of blocks of the given size that may still be added to the pool. */
+  private int reserve(int numBlocks, int blockBytes) {
+    assert Thread.holdsLock(this);
+    return (int) Math.min(numBlocks, (maxBytes - bytes) / blockBytes);
+  }
+
+  private void recycleByteBlocks(byte[][] blocks, int start, int end) {
+    // zero-fill outside of the lock, slices rely on it
+    for (int i = start; i < end; ++i) {
+      Arrays.fill(blocks[i], (byte) 0);
+    }
+    synchronized (this) {
+      final int numBlocks = reserve(end - start, BYTE_BLOCK_BYTES);
+      for (int i = start; i < start + numBlocks; ++i) {
+        freeByteBlocks.add(blocks[i]);
+      }
+      bytes += (long) numBlocks * BYTE_BLOCK_BYTES;
+    }
+  }
+
+  private void recycleIntBlocks(int[][] blocks, int start, int end) {
+    for (int i = start; i < end; ++i) {
+      Arrays.fill(blocks[i], 0);
+    }
+    synchronized (this) {
+      final int numBlocks = reserve(end - start, INT_BLOCK_BYTES);
+      for (int i = start; i < start + numBlocks; ++i) {
+        freeIntBlocks.add(blocks[i]);
+      }
+      bytes += (long) numBlocks * INT_BLOCK_BYTES;
+    }
+  }
+
+  /** Return a new {@link ByteBlockPool.Allocator} that takes blocks from this
+   *  pool and accounts blocks in use in {@code bytesUsed}. */
+  ByteBlockPool.Allocator newByteBlockAllocator(Counter bytesUsed) {
+    return newByteBlockAllocator(bytesUsed, 0);
+  }
+
+  /** Return a new {@link ByteBlockPool.Allocator} that keeps up to
+   *  {@code maxLocalBlocks} free blocks for itself and otherwise takes blocks
+   *  from this pool. The allocator is not thread-safe, and blocks that it
+   *  keeps are accounted in {@code bytesUsed} like blocks in use. */
+  ByteBlockPool.Allocator newByteBlockAllocator(Counter bytesUsed, int maxLocalBlocks) {
+    return new ByteBlockAllocator(this, bytesUsed, maxLocalBlocks);
+  }
+
+  /** Return a new {@link IntBlockPool.Allocator} that takes blocks from this
+   *  pool and accounts blocks in use in {@code bytesUsed}. */
+  IntBlockPool.Allocator newIntBlockAllocator(Counter bytesUsed) {
+    return newIntBlockAllocator(bytesUsed, 0);
+  }
+
+  /** Return a new {@link IntBlockPool.Allocator} that keeps up to
+   *  {@code maxLocalBlocks} free blocks for itself and otherwise takes blocks
+   *  from this pool. The allocator is not thread-safe, and blocks that it
+   *  keeps are accounted in {@code bytesUsed} like blocks in use. */
+  IntBlockPool.Allocator newIntBlockAllocator(Counter bytesUsed, int maxLocalBlocks) {
+    return new IntBlockAllocator(this, bytesUsed, maxLocalBlocks);
+  }
+
+  private static final class ByteBlockAllocator extends ByteBlockPool.Allocator {
+    private final IndexingBufferPool pool;
+    private final Counter bytesUsed;
+    // free blocks that are reused before taking blocks from the pool
+    private final byte[][] localBlocks;
+    private int numLocalBlocks;
+
+    ByteBlockAllocator(IndexingBufferPool pool, Counter bytesUsed, int maxLocalBlocks) {
+      super(ByteBlockPool.BYTE_BLOCK_SIZE);
+      this.pool = pool;
+      this.bytesUsed = bytesUsed;
+      this.localBlocks = new byte[maxLocalBlocks][];
+    }
+
+    @Override
+    public byte[] getByteBlock() {
+      if (numLocalBlocks > 0) {
+        final byte[] b = localBlocks[--numLocalBlocks];
+        localBlocks[numLocalBlocks] = null;
+        return b;
+      }
+      byte[] b = pool.takeByteBlock();
+      if (b == null) {
+        b = new byte[blockSize];
+      }
+      bytesUsed.addAndGet(blockSize);
+      return b;
+    }
+
+    @Override
+    public void recycleByteBlocks(byte[][] blocks, int start, int end) {
+      for (; start < end && numLocalBlocks < localBlocks.length; ++start) {
+        Arrays.fill(blocks[start], (byte) 0);
+        localBlocks[numLocalBlocks++] = blocks[start];
+      }
+      if (start < end) {
+        pool.recycleByteBlocks(blocks, start, end);
+        bytesUsed.addAndGet(-(end - start) * blockSize);
+      }
+    }
+  }
+
+  private static final class IntBlockAllocator extends IntBlockPool.Allocator {
+    private final IndexingBufferPool pool;
+    private final Counter bytesUsed;
+    // free blocks that are reused before taking blocks from the pool
+    private final int[][] localBlocks;
+    private int numLocalBlocks;
+
+    IntBlockAllocator(IndexingBufferPool pool, Counter bytesUsed, int maxLocalBlocks) {
+      super(IntBlockPool.INT_BLOCK_SIZE);
+      this.pool = pool;
+      this.bytesUsed = bytesUsed;
+      this.localBlocks = new int[maxLocalBlocks][];
+    }
+
+    @Override
+    public int[] getIntBlock() {
+      if (numLocalBlocks > 0) {
+        final int[] b = localBlocks[--numLocalBlocks];
+        localBlocks[numLocalBlocks] = null;
+        return b;
+      }
+      int[] b = pool.takeIntBlock();
+      if (b == null) {
+        b = new int[blockSize];
+      }
+      bytesUsed.addAndGet(INT_BLOCK_BYTES);
+      return b;
+    }
+
+    @Override
+    public void recycleIntBlocks(int[][] blocks, int start, int end) {
+      for (; start < end && numLocalBlocks < localBlocks.length; ++start) {
+        Arrays.fill(blocks[start], 0);
+        localBlocks[numLocalBlocks++] = blocks[start];
+      }
+      if (start < end) {
+        pool.recycleIntBlocks(blocks, start, end);
+        bytesUsed.addAndGet(-(end - start) * INT_BLOCK_BYTES);
+      }
+    }
+  }
+}
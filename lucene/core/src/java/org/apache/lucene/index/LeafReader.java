@@ -21,6 +21,7 @@ import java.io.IOException;
 
 import org.apache.lucene.codecs.DimensionalReader;
 import org.apache.lucene.index.IndexReader.ReaderClosedListener;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.util.Bits;
 
 /** {@code LeafReader} is an abstract class, providing an interface for accessing an
@@ -313,4 +314,17 @@ public abstract class LeafReader extends IndexReader {
    * @lucene.internal
    */
   public abstract void checkIntegrity() throws IOException;
+
+  /**
+   * Returns the {@link Sort} order that documents of this reader are sorted
+   * by, or {@code null} if documents are not known to be sorted. Segments
+   * that have been produced by a flush are never sorted. The default
+   * implementation returns {@code null}. Note that {@link FilterLeafReader}
+   * does not delegate this method since wrappers may reorder documents.
+   * @see IndexWriterConfig#setIndexSort(Sort)
+   * @lucene.experimental
+   */
+  public Sort getIndexSort() {
+    return null;
+  }
 }
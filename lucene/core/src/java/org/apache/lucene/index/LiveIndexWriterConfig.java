@@ -17,12 +17,15 @@ package org.apache.lucene.index;
  * limitations under the License.
  */
 
+import java.util.concurrent.ExecutorService;
+
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.index.DocumentsWriterPerThread.IndexingChain;
 import org.apache.lucene.index.IndexWriter.IndexReaderWarmer;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.util.InfoStream;
 
@@ -80,6 +83,22 @@ public class LiveIndexWriterConfig {
   /** True if readers should be pooled. */
   protected volatile boolean readerPooling;
 
+  /** Executor used to resolve buffered deletes and updates against
+   *  several segments in parallel, or null. */
+  protected volatile ExecutorService applyDeletesExecutor;
+
+  /** Executor used to write the files of a flushed segment in
+   *  parallel, or null. */
+  protected volatile ExecutorService flushExecutor;
+
+  /** Executor used to merge the index parts of a merged segment in
+   *  parallel, or null. */
+  protected volatile ExecutorService mergeExecutor;
+
+  /** Maximum amount of memory, in MB, of free indexing buffers that are
+   *  kept for reuse, or 0 to disable pooling. */
+  protected volatile double indexingBufferPoolSizeMB;
+
   /** {@link FlushPolicy} to control when segments are
    *  flushed. */
   protected volatile FlushPolicy flushPolicy;
@@ -94,6 +113,9 @@ public class LiveIndexWriterConfig {
   /** True if calls to {@link IndexWriter#close()} should first do a commit. */
   protected boolean commitOnClose = IndexWriterConfig.DEFAULT_COMMIT_ON_CLOSE;
 
+  /** The sort order to use when merging segments, or null if segments should not be sorted. */
+  protected Sort indexSort = null;
+
   // used by IndexWriterConfig
   LiveIndexWriterConfig(Analyzer analyzer) {
     this.analyzer = analyzer;
@@ -379,6 +401,47 @@ public class LiveIndexWriterConfig {
     return readerPooling;
   }
 
+  /**
+   * Returns the {@link ExecutorService} that {@link IndexWriter} uses to
+   * resolve buffered deletes and updates against several segments in
+   * parallel, or <code>null</code> if they are resolved on the current
+   * thread.
+   */
+  public ExecutorService getApplyDeletesExecutor() {
+    return applyDeletesExecutor;
+  }
+
+  /**
+   * Returns the {@link ExecutorService} that is used to write norms, doc
+   * values, dimensional values, stored fields and postings of a flushed
+   * segment in parallel, or <code>null</code> if they are written on the
+   * flushing thread.
+   */
+  public ExecutorService getFlushExecutor() {
+    return flushExecutor;
+  }
+
+  /**
+   * Returns the {@link ExecutorService} that is used to merge stored fields,
+   * term vectors, norms, postings, doc values and dimensional values of a
+   * merged segment in parallel, or <code>null</code> if they are merged on
+   * the merge thread.
+   */
+  public ExecutorService getMergeExecutor() {
+    return mergeExecutor;
+  }
+
+  /**
+   * Returns the maximum amount of memory, in MB, of free indexing buffers
+   * that are kept for reuse by the next in-memory segments, or
+   * <code>0</code> if indexing buffers are not pooled.
+   *
+   * @see IndexWriterConfig#setIndexingBufferPoolSizeMB(double)
+   */
+  public double getIndexingBufferPoolSizeMB() {
+    return indexingBufferPoolSizeMB;
+  }
+
   /**
    * Returns the indexing chain.
    */
@@ -445,6 +508,17 @@ public class LiveIndexWriterConfig {
     return commitOnClose;
   }
 
+  /**
+   * Returns the sort order that merged segments are sorted with, or
+   * <code>null</code> if documents are not sorted. Flushed segments are
+   * never sorted.
+   *
+   * @see IndexWriterConfig#setIndexSort(Sort)
+   */
+  public Sort getIndexSort() {
+    return indexSort;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder();
@@ -464,9 +538,14 @@ public class LiveIndexWriterConfig {
     sb.append("mergePolicy=").append(getMergePolicy()).append("\n");
     sb.append("indexerThreadPool=").append(getIndexerThreadPool()).append("\n");
     sb.append("readerPooling=").append(getReaderPooling()).append("\n");
+    sb.append("applyDeletesExecutor=").append(getApplyDeletesExecutor()).append("\n");
+    sb.append("flushExecutor=").append(getFlushExecutor()).append("\n");
+    sb.append("mergeExecutor=").append(getMergeExecutor()).append("\n");
+    sb.append("indexingBufferPoolSizeMB=").append(getIndexingBufferPoolSizeMB()).append("\n");
     sb.append("perThreadHardLimitMB=").append(getRAMPerThreadHardLimitMB()).append("\n");
     sb.append("useCompoundFile=").append(getUseCompoundFile()).append("\n");
     sb.append("commitOnClose=").append(getCommitOnClose()).append("\n");
+    sb.append("indexSort=").append(getIndexSort()).append("\n");
     return sb.toString();
   }
 }
@@ -105,6 +105,7 @@ public abstract class MergePolicy {
     volatile long totalMergeBytes;
 
     List<SegmentReader> readers;        // used by IndexWriter
+    MergeSorter indexSorter;            // used by IndexWriter
 
     /** Segments to be merged. */
     public final List<SegmentCommitInfo> segments;
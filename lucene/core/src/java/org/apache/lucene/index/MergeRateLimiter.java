@@ -34,11 +34,14 @@ import static org.apache.lucene.store.RateLimiter.SimpleRateLimiter;
 public class MergeRateLimiter extends RateLimiter {
 
   private final static int MIN_PAUSE_CHECK_MSEC = 25;
-  volatile long totalBytesWritten;
+
+  // the parts of a merge may be written concurrently, see
+  // IndexWriterConfig.setMergeExecutor: counters are guarded by this
+  private long totalBytesWritten;
 
   double mbPerSec;
   private long lastNS;
-  private long minPauseCheckBytes;
+  private volatile long minPauseCheckBytes;
   private boolean abort;
   long totalPausedNS;
   long totalStoppedNS;
@@ -65,7 +68,8 @@ public class MergeRateLimiter extends RateLimiter {
     // NOTE: Double.POSITIVE_INFINITY casts to Long.MAX_VALUE
     minPauseCheckBytes = Math.min(1024*1024, (long) ((MIN_PAUSE_CHECK_MSEC / 1000.0) * mbPerSec * 1024 * 1024));
     assert minPauseCheckBytes >= 0;
-    notify();
+    // wake up all threads that write parts of this merge
+    notifyAll();
   }
 
   @Override
@@ -74,14 +78,16 @@ public class MergeRateLimiter extends RateLimiter {
   }
 
   /** Returns total bytes written by this merge. */
-  public long getTotalBytesWritten() {
+  public synchronized long getTotalBytesWritten() {
     return totalBytesWritten;
   }
 
   @Override
   public long pause(long bytes) throws MergePolicy.MergeAbortedException {
 
-    totalBytesWritten += bytes;
+    synchronized (this) {
+      totalBytesWritten += bytes;
+    }
 
     long startNS = System.nanoTime();
     long curNS = startNS;
@@ -93,9 +99,6 @@ public class MergeRateLimiter extends RateLimiter {
     while (true) {
       PauseResult result = maybePause(bytes, curNS);
       if (result == PauseResult.NO) {
-        // Set to curNS, not targetNS, to enforce the instant rate, not
-        // the "averaaged over all history" rate:
-        lastNS = curNS;
         break;
       }
       curNS = System.nanoTime();
@@ -103,11 +106,13 @@ public class MergeRateLimiter extends RateLimiter {
       startNS = curNS;
 
       // Separately track when merge was stopped vs rate limited:
-      if (result == PauseResult.STOPPED) {
-        totalStoppedNS += ns;
-      } else {
-        assert result == PauseResult.PAUSED;
-        totalPausedNS += ns;
+      synchronized (this) {
+        if (result == PauseResult.STOPPED) {
+          totalStoppedNS += ns;
+        } else {
+          assert result == PauseResult.PAUSED;
+          totalPausedNS += ns;
+        }
       }
       pausedNS += ns;
     }
@@ -145,6 +150,9 @@ public class MergeRateLimiter extends RateLimiter {
     // rounds up to 1 msec, so we don't bother unless it's > 2 msec:
 
     if (curPauseNS <= 2000000) {
+      // Set to curNS, not targetNS, to enforce the instant rate, not
+      // the "averaaged over all history" rate:
+      lastNS = curNS;
       return PauseResult.NO;
     }
 
@@ -182,7 +190,7 @@ public class MergeRateLimiter extends RateLimiter {
   /** Mark this merge aborted. */
   public synchronized void setAbort() {
     abort = true;
-    notify();
+    notifyAll();
   }
 
   /** Returns true if this merge was aborted. */
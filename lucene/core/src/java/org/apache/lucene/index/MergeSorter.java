@@ -0,0 +1,113 @@
+package org.apache.lucene.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+
+/**
+ * Reorders the documents of the readers to merge according to a {@link Sort}.
+ * @see IndexWriterConfig#setIndexSort(Sort)
+ */
+final class MergeSorter {
+
+  private final List<CodecReader> unsortedReaders;
+  // null if the readers are already sorted
+  private final Sorter.DocMap docMap;
+  private final List<CodecReader> sortedReaders;
+
+  /** Sort the documents of the given readers with the given {@link Sort}. */
+  MergeSorter(List<CodecReader> readers, Sort sort) throws IOException {
+    this.unsortedReaders = readers;
+    // wrap readers, to be optimal for merge
+    List<LeafReader> wrapped = new ArrayList<>(readers.size());
+    for (LeafReader leaf : readers) {
+      if (leaf instanceof SegmentReader) {
+        leaf = new MergeReaderWrapper((SegmentReader) leaf);
+      }
+      wrapped.add(leaf);
+    }
+    final LeafReader atomicView;
+    if (wrapped.size() == 1) {
+      atomicView = wrapped.get(0);
+    } else {
+      final CompositeReader multiReader = new MultiReader(wrapped.toArray(new LeafReader[wrapped.size()]));
+      atomicView = new SlowCompositeReaderWrapper(multiReader, true);
+    }
+    docMap = new Sorter(sort).sort(atomicView);
+    if (docMap == null) {
+      sortedReaders = readers;
+    } else {
+      sortedReaders = Collections.singletonList(SlowCodecReaderWrapper.wrap(SortingLeafReader.wrap(atomicView, docMap)));
+    }
+  }
+
+  /** Return the readers to feed {@link SegmentMerger} with. */
+  List<CodecReader> getSortedReaders() {
+    return sortedReaders;
+  }
+
+  /** Return whether the readers were already sorted. */
+  boolean wasSorted() {
+    return docMap == null;
+  }
+
+  /** Compose the given {@link MergePolicy.DocMap}, which maps <i>natural</i>
+   *  doc IDs to doc IDs in the unsorted readers, with the permutation that
+   *  this sorter applied. */
+  MergePolicy.DocMap getDocMap(final MergePolicy.DocMap in, final MergeState mergeState) {
+    if (docMap == null) {
+      return in;
+    }
+    assert mergeState.docMaps.length == 1; // we returned a singleton reader
+    final PackedLongValues deletes = getDeletes(unsortedReaders);
+    return new MergePolicy.DocMap() {
+      @Override
+      public int map(int old) {
+        final int unsorted = in.map(old);
+        final int unsortedWithDeletes = unsorted + (int) deletes.get(unsorted);
+        final int sortedWithDeletes = docMap.oldToNew(unsortedWithDeletes);
+        return mergeState.docMaps[0].get(sortedWithDeletes);
+      }
+    };
+  }
+
+  private static PackedLongValues getDeletes(List<CodecReader> readers) {
+    PackedLongValues.Builder deletes = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+    int deleteCount = 0;
+    for (LeafReader reader : readers) {
+      final int maxDoc = reader.maxDoc();
+      final Bits liveDocs = reader.getLiveDocs();
+      for (int i = 0; i < maxDoc; ++i) {
+        if (liveDocs != null && !liveDocs.get(i)) {
+          ++deleteCount;
+        } else {
+          deletes.add(deleteCount);
+        }
+      }
+    }
+    return deletes.build();
+  }
+}
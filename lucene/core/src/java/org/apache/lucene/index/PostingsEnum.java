@@ -108,4 +108,32 @@ public abstract class PostingsEnum extends DocIdSetIterator {
    *  in the byte[]). */
   public abstract BytesRef getPayload() throws IOException;
 
+  /**
+   * Bulk read: copy the current document and the following ones into
+   * <code>docs</code>, and their frequencies into <code>freqs</code> unless
+   * it is <code>null</code>, until either the arrays are full or a document
+   * that is greater than or equal to <code>upTo</code> is reached. Returns
+   * the number of documents that have been copied. When this method returns,
+   * this enum is positioned on the first document that has not been copied,
+   * or on {@link DocIdSetIterator#NO_MORE_DOCS}. Do not call this before
+   * {@link #nextDoc} or {@link #advance} is first called.
+   * <p>
+   * The default implementation calls {@link #nextDoc} and {@link #freq}
+   * in a loop, but codecs can override it to copy their decoded blocks
+   * directly.
+   * @lucene.experimental
+   */
+  public int read(int[] docs, int[] freqs, int upTo) throws IOException {
+    assert docID() != -1;
+    int count = 0;
+    for (int doc = docID(); doc < upTo && count < docs.length; doc = nextDoc()) {
+      docs[count] = doc;
+      if (freqs != null) {
+        freqs[count] = freq();
+      }
+      ++count;
+    }
+    return count;
+  }
+
 }
@@ -28,6 +28,8 @@ import java.util.Set;
 import java.util.regex.Matcher;
 
 import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.TrackingDirectoryWrapper;
 import org.apache.lucene.util.StringHelper;
@@ -69,6 +71,9 @@ public final class SegmentInfo {
   
   private final Map<String,String> attributes;
 
+  // sort order of documents in this segment, decoded from the attributes
+  private Sort indexSort;
+
   // Tracks the Lucene version this segment was created with, since 3.1. Null
   // indicates an older than 3.0 index, and it's used to detect a too old index.
   // The format expected is "x.y" - "2.x" for pre-3.0 indexes (or null), and
@@ -107,6 +112,7 @@ public final class SegmentInfo {
       throw new IllegalArgumentException("invalid id: " + Arrays.toString(id));
     }
     this.attributes = Objects.requireNonNull(attributes);
+    this.indexSort = readIndexSort(attributes);
   }
 
   /**
@@ -204,6 +210,12 @@ public final class SegmentInfo {
       s.append(']');
     }
 
+    if (indexSort != null) {
+      s.append(":[indexSort=");
+      s.append(indexSort);
+      s.append(']');
+    }
+
     // TODO: we could append toString of attributes() here?
 
     return s.toString();
@@ -286,7 +298,7 @@ public final class SegmentInfo {
   /**
    * Get a codec attribute value, or null if it does not exist
    */
-  public String getAttribute(String key) {
+  public synchronized String getAttribute(String key) {
     return attributes.get(key);
   }
   
@@ -299,8 +311,11 @@ public final class SegmentInfo {
    * <p>
    * If a value already exists for the field, it will be replaced with the new
    * value.
+   * <p>
+   * This method is thread-safe since several codec components may be written
+   * concurrently when flushing or merging a segment.
    */
-  public String putAttribute(String key, String value) {
+  public synchronized String putAttribute(String key, String value) {
     return attributes.put(key, value);
   }
   
@@ -311,5 +326,84 @@ public final class SegmentInfo {
   public Map<String,String> getAttributes() {
     return attributes;
   }
-}
 
+  /** Return the sort order of the documents of this segment, or {@code null}
+   *  if documents are not sorted.
+   *  @see IndexWriterConfig#setIndexSort(Sort) */
+  public Sort getIndexSort() {
+    return indexSort;
+  }
+
+  /** Record that documents of this segment are sorted according to the given
+   *  {@link Sort}. The sort is persisted in the {@link #getAttributes()
+   *  attributes} of the segment. */
+  void setIndexSort(Sort indexSort) {
+    assert this.indexSort == null;
+    final SortField[] fields = indexSort.getSort();
+    putAttribute(INDEX_SORT_KEY, Integer.toString(fields.length));
+    for (int i = 0; i < fields.length; ++i) {
+      putAttribute(INDEX_SORT_KEY + "." + i, writeSortField(fields[i]));
+    }
+    this.indexSort = indexSort;
+  }
+
+  private static final String INDEX_SORT_KEY = SegmentInfo.class.getSimpleName() + ".indexSort";
+
+  // encoded as type:reverse:missingValue:field, the field goes last since it
+  // may contain colons
+  private static String writeSortField(SortField sortField) {
+    final Object missingValue = sortField.missingValue;
+    final String missing;
+    if (missingValue == null) {
+      missing = "";
+    } else if (missingValue == SortField.STRING_FIRST) {
+      missing = "first";
+    } else if (missingValue == SortField.STRING_LAST) {
+      missing = "last";
+    } else {
+      missing = missingValue.toString();
+    }
+    return sortField.getType().name() + ":" + sortField.getReverse() + ":" + missing + ":" + sortField.getField();
+  }
+
+  private static Sort readIndexSort(Map<String,String> attributes) {
+    final String numFields = attributes.get(INDEX_SORT_KEY);
+    if (numFields == null) {
+      return null;
+    }
+    try {
+      final SortField[] fields = new SortField[Integer.parseInt(numFields)];
+      for (int i = 0; i < fields.length; ++i) {
+        final String[] parts = attributes.get(INDEX_SORT_KEY + "." + i).split(":", 4);
+        final SortField.Type type = SortField.Type.valueOf(parts[0]);
+        final SortField sortField = new SortField(parts[3], type, Boolean.parseBoolean(parts[1]));
+        final String missing = parts[2];
+        if (missing.isEmpty() == false) {
+          switch (type) {
+            case STRING:
+              sortField.setMissingValue(missing.equals("first") ? SortField.STRING_FIRST : SortField.STRING_LAST);
+              break;
+            case INT:
+              sortField.setMissingValue(Integer.parseInt(missing));
+              break;
+            case LONG:
+              sortField.setMissingValue(Long.parseLong(missing));
+              break;
+            case FLOAT:
+              sortField.setMissingValue(Float.parseFloat(missing));
+              break;
+            case DOUBLE:
+              sortField.setMissingValue(Double.parseDouble(missing));
+              break;
+            default:
+              throw new IllegalArgumentException("unexpected missing value for sort type " + type);
+          }
+        }
+        fields[i] = sortField;
+      }
+      return new Sort(fields);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("invalid index sort attributes: " + attributes, e);
+    }
+  }
+}
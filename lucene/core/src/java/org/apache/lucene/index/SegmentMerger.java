@@ -18,7 +18,10 @@ package org.apache.lucene.index;
  */
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.DimensionalWriter;
@@ -30,11 +33,13 @@ import org.apache.lucene.codecs.TermVectorsWriter;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.util.InfoStream;
+import org.apache.lucene.util.TaskExecutor;
 
 /**
  * The SegmentMerger class combines two or more Segments, represented by an
  * IndexReader, into a single Segment.  Call the merge method to combine the
- * segments.
+ * segments. Index parts are merged concurrently when an {@link Executor} is
+ * provided.
  *
  * @see #merge
  */
@@ -44,13 +49,16 @@ final class SegmentMerger {
   private final Codec codec;
   
   private final IOContext context;
+
+  private final Executor executor;
   
   final MergeState mergeState;
   private final FieldInfos.Builder fieldInfosBuilder;
 
   // note, just like in codec apis Directory 'dir' is NOT the same as segmentInfo.dir!!
+  // executor may be null, in which case index parts are merged on the current thread
   SegmentMerger(List<CodecReader> readers, SegmentInfo segmentInfo, InfoStream infoStream, Directory dir,
-                FieldInfos.FieldNumbers fieldNumbers, IOContext context) throws IOException {
+                FieldInfos.FieldNumbers fieldNumbers, IOContext context, Executor executor) throws IOException {
     if (context.context != IOContext.Context.MERGE) {
       throw new IllegalArgumentException("IOContext.context should be MERGE; got: " + context.context);
     }
@@ -58,6 +66,7 @@ final class SegmentMerger {
     directory = dir;
     this.codec = segmentInfo.getCodec();
     this.context = context;
+    this.executor = executor;
     this.fieldInfosBuilder = new FieldInfos.Builder(fieldNumbers);
   }
   
@@ -77,84 +86,113 @@ final class SegmentMerger {
       throw new IllegalStateException("Merge would result in 0 document segment");
     }
     mergeFieldInfos();
-    long t0 = 0;
-    if (mergeState.infoStream.isEnabled("SM")) {
-      t0 = System.nanoTime();
-    }
-    int numMerged = mergeFields();
-    if (mergeState.infoStream.isEnabled("SM")) {
-      long t1 = System.nanoTime();
-      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge stored fields [" + numMerged + " docs]");
-    }
-    assert numMerged == mergeState.segmentInfo.maxDoc(): "numMerged=" + numMerged + " vs mergeState.segmentInfo.maxDoc()=" + mergeState.segmentInfo.maxDoc();
 
     final SegmentWriteState segmentWriteState = new SegmentWriteState(mergeState.infoStream, directory, mergeState.segmentInfo,
                                                                       mergeState.mergeFieldInfos, null, context);
-    if (mergeState.infoStream.isEnabled("SM")) {
-      t0 = System.nanoTime();
-    }
-    mergeTerms(segmentWriteState);
-    if (mergeState.infoStream.isEnabled("SM")) {
-      long t1 = System.nanoTime();
-      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge postings [" + numMerged + " docs]");
-    }
 
-    if (mergeState.infoStream.isEnabled("SM")) {
-      t0 = System.nanoTime();
-    }
+    // Each of these tasks reads its own producers and writes its own
+    // files, so they may run concurrently:
+    final List<MergeTask> tasks = new ArrayList<>();
+    tasks.add(new MergeTask("stored fields") {
+      @Override
+      void merge() throws IOException {
+        int numMerged = mergeFields();
+        assert numMerged == mergeState.segmentInfo.maxDoc(): "numMerged=" + numMerged + " vs mergeState.segmentInfo.maxDoc()=" + mergeState.segmentInfo.maxDoc();
+      }
+    });
+    tasks.add(new MergeTask("postings") {
+      @Override
+      void merge() throws IOException {
+        mergeTerms(segmentWriteState);
+      }
+    });
     if (mergeState.mergeFieldInfos.hasDocValues()) {
-      mergeDocValues(segmentWriteState);
+      tasks.add(new MergeTask("doc values") {
+        @Override
+        void merge() throws IOException {
+          mergeDocValues(segmentWriteState);
+        }
+      });
     }
-    if (mergeState.infoStream.isEnabled("SM")) {
-      long t1 = System.nanoTime();
-      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge doc values [" + numMerged + " docs]");
+    if (mergeState.mergeFieldInfos.hasDimensionalValues()) {
+      tasks.add(new MergeTask("dimensional values") {
+        @Override
+        void merge() throws IOException {
+          mergeDimensionalValues(segmentWriteState);
+        }
+      });
     }
+    if (mergeState.mergeFieldInfos.hasNorms()) {
+      tasks.add(new MergeTask("norms") {
+        @Override
+        void merge() throws IOException {
+          mergeNorms(segmentWriteState);
+        }
+      });
+    }
+    if (mergeState.mergeFieldInfos.hasVectors()) {
+      tasks.add(new MergeTask("vectors") {
+        @Override
+        void merge() throws IOException {
+          int numMerged = mergeVectors();
+          assert numMerged == mergeState.segmentInfo.maxDoc();
+        }
+      });
+    }
+    runMergeTasks(tasks);
 
+    // write the merged infos
+    long t0 = 0;
     if (mergeState.infoStream.isEnabled("SM")) {
       t0 = System.nanoTime();
     }
-    if (mergeState.mergeFieldInfos.hasDimensionalValues()) {
-      mergeDimensionalValues(segmentWriteState);
-    }
+    codec.fieldInfosFormat().write(directory, mergeState.segmentInfo, "", mergeState.mergeFieldInfos, context);
     if (mergeState.infoStream.isEnabled("SM")) {
       long t1 = System.nanoTime();
-      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge dimensional values [" + numMerged + " docs]");
+      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to write field infos [" + mergeState.segmentInfo.maxDoc() + " docs]");
     }
-    
-    if (mergeState.mergeFieldInfos.hasNorms()) {
-      if (mergeState.infoStream.isEnabled("SM")) {
-        t0 = System.nanoTime();
-      }
-      mergeNorms(segmentWriteState);
-      if (mergeState.infoStream.isEnabled("SM")) {
-        long t1 = System.nanoTime();
-        mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge norms [" + numMerged + " docs]");
-      }
+
+    return mergeState;
+  }
+
+  /** Merges one part of the index, and reports how long it took. */
+  private abstract class MergeTask implements Callable<Void> {
+
+    private final String name;
+
+    MergeTask(String name) {
+      this.name = name;
     }
 
-    if (mergeState.mergeFieldInfos.hasVectors()) {
+    abstract void merge() throws IOException;
+
+    @Override
+    public Void call() throws IOException {
+      long t0 = 0;
       if (mergeState.infoStream.isEnabled("SM")) {
         t0 = System.nanoTime();
       }
-      numMerged = mergeVectors();
+      merge();
       if (mergeState.infoStream.isEnabled("SM")) {
         long t1 = System.nanoTime();
-        mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge vectors [" + numMerged + " docs]");
+        mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge " + name + " [" + mergeState.segmentInfo.maxDoc() + " docs]");
       }
-      assert numMerged == mergeState.segmentInfo.maxDoc();
-    }
-    
-    // write the merged infos
-    if (mergeState.infoStream.isEnabled("SM")) {
-      t0 = System.nanoTime();
-    }
-    codec.fieldInfosFormat().write(directory, mergeState.segmentInfo, "", mergeState.mergeFieldInfos, context);
-    if (mergeState.infoStream.isEnabled("SM")) {
-      long t1 = System.nanoTime();
-      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to write field infos [" + numMerged + " docs]");
+      return null;
     }
+  }
 
-    return mergeState;
+  /** Runs the given merge tasks, concurrently if an executor was provided,
+   *  and waits for all of them to complete. */
+  private void runMergeTasks(List<MergeTask> tasks) throws IOException {
+    try {
+      // waits for all tasks, even if one of them failed, so that no file is
+      // still being written when the merge is aborted
+      TaskExecutor.invokeAll(executor, tasks);
+    } catch (IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
   }
 
   private void mergeDocValues(SegmentWriteState segmentWriteState) throws IOException {
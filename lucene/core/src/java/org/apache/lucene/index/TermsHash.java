@@ -45,12 +45,17 @@ abstract class TermsHash {
   final boolean trackAllocations;
 
   TermsHash(final DocumentsWriterPerThread docWriter, boolean trackAllocations, TermsHash nextTermsHash) {
+    this(docWriter, docWriter.intBlockAllocator, docWriter.byteBlockAllocator, trackAllocations, nextTermsHash);
+  }
+
+  TermsHash(final DocumentsWriterPerThread docWriter, IntBlockPool.Allocator intBlockAllocator,
+      ByteBlockPool.Allocator byteBlockAllocator, boolean trackAllocations, TermsHash nextTermsHash) {
     this.docState = docWriter.docState;
     this.trackAllocations = trackAllocations; 
     this.nextTermsHash = nextTermsHash;
     this.bytesUsed = trackAllocations ? docWriter.bytesUsed : Counter.newCounter();
-    intPool = new IntBlockPool(docWriter.intBlockAllocator);
-    bytePool = new ByteBlockPool(docWriter.byteBlockAllocator);
+    intPool = new IntBlockPool(intBlockAllocator);
+    bytePool = new ByteBlockPool(byteBlockAllocator);
 
     if (nextTermsHash != null) {
       // We are primary
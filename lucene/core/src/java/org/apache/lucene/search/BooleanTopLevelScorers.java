@@ -45,6 +45,22 @@ class BooleanTopLevelScorers {
       return in.score() * boost;
     }
 
+    @Override
+    public float maxScore() {
+      if (boost < 0) {
+        return Float.POSITIVE_INFINITY;
+      }
+      return in.maxScore() * boost;
+    }
+
+    @Override
+    public void setMinCompetitiveScore(float minScore) throws IOException {
+      if (boost > 0) {
+        // round down since scores are multiplied by the boost as floats
+        in.setMinCompetitiveScore(Math.nextDown(minScore / boost));
+      }
+    }
+
     @Override
     public Collection<ChildScorer> getChildren() {
       return Collections.singleton(new ChildScorer(in, "BOOSTED"));
@@ -256,6 +256,11 @@ final class BooleanWeight extends Weight {
       }
 
       if (bulkScorer.cost() > costThreshold) {
+        if (needsScores && bulkScorer instanceof BooleanScorer && query.getMinimumNumberShouldMatch() <= 1) {
+          // allow to skip non-competitive documents if the collector tells us about
+          // the minimum competitive score, the MaxScoreSumScorer is only created then
+          return new MaxScoreBulkScorer((BooleanScorer) bulkScorer, this, context);
+        }
         return bulkScorer;
       }
     }
@@ -328,6 +333,11 @@ final class BooleanWeight extends Weight {
     
     // pure disjunction
     if (required.isEmpty()) {
+      if (needsScores && minShouldMatch <= 1 && prohibited.isEmpty()
+          && MaxScoreSumScorer.canUse(optional, coords)) {
+        // this scorer can skip non-competitive documents
+        return new MaxScoreSumScorer(this, optional, coords);
+      }
       return excl(opt(optional, minShouldMatch, disableCoord), prohibited);
     }
     
@@ -388,6 +398,10 @@ final class BooleanWeight extends Weight {
           public int freq() throws IOException {
             return 0;
           }
+          @Override
+          public float maxScore() {
+            return 0f;
+          }
         };
       }
       
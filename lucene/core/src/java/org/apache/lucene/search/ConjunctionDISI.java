@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.CollectionUtil;
 
 /** A conjunction of DocIdSetIterators.
@@ -160,11 +161,24 @@ public class ConjunctionDISI extends DocIdSetIterator {
 
   /**
    * {@link TwoPhaseIterator} view of a {@link TwoPhase} conjunction.
+   * <p>
+   * Sub iterators are initially confirmed cheapest first. Then the rate at
+   * which each of them confirms matches is tracked, and every
+   * {@link #REORDER_INTERVAL} calls to {@link #matches()} they are re-ordered
+   * by increasing expected cost to reject a document, ie. their
+   * {@link TwoPhaseIterator#matchCost() match cost} divided by the
+   * probability that they do not match. This way a selective clause runs
+   * before a cheaper clause that almost always matches.
    */
   private static class TwoPhaseConjunctionDISI extends TwoPhaseIterator {
 
+    // number of calls to matches() between two re-orderings of the clauses
+    static final int REORDER_INTERVAL = 1024;
+
     private final TwoPhaseIterator[] twoPhaseIterators;
+    private final TwoPhaseClause[] clauses;
     private final float matchCost;
+    private int untilReorder = REORDER_INTERVAL;
 
     private TwoPhaseConjunctionDISI(List<? extends DocIdSetIterator> iterators, List<TwoPhaseIterator> twoPhaseIterators) {
       super(new ConjunctionDISI(iterators));
@@ -178,6 +192,10 @@ public class ConjunctionDISI extends DocIdSetIterator {
       });
 
       this.twoPhaseIterators = twoPhaseIterators.toArray(new TwoPhaseIterator[twoPhaseIterators.size()]);
+      this.clauses = new TwoPhaseClause[this.twoPhaseIterators.length];
+      for (int i = 0; i < clauses.length; ++i) {
+        clauses[i] = new TwoPhaseClause(this.twoPhaseIterators[i]);
+      }
 
       // Compute the matchCost as the total matchCost of the sub iterators.
       // TODO: This could be too high because the matching is done cheapest first: give the lower matchCosts a higher weight.
@@ -190,14 +208,34 @@ public class ConjunctionDISI extends DocIdSetIterator {
 
     @Override
     public boolean matches() throws IOException {
-      for (TwoPhaseIterator twoPhaseIterator : twoPhaseIterators) { // match cheapest first
-        if (twoPhaseIterator.matches() == false) {
+      if (--untilReorder == 0) {
+        reorder();
+      }
+      for (TwoPhaseClause clause : clauses) { // match cheapest first
+        clause.checks++;
+        if (clause.iterator.matches() == false) {
           return false;
         }
+        clause.matches++;
       }
       return true;
     }
 
+    private void reorder() {
+      untilReorder = REORDER_INTERVAL;
+      if (clauses.length > 1) {
+        for (TwoPhaseClause clause : clauses) {
+          clause.updateRank();
+        }
+        ArrayUtil.timSort(clauses, new Comparator<TwoPhaseClause>() {
+          @Override
+          public int compare(TwoPhaseClause o1, TwoPhaseClause o2) {
+            return Double.compare(o1.rank, o2.rank);
+          }
+        });
+      }
+    }
+
     @Override
     public float matchCost() {
       return matchCost;
@@ -205,6 +243,30 @@ public class ConjunctionDISI extends DocIdSetIterator {
 
   }
 
+  /** A {@link TwoPhaseIterator} together with statistics about how often it matches. */
+  private static final class TwoPhaseClause {
+
+    final TwoPhaseIterator iterator;
+    final float matchCost;
+    long checks, matches;
+    double rank;
+
+    TwoPhaseClause(TwoPhaseIterator iterator) {
+      this.iterator = iterator;
+      this.matchCost = iterator.matchCost();
+    }
+
+    void updateRank() {
+      // Laplace smoothing so that clauses that have never been checked
+      // are assumed to match half of the time
+      final double matchProbability = (matches + 1d) / (checks + 2d);
+      rank = matchCost / (1 - matchProbability);
+      // decay statistics so that ordering adapts if match rates change
+      checks >>>= 1;
+      matches >>>= 1;
+    }
+  }
+
   /**
    * A conjunction DISI built on top of approximations. This implementation
    * verifies that documents actually match by consulting the provided
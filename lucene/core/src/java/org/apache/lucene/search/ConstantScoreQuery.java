@@ -98,6 +98,10 @@ public final class ConstantScoreQuery extends Query {
             public int freq() throws IOException {
               return 1;
             }
+            @Override
+            public float maxScore() {
+              return theScore;
+            }
           });
         }
       };
@@ -141,6 +145,10 @@ public final class ConstantScoreQuery extends Query {
               return 1;
             }
             @Override
+            public float maxScore() {
+              return score;
+            }
+            @Override
             public Collection<ChildScorer> getChildren() {
               return Collections.singleton(new ChildScorer(innerScorer, "constant"));
             }
@@ -63,6 +63,11 @@ public final class ConstantScoreScorer extends Scorer {
     return score;
   }
 
+  @Override
+  public float maxScore() {
+    return score;
+  }
+
   @Override
   public int freq() throws IOException {
     return 1;
@@ -25,6 +25,7 @@ final class FakeScorer extends Scorer {
   float score;
   int doc = -1;
   int freq = 1;
+  float minCompetitiveScore = Float.NEGATIVE_INFINITY;
 
   public FakeScorer() {
     super(null);
@@ -55,6 +56,11 @@ final class FakeScorer extends Scorer {
     return score;
   }
 
+  @Override
+  public void setMinCompetitiveScore(float minScore) {
+    minCompetitiveScore = minScore;
+  }
+
   @Override
   public long cost() {
     return 1;
@@ -27,7 +27,10 @@ import java.io.IOException;
  * of {@code Scorer} with versions that pass all requests to the
  * contained scorer. Subclasses of {@code FilterScorer} may
  * further override some of these methods and may also provide additional
- * methods and fields.
+ * methods and fields. {@link #maxScore()} and
+ * {@link #setMinCompetitiveScore(float)} are not forwarded since subclasses
+ * may modify scores: subclasses that do not can override them to pass
+ * requests to the contained scorer.
  */
 public abstract class FilterScorer extends Scorer {
   protected final Scorer in;
@@ -26,9 +26,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 import org.apache.lucene.index.DirectoryReader; // javadocs
 import org.apache.lucene.index.FieldInvertState;
@@ -48,7 +46,7 @@ import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.store.NIOFSDirectory;    // javadoc
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.ThreadInterruptedException;
+import org.apache.lucene.util.TaskExecutor;
 
 /** Implements search over a single IndexReader.
  *
@@ -313,6 +311,60 @@ public class IndexSearcher {
     return slices;
   }
 
+  /**
+   * Expert: Creates an array of leaf slices that are balanced by document count.
+   * Consecutive small leaves are grouped together until a slice holds at least
+   * <code>maxDocsPerSlice</code> live documents or <code>maxSegmentsPerSlice</code>
+   * leaves, while leaves that have more than <code>maxDocsPerSlice</code>
+   * documents are split into several doc ID ranges which are each searched in
+   * their own slice. This allows a single large segment to be searched by
+   * several threads concurrently. Slices are returned in doc ID order so that
+   * ties are broken the same way as with a single-threaded search.
+   * <p>This method can be used by sub-classes in order to override
+   * {@link #slices(List)}.
+   * @lucene.experimental
+   */
+  public static LeafSlice[] slices(List<LeafReaderContext> leaves, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+    if (maxDocsPerSlice < 1) {
+      throw new IllegalArgumentException("maxDocsPerSlice must be >= 1, got " + maxDocsPerSlice);
+    }
+    if (maxSegmentsPerSlice < 1) {
+      throw new IllegalArgumentException("maxSegmentsPerSlice must be >= 1, got " + maxSegmentsPerSlice);
+    }
+    final List<LeafSlice> slices = new ArrayList<>();
+    final List<LeafReaderContext> group = new ArrayList<>();
+    long groupDocs = 0;
+    for (LeafReaderContext ctx : leaves) {
+      final int maxDoc = ctx.reader().maxDoc();
+      if (maxDoc > maxDocsPerSlice) {
+        if (group.isEmpty() == false) {
+          slices.add(new LeafSlice(group.toArray(new LeafReaderContext[group.size()])));
+          group.clear();
+          groupDocs = 0;
+        }
+        // split the leaf into ranges of roughly equal size
+        final int numPartitions = (int) ((maxDoc + (long) maxDocsPerSlice - 1) / maxDocsPerSlice);
+        final int partitionSize = (int) ((maxDoc + (long) numPartitions - 1) / numPartitions);
+        for (int min = 0; min < maxDoc; min += partitionSize) {
+          final int max = (int) Math.min((long) min + partitionSize, maxDoc);
+          slices.add(new LeafSlice(ctx, min, max));
+        }
+      } else {
+        group.add(ctx);
+        groupDocs += ctx.reader().numDocs();
+        if (groupDocs >= maxDocsPerSlice || group.size() >= maxSegmentsPerSlice) {
+          slices.add(new LeafSlice(group.toArray(new LeafReaderContext[group.size()])));
+          group.clear();
+          groupDocs = 0;
+        }
+      }
+    }
+    if (group.isEmpty() == false) {
+      slices.add(new LeafSlice(group.toArray(new LeafReaderContext[group.size()])));
+    }
+    return slices.toArray(new LeafSlice[slices.size()]);
+  }
+
   
   /** Return the {@link IndexReader} this searches. */
   public IndexReader getIndexReader() {
@@ -602,34 +654,42 @@ public class IndexSearcher {
       }
 
       final Weight weight = createNormalizedWeight(query, needsScores);
-      final List<Future<C>> topDocsFutures = new ArrayList<>(leafSlices.length);
+      final List<Callable<C>> tasks = new ArrayList<>(leafSlices.length);
       for (int i = 0; i < leafSlices.length; ++i) {
-        final LeafReaderContext[] leaves = leafSlices[i].leaves;
+        final LeafSlice slice = leafSlices[i];
         final C collector = collectors.get(i);
-        topDocsFutures.add(executor.submit(new Callable<C>() {
+        tasks.add(new Callable<C>() {
           @Override
           public C call() throws Exception {
-            search(Arrays.asList(leaves), weight, collector);
+            if (slice.minDocs == null) {
+              search(Arrays.asList(slice.leaves), weight, collector);
+            } else {
+              search(slice, weight, collector);
+            }
             return collector;
           }
-        }));
-      }
-
-      final List<C> collectedCollectors = new ArrayList<>();
-      for (Future<C> future : topDocsFutures) {
-        try {
-          collectedCollectors.add(future.get());
-        } catch (InterruptedException e) {
-          throw new ThreadInterruptedException(e);
-        } catch (ExecutionException e) {
-          throw new RuntimeException(e);
-        }
+        });
       }
+      execute(tasks);
 
       return collectorManager.reduce(collectors);
     }
   }
 
+  /**
+   * Run the given tasks, concurrently if this searcher has an executor, and
+   * return their results in the same order as the tasks.
+   */
+  <T> List<T> execute(List<? extends Callable<T>> tasks) throws IOException {
+    try {
+      return TaskExecutor.invokeAll(executor, tasks);
+    } catch (IOException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   /**
    * Lower-level search API.
    * 
@@ -676,6 +736,31 @@ public class IndexSearcher {
     }
   }
 
+  /**
+   * Search the doc ID ranges of a {@link LeafSlice} that has been created
+   * through {@link LeafSlice#LeafSlice(LeafReaderContext, int, int)}.
+   */
+  private void search(LeafSlice slice, Weight weight, Collector collector) throws IOException {
+    for (int i = 0; i < slice.leaves.length; ++i) {
+      final LeafReaderContext ctx = slice.leaves[i];
+      final LeafCollector leafCollector;
+      try {
+        leafCollector = collector.getLeafCollector(ctx);
+      } catch (CollectionTerminatedException e) {
+        continue;
+      }
+      BulkScorer scorer = weight.bulkScorer(ctx);
+      if (scorer != null) {
+        try {
+          scorer.score(leafCollector, ctx.reader().getLiveDocs(), slice.minDocs[i], slice.maxDocs[i]);
+        } catch (CollectionTerminatedException e) {
+          // collection was terminated prematurely
+          // continue with the following leaf
+        }
+      }
+    }
+  }
+
   /** Expert: called to re-write queries into primitive queries.
    * @throws BooleanQuery.TooManyClauses If a query would exceed 
    *         {@link BooleanQuery#getMaxClauseCount()} clauses.
@@ -774,9 +859,28 @@ public class IndexSearcher {
    */
   public static class LeafSlice {
     final LeafReaderContext[] leaves;
+    // doc ID ranges to search in each leaf, or null to search whole leaves
+    final int[] minDocs, maxDocs;
     
     public LeafSlice(LeafReaderContext... leaves) {
       this.leaves = leaves;
+      this.minDocs = null;
+      this.maxDocs = null;
+    }
+
+    /**
+     * Create a slice that only searches documents whose id is in
+     * <code>[minDoc, maxDoc)</code> in the given leaf. This allows to search a
+     * single leaf with several threads by splitting it into several slices.
+     */
+    public LeafSlice(LeafReaderContext leaf, int minDoc, int maxDoc) {
+      if (minDoc < 0 || minDoc > maxDoc || maxDoc > leaf.reader().maxDoc()) {
+        throw new IllegalArgumentException("Invalid range [" + minDoc + "-" + maxDoc
+            + ") for a leaf that has maxDoc=" + leaf.reader().maxDoc());
+      }
+      this.leaves = new LeafReaderContext[] { leaf };
+      this.minDocs = new int[] { minDoc };
+      this.maxDocs = new int[] { maxDoc };
     }
   }
 
@@ -0,0 +1,95 @@
+package org.apache.lucene.search;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.Bits;
+
+/**
+ * {@link BulkScorer} for pure disjunctions that scores with
+ * {@link BooleanScorer} until the collector reports a minimum competitive
+ * score, and then switches to a {@link MaxScoreSumScorer} in order to skip
+ * over documents that cannot be competitive. The {@link MaxScoreSumScorer} is
+ * only created at that time, and if the clauses cannot bound their scores,
+ * scoring simply goes on with {@link BooleanScorer}.
+ */
+final class MaxScoreBulkScorer extends BulkScorer {
+
+  // number of documents to score with BooleanScorer between two checks of the
+  // minimum competitive score
+  static final int INTERVAL = BooleanScorer.SIZE * 2;
+
+  private final BooleanScorer in;
+  private final Weight weight;
+  private final LeafReaderContext context;
+  // the scorer that we switched to, or null if we did not switch (yet)
+  private MaxScoreSumScorer maxScoreScorer;
+  // whether we checked if we could switch to a MaxScoreSumScorer
+  private boolean checked;
+
+  MaxScoreBulkScorer(BooleanScorer in, Weight weight, LeafReaderContext context) {
+    this.in = in;
+    this.weight = weight;
+    this.context = context;
+  }
+
+  @Override
+  public int score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
+    int next = min;
+    while (checked == false) {
+      if (in.fakeScorer.minCompetitiveScore != Float.NEGATIVE_INFINITY) {
+        checked = true;
+        final Scorer scorer = weight.scorer(context);
+        if (scorer instanceof MaxScoreSumScorer) {
+          maxScoreScorer = (MaxScoreSumScorer) scorer;
+          maxScoreScorer.setMinCompetitiveScore(in.fakeScorer.minCompetitiveScore);
+        }
+        break;
+      }
+      next = in.score(collector, acceptDocs, next, (int) Math.min(max, (long) next + INTERVAL));
+      if (next >= max) {
+        return next;
+      }
+    }
+
+    if (maxScoreScorer == null) {
+      // some clauses cannot bound their scores, there is nothing to switch to
+      return in.score(collector, acceptDocs, next, max);
+    }
+
+    collector.setScorer(maxScoreScorer);
+    int doc = maxScoreScorer.docID();
+    if (doc < next) {
+      doc = maxScoreScorer.advance(next);
+    }
+    while (doc < max) {
+      if (acceptDocs == null || acceptDocs.get(doc)) {
+        collector.collect(doc);
+      }
+      doc = maxScoreScorer.nextDoc();
+    }
+    return doc;
+  }
+
+  @Override
+  public long cost() {
+    return in.cost();
+  }
+}
@@ -0,0 +1,255 @@
+package org.apache.lucene.search;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A {@link Scorer} for pure disjunctions that can skip over documents that
+ * cannot be competitive once a minimum competitive score has been set through
+ * {@link #setMinCompetitiveScore(float)}. It computes the same scores as
+ * {@link DisjunctionSumScorer}.
+ * <p>
+ * This is an implementation of the MaxScore algorithm: clauses are sorted by
+ * {@link Scorer#maxScore() maximum score} and the clauses with the lowest
+ * maximum scores whose sum is not competitive are called non-essential.
+ * Candidate matches are only generated from the remaining essential clauses
+ * while non-essential clauses are only advanced when the partial score of
+ * the candidate is high enough for the document to still be competitive.
+ * <p>
+ * This scorer requires that all clauses have a finite maximum score and that
+ * none of them supports two-phase iteration.
+ */
+final class MaxScoreSumScorer extends Scorer {
+
+  /** Whether the given scorers can be used with a {@link MaxScoreSumScorer}. */
+  static boolean canUse(List<Scorer> scorers, float[] coord) {
+    if (scorers.size() <= 1) {
+      return false;
+    }
+    for (float c : coord) {
+      if (c < 0 || Float.isFinite(c) == false) {
+        return false;
+      }
+    }
+    for (Scorer scorer : scorers) {
+      if (Float.isFinite(scorer.maxScore()) == false || scorer.asTwoPhaseIterator() != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Scores are summed as doubles, casted to a float and then multiplied by
+  // the coord factor, so the actual score may be slightly greater than the
+  // sum of the maximum scores. Inflate upper bounds to account for rounding.
+  private static final double ROUNDING_SLACK = 1 + 1e-5;
+
+  private final float[] coord;
+  private final double maxCoord;
+  private final long cost;
+
+  // all clauses, sorted by increasing maximum score
+  private final DisiWrapper<Scorer>[] scorers;
+  // sumOfMaxScores[i] is the sum of the maximum scores of scorers[0..i], including
+  // coord and rounding slack
+  private final double[] sumOfMaxScores;
+
+  // scorers[0:firstEssential) are non-essential, they cannot produce
+  // competitive hits on their own
+  private int firstEssential;
+  // the essential clauses, or null if none of the clauses is essential
+  private DisiPriorityQueue<Scorer> essentialQueue;
+  private float minCompetitiveScore = Float.NEGATIVE_INFINITY;
+
+  private int doc = -1;
+  private int freq;
+  private float score;
+
+  MaxScoreSumScorer(Weight weight, List<Scorer> subScorers, float[] coord) {
+    super(weight);
+    assert canUse(subScorers, coord);
+    this.coord = coord;
+    double maxCoord = 0;
+    for (float c : coord) {
+      maxCoord = Math.max(maxCoord, c);
+    }
+    this.maxCoord = maxCoord * ROUNDING_SLACK;
+
+    @SuppressWarnings({"unchecked","rawtypes"})
+    final DisiWrapper<Scorer>[] scorers = new DisiWrapper[subScorers.size()];
+    long cost = 0;
+    for (int i = 0; i < scorers.length; ++i) {
+      scorers[i] = new DisiWrapper<>(subScorers.get(i));
+      cost += scorers[i].cost;
+    }
+    this.cost = cost;
+    Arrays.sort(scorers, new Comparator<DisiWrapper<Scorer>>() {
+      @Override
+      public int compare(DisiWrapper<Scorer> o1, DisiWrapper<Scorer> o2) {
+        return Float.compare(o1.iterator.maxScore(), o2.iterator.maxScore());
+      }
+    });
+    this.scorers = scorers;
+
+    sumOfMaxScores = new double[scorers.length];
+    double sum = 0;
+    for (int i = 0; i < scorers.length; ++i) {
+      // negative scores can only decrease the sum
+      sum += Math.max(0f, scorers[i].iterator.maxScore());
+      sumOfMaxScores[i] = sum * this.maxCoord;
+    }
+
+    firstEssential = 0;
+    essentialQueue = new DisiPriorityQueue<>(scorers.length);
+    for (DisiWrapper<Scorer> w : scorers) {
+      essentialQueue.add(w);
+    }
+  }
+
+  @Override
+  public float maxScore() {
+    return (float) sumOfMaxScores[sumOfMaxScores.length - 1];
+  }
+
+  @Override
+  public void setMinCompetitiveScore(float minScore) {
+    if (minScore <= minCompetitiveScore) {
+      return;
+    }
+    minCompetitiveScore = minScore;
+    int newFirstEssential = firstEssential;
+    while (newFirstEssential < scorers.length && sumOfMaxScores[newFirstEssential] < minScore) {
+      newFirstEssential++;
+    }
+    if (newFirstEssential != firstEssential) {
+      firstEssential = newFirstEssential;
+      if (firstEssential == scorers.length) {
+        // no document can be competitive anymore
+        essentialQueue = null;
+      } else {
+        essentialQueue = new DisiPriorityQueue<>(scorers.length - firstEssential);
+        for (int i = firstEssential; i < scorers.length; ++i) {
+          essentialQueue.add(scorers[i]);
+        }
+      }
+    }
+  }
+
+  @Override
+  public int docID() {
+    return doc;
+  }
+
+  @Override
+  public int nextDoc() throws IOException {
+    return advance(doc + 1);
+  }
+
+  @Override
+  public int advance(int target) throws IOException {
+    if (essentialQueue == null) {
+      return doc = NO_MORE_DOCS;
+    }
+    DisiWrapper<Scorer> top = essentialQueue.top();
+    while (top.doc < target) {
+      if (top.doc == target - 1) {
+        top.doc = top.iterator.nextDoc();
+      } else {
+        top.doc = top.iterator.advance(target);
+      }
+      top = essentialQueue.updateTop();
+    }
+    return doc = nextCompetitiveDoc();
+  }
+
+  /** Return the first competitive document, starting from the current top of the essential queue. */
+  private int nextCompetitiveDoc() throws IOException {
+    while (true) {
+      DisiWrapper<Scorer> top = essentialQueue.top();
+      final int candidate = top.doc;
+      if (candidate == NO_MORE_DOCS || isCompetitive(candidate)) {
+        return candidate;
+      }
+      do {
+        top.doc = top.iterator.nextDoc();
+        top = essentialQueue.updateTop();
+      } while (top.doc == candidate);
+    }
+  }
+
+  /** Compute the score of the candidate and return whether it is competitive. */
+  private boolean isCompetitive(int candidate) throws IOException {
+    double sum = 0;
+    int freq = 0;
+    for (DisiWrapper<Scorer> w = essentialQueue.topList(); w != null; w = w.next) {
+      sum += w.iterator.score();
+      freq += 1;
+    }
+    // non-essential clauses, from the highest max score to the lowest
+    for (int i = firstEssential - 1; i >= 0; --i) {
+      if (sum * maxCoord + sumOfMaxScores[i] < minCompetitiveScore) {
+        return false;
+      }
+      final DisiWrapper<Scorer> w = scorers[i];
+      if (w.doc < candidate) {
+        w.doc = w.iterator.advance(candidate);
+      }
+      if (w.doc == candidate) {
+        sum += w.iterator.score();
+        freq += 1;
+      }
+    }
+    final float score = (float) sum * coord[freq];
+    if (score < minCompetitiveScore) {
+      return false;
+    }
+    this.score = score;
+    this.freq = freq;
+    return true;
+  }
+
+  @Override
+  public float score() throws IOException {
+    return score;
+  }
+
+  @Override
+  public int freq() throws IOException {
+    return freq;
+  }
+
+  @Override
+  public long cost() {
+    return cost;
+  }
+
+  @Override
+  public Collection<ChildScorer> getChildren() {
+    ArrayList<ChildScorer> children = new ArrayList<>();
+    for (DisiWrapper<Scorer> scorer : scorers) {
+      children.add(new ChildScorer(scorer.iterator, "SHOULD"));
+    }
+    return children;
+  }
+}
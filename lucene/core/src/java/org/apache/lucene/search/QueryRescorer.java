@@ -18,14 +18,18 @@ package org.apache.lucene.search;
  */
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.apache.lucene.index.LeafReaderContext;
 
 /** A {@link Rescorer} that uses a provided Query to assign
- *  scores to the first-pass hits.
+ *  scores to the first-pass hits. If the {@link IndexSearcher} has an
+ *  executor, the hits of each leaf are rescored concurrently. Note that
+ *  {@link #combine} may then be called from several threads.
  *
  * @lucene.experimental */
 public abstract class QueryRescorer extends Rescorer {
@@ -58,55 +62,29 @@ public abstract class QueryRescorer extends Rescorer {
                   }
                 });
 
-    List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
-
-    Weight weight = searcher.createNormalizedWeight(query, true);
-
-    // Now merge sort docIDs from hits, with reader's leaves:
-    int hitUpto = 0;
-    int readerUpto = -1;
-    int endDoc = 0;
-    int docBase = 0;
-    Scorer scorer = null;
-
-    while (hitUpto < hits.length) {
-      ScoreDoc hit = hits[hitUpto];
-      int docID = hit.doc;
-      LeafReaderContext readerContext = null;
-      while (docID >= endDoc) {
-        readerUpto++;
-        readerContext = leaves.get(readerUpto);
-        endDoc = readerContext.docBase + readerContext.reader().maxDoc();
-      }
-
-      if (readerContext != null) {
-        // We advanced to another segment:
-        docBase = readerContext.docBase;
-        scorer = weight.scorer(readerContext);
-      }
-
-      if(scorer != null) {
-        int targetDoc = docID - docBase;
-        int actualDoc = scorer.docID();
-        if (actualDoc < targetDoc) {
-          actualDoc = scorer.advance(targetDoc);
-        }
-
-        if (actualDoc == targetDoc) {
-          // Query did match this doc:
-          hit.score = combine(hit.score, true, scorer.score());
-        } else {
-          // Query did not match this doc:
-          assert actualDoc > targetDoc;
-          hit.score = combine(hit.score, false, 0.0f);
-        }
-      } else {
-        // Query did not match this doc:
-        hit.score = combine(hit.score, false, 0.0f);
+    final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+    final int[] bounds = leafBounds(hits, leaves);
+
+    final Weight weight = searcher.createNormalizedWeight(query, true);
+
+    // Rescore the hits of each leaf, possibly concurrently:
+    final ScoreDoc[] sortedHits = hits;
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int i = 0; i < leaves.size(); ++i) {
+      final LeafReaderContext readerContext = leaves.get(i);
+      final int from = bounds[i];
+      final int to = bounds[i + 1];
+      if (from < to) {
+        tasks.add(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            rescore(weight, readerContext, sortedHits, from, to);
+            return null;
+          }
+        });
       }
-
-      hitUpto++;
     }
+    searcher.execute(tasks);
 
     // TODO: we should do a partial sort (of only topN)
     // instead, but typically the number of hits is
@@ -137,6 +115,36 @@ public abstract class QueryRescorer extends Rescorer {
     return new TopDocs(firstPassTopDocs.totalHits, hits, hits[0].score);
   }
 
+  /** Rescore hits between {@code from} inclusive and {@code to} exclusive,
+   *  which all belong to the given leaf. */
+  private void rescore(Weight weight, LeafReaderContext readerContext, ScoreDoc[] hits, int from, int to) throws IOException {
+    final int docBase = readerContext.docBase;
+    final Scorer scorer = weight.scorer(readerContext);
+
+    for (int hitUpto = from; hitUpto < to; ++hitUpto) {
+      ScoreDoc hit = hits[hitUpto];
+      if (scorer != null) {
+        int targetDoc = hit.doc - docBase;
+        int actualDoc = scorer.docID();
+        if (actualDoc < targetDoc) {
+          actualDoc = scorer.advance(targetDoc);
+        }
+
+        if (actualDoc == targetDoc) {
+          // Query did match this doc:
+          hit.score = combine(hit.score, true, scorer.score());
+        } else {
+          // Query did not match this doc:
+          assert actualDoc > targetDoc;
+          hit.score = combine(hit.score, false, 0.0f);
+        }
+      } else {
+        // Query did not match this doc:
+        hit.score = combine(hit.score, false, 0.0f);
+      }
+    }
+  }
+
   @Override
   public Explanation explain(IndexSearcher searcher, Explanation firstPassExplanation, int docID) throws IOException {
     Explanation secondPassExplanation = searcher.explain(query, docID);
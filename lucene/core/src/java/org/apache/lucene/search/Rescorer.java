@@ -18,6 +18,9 @@ package org.apache.lucene.search;
  */
 
 import java.io.IOException;
+import java.util.List;
+
+import org.apache.lucene.index.LeafReaderContext;
 
 /**
  * Re-scores the topN results ({@link TopDocs}) from an original
@@ -55,4 +58,25 @@ public abstract class Rescorer {
    * computed.
    */
   public abstract Explanation explain(IndexSearcher searcher, Explanation firstPassExplanation, int docID) throws IOException;
+
+  /**
+   * Given hits that are sorted by doc ID, return an array of
+   * {@code leaves.size() + 1} entries so that the hits that belong to the
+   * {@code i}-th leaf are between indices {@code bounds[i]} inclusive and
+   * {@code bounds[i+1]} exclusive.
+   */
+  static int[] leafBounds(ScoreDoc[] sortedHits, List<LeafReaderContext> leaves) {
+    final int[] bounds = new int[leaves.size() + 1];
+    int hitUpto = 0;
+    for (int i = 0; i < leaves.size(); ++i) {
+      bounds[i] = hitUpto;
+      final LeafReaderContext leaf = leaves.get(i);
+      final int endDoc = leaf.docBase + leaf.reader().maxDoc();
+      while (hitUpto < sortedHits.length && sortedHits[hitUpto].doc < endDoc) {
+        hitUpto++;
+      }
+    }
+    bounds[leaves.size()] = hitUpto;
+    return bounds;
+  }
 }
@@ -62,6 +62,28 @@ public abstract class Scorer extends DocIdSetIterator {
   /** Returns the freq of this Scorer on the current document */
   public abstract int freq() throws IOException;
 
+  /**
+   * Return an upper bound of the score that this scorer may produce for any
+   * document, or {@link Float#POSITIVE_INFINITY} if no bound is known, which
+   * is the default.
+   * @lucene.experimental
+   */
+  public float maxScore() {
+    return Float.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Optional method: Tell the scorer that documents whose score is less than
+   * <code>minScore</code> are not competitive, so that it may skip over them.
+   * This is typically called by collectors that only need the top hits and
+   * do not need the total hit count, such as {@link TopScoreDocCollector}s
+   * that have been created with <code>trackTotalHits=false</code>.
+   * The default implementation does nothing.
+   * @lucene.experimental
+   */
+  public void setMinCompetitiveScore(float minScore) throws IOException {
+  }
+
   /** returns parent Weight
    * @lucene.experimental
    */
@@ -22,12 +22,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.apache.lucene.index.LeafReaderContext;
 
 /**
  * A {@link Rescorer} that re-sorts according to a provided
- * Sort.
+ * Sort. If the {@link IndexSearcher} has an executor, the hits of each
+ * leaf are sorted concurrently and then merged.
  */
 
 public class SortRescorer extends Rescorer {
@@ -40,7 +42,7 @@ public class SortRescorer extends Rescorer {
   }
 
   @Override
-  public TopDocs rescore(IndexSearcher searcher, TopDocs firstPassTopDocs, int topN) throws IOException {
+  public TopDocs rescore(IndexSearcher searcher, TopDocs firstPassTopDocs, final int topN) throws IOException {
 
     // Copy ScoreDoc[] and sort by ascending docID:
     ScoreDoc[] hits = firstPassTopDocs.scoreDocs.clone();
@@ -52,42 +54,56 @@ public class SortRescorer extends Rescorer {
                   }
                 });
 
-    List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+    final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+    final int[] bounds = leafBounds(hits, leaves);
+
+    // Sort the hits of each leaf, possibly concurrently, and then merge:
+    final ScoreDoc[] sortedHits = hits;
+    List<Callable<TopFieldDocs>> tasks = new ArrayList<>();
+    for (int i = 0; i < leaves.size(); ++i) {
+      final LeafReaderContext readerContext = leaves.get(i);
+      final int from = bounds[i];
+      final int to = bounds[i + 1];
+      if (from < to) {
+        tasks.add(new Callable<TopFieldDocs>() {
+          @Override
+          public TopFieldDocs call() throws IOException {
+            return rescore(readerContext, sortedHits, from, to, topN);
+          }
+        });
+      }
+    }
+    final List<TopFieldDocs> leafTopDocs = searcher.execute(tasks);
+
+    switch (leafTopDocs.size()) {
+      case 0:
+        return TopFieldCollector.create(sort, topN, true, true, true).topDocs();
+      case 1:
+        return leafTopDocs.get(0);
+      default:
+        final TopFieldDocs merged = TopDocs.merge(sort, topN, leafTopDocs.toArray(new TopFieldDocs[leafTopDocs.size()]));
+        for (ScoreDoc hit : merged.scoreDocs) {
+          // merging sets the index of the leaf, which is meaningless to callers
+          hit.shardIndex = -1;
+        }
+        return merged;
+    }
+  }
 
+  /** Sort hits between {@code from} inclusive and {@code to} exclusive,
+   *  which all belong to the given leaf. */
+  private TopFieldDocs rescore(LeafReaderContext readerContext, ScoreDoc[] hits, int from, int to, int topN) throws IOException {
     TopFieldCollector collector = TopFieldCollector.create(sort, topN, true, true, true);
-
-    // Now merge sort docIDs from hits, with reader's leaves:
-    int hitUpto = 0;
-    int readerUpto = -1;
-    int endDoc = 0;
-    int docBase = 0;
-
-    LeafCollector leafCollector = null;
+    LeafCollector leafCollector = collector.getLeafCollector(readerContext);
     FakeScorer fakeScorer = new FakeScorer();
+    leafCollector.setScorer(fakeScorer);
+    final int docBase = readerContext.docBase;
 
-    while (hitUpto < hits.length) {
+    for (int hitUpto = from; hitUpto < to; ++hitUpto) {
       ScoreDoc hit = hits[hitUpto];
-      int docID = hit.doc;
-      LeafReaderContext readerContext = null;
-      while (docID >= endDoc) {
-        readerUpto++;
-        readerContext = leaves.get(readerUpto);
-        endDoc = readerContext.docBase + readerContext.reader().maxDoc();
-      }
-
-      if (readerContext != null) {
-        // We advanced to another segment:
-        leafCollector = collector.getLeafCollector(readerContext);
-        leafCollector.setScorer(fakeScorer);
-        docBase = readerContext.docBase;
-      }
-
       fakeScorer.score = hit.score;
-      fakeScorer.doc = docID - docBase;
-
+      fakeScorer.doc = hit.doc - docBase;
       leafCollector.collect(fakeScorer.doc);
-
-      hitUpto++;
     }
 
     return collector.topDocs();
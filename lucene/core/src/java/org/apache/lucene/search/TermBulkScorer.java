@@ -0,0 +1,128 @@
+package org.apache.lucene.search;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.search.similarities.Similarity;
+import org.apache.lucene.util.Bits;
+
+/**
+ * {@link BulkScorer} for a single term that reads blocks of postings with
+ * {@link PostingsEnum#read(int[], int[], int)} and computes their scores
+ * with a single call to
+ * {@link Similarity.SimScorer#score(int[], float[], int, float[])} before
+ * passing them to the collector.
+ */
+final class TermBulkScorer extends BulkScorer {
+
+  static final int BLOCK_SIZE = 128;
+
+  private final PostingsEnum postingsEnum;
+  private final Similarity.SimScorer docScorer;
+  private final int[] docs = new int[BLOCK_SIZE];
+  private final int[] intFreqs = new int[BLOCK_SIZE];
+  private final float[] freqs = new float[BLOCK_SIZE];
+  private final float[] scores = new float[BLOCK_SIZE];
+  private final BlockScorer scorer;
+
+  TermBulkScorer(Weight weight, PostingsEnum postingsEnum, Similarity.SimScorer docScorer) {
+    this.postingsEnum = postingsEnum;
+    this.docScorer = docScorer;
+    this.scorer = new BlockScorer(weight);
+  }
+
+  @Override
+  public int score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
+    collector.setScorer(scorer);
+    int doc = postingsEnum.docID();
+    if (doc < min) {
+      doc = postingsEnum.advance(min);
+    }
+    while (doc < max) {
+      final int read = postingsEnum.read(docs, intFreqs, max);
+      doc = postingsEnum.docID();
+      int count = 0;
+      for (int i = 0; i < read; ++i) {
+        if (acceptDocs == null || acceptDocs.get(docs[i])) {
+          docs[count] = docs[i];
+          freqs[count] = intFreqs[i];
+          ++count;
+        }
+      }
+
+      docScorer.score(docs, freqs, count, scores);
+      for (int i = 0; i < count; ++i) {
+        scorer.index = i;
+        collector.collect(docs[i]);
+      }
+    }
+    return doc;
+  }
+
+  @Override
+  public long cost() {
+    return postingsEnum.cost();
+  }
+
+  /** Exposes the buffered doc, freq and score of the document that is being collected. */
+  private final class BlockScorer extends Scorer {
+
+    int index = -1;
+
+    BlockScorer(Weight weight) {
+      super(weight);
+    }
+
+    @Override
+    public int docID() {
+      return index == -1 ? -1 : docs[index];
+    }
+
+    @Override
+    public int freq() {
+      return (int) freqs[index];
+    }
+
+    @Override
+    public float score() {
+      return scores[index];
+    }
+
+    @Override
+    public float maxScore() {
+      return docScorer.maxScore();
+    }
+
+    @Override
+    public int nextDoc() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int advance(int target) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long cost() {
+      return postingsEnum.cost();
+    }
+  }
+}
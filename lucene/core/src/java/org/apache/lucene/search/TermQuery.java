@@ -107,6 +107,22 @@ public class TermQuery extends Query {
       return new TermScorer(this, docs, similarity.simScorer(stats, context));
     }
 
+    @Override
+    public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+      if (needsScores == false) {
+        return super.bulkScorer(context);
+      }
+      assert termStates.topReaderContext == ReaderUtil.getTopLevelContext(context) : "The top-reader used to create Weight (" + termStates.topReaderContext + ") is not the same as the current reader's top-reader (" + ReaderUtil.getTopLevelContext(context);
+      final TermsEnum termsEnum = getTermsEnum(context);
+      if (termsEnum == null) {
+        return null;
+      }
+      PostingsEnum docs = termsEnum.postings(null, PostingsEnum.FREQS);
+      assert docs != null;
+      // score postings in blocks to amortize the cost of similarity calls
+      return new TermBulkScorer(this, docs, similarity.simScorer(stats, context));
+    }
+
     /**
      * Returns a {@link TermsEnum} positioned at this weights Term or null if
      * the term does not exist in the given context
@@ -0,0 +1,284 @@
+package org.apache.lucene.search;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * Merges several sorted {@link TopDocs} instances into parallel primitive
+ * arrays. Unlike {@link TopDocs#merge}, this class does not allocate any
+ * object per shard or per hit: the heap and the output arrays are reused
+ * across calls to {@code merge}, which makes it a good fit for deep paging
+ * across many shards. Hits are ordered like {@link TopDocs#merge}: ties are
+ * broken by shard index and then by the order of the hits in their shard.
+ * <p>
+ * After a call to {@code merge}, the first {@link #count} entries of
+ * {@link #docs}, {@link #scores}, {@link #shardIndices} and
+ * {@link #hitIndices} describe the merged hits. The merged hit at index
+ * {@code i} is {@code shardHits[shardIndices[i]].scoreDocs[hitIndices[i]]},
+ * which gives access to {@link FieldDoc#fields sort values} if necessary.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @lucene.experimental
+ */
+public final class TopDocsMerger {
+
+  /** Doc IDs of the merged hits. */
+  public int[] docs = new int[0];
+  /** Scores of the merged hits. */
+  public float[] scores = new float[0];
+  /** Index of the shard that each merged hit comes from. */
+  public int[] shardIndices = new int[0];
+  /** Index of each merged hit in the hits of its shard. */
+  public int[] hitIndices = new int[0];
+  /** Number of merged hits. */
+  public int count;
+  /** Sum of the total hit counts of the shards. */
+  public int totalHits;
+  /** Maximum score across the shards that have hits, or {@link Float#NaN}
+   *  if no shard has hits. */
+  public float maxScore;
+
+  // min-heap of shard indices, ordered by their current hit
+  private int[] heap = new int[0];
+  private int heapSize;
+  // index of the current hit for every shard
+  private int[] hitUpto = new int[0];
+  private ScoreDoc[][] shardHits = new ScoreDoc[0][];
+
+  // comparators of the last sort, reused if the sort does not change
+  private Sort sort;
+  // missing values of the last sort: SortField.equals ignores them, and they
+  // can be modified after the sort was created
+  private Object[] missingValues;
+  private FieldComparator<?>[] comparators;
+  private int[] reverseMul;
+
+  /** Sole constructor. */
+  public TopDocsMerger() {}
+
+  /** Merge the given {@link TopDocs}, which must be sorted by decreasing
+   *  score, skipping the {@code start} first hits and keeping at most
+   *  {@code size} hits. */
+  public void merge(int start, int size, TopDocs[] shardHits) throws IOException {
+    doMerge(null, start, size, shardHits);
+  }
+
+  /** Merge the given {@link TopFieldDocs}, which must have been sorted by
+   *  {@code sort} and have their sort values filled, skipping the
+   *  {@code start} first hits and keeping at most {@code size} hits. */
+  public void merge(Sort sort, int start, int size, TopFieldDocs[] shardHits) throws IOException {
+    if (sort == null) {
+      throw new IllegalArgumentException("sort must be non-null when merging field-docs");
+    }
+    doMerge(sort, start, size, shardHits);
+  }
+
+  void doMerge(Sort sort, int start, int size, TopDocs[] topDocs) throws IOException {
+    final int numShards = topDocs.length;
+    if (shardHits.length < numShards) {
+      shardHits = new ScoreDoc[ArrayUtil.oversize(numShards, RamUsageEstimator.NUM_BYTES_OBJECT_REF)][];
+      hitUpto = new int[shardHits.length];
+      heap = new int[shardHits.length];
+    }
+    for (int shardIDX = 0; shardIDX < numShards; ++shardIDX) {
+      shardHits[shardIDX] = topDocs[shardIDX].scoreDocs;
+    }
+    if (sort != null) {
+      checkFieldDocs(numShards);
+      setSort(sort);
+    }
+
+    try {
+      heapSize = 0;
+      totalHits = 0;
+      int availHitCount = 0;
+      maxScore = Float.MIN_VALUE;
+      for (int shardIDX = 0; shardIDX < numShards; shardIDX++) {
+        final TopDocs shard = topDocs[shardIDX];
+        // totalHits can be non-zero even if no hits were
+        // collected, when searchAfter was used:
+        totalHits += shard.totalHits;
+        if (shard.scoreDocs != null && shard.scoreDocs.length > 0) {
+          availHitCount += shard.scoreDocs.length;
+          hitUpto[shardIDX] = 0;
+          push(shardIDX, sort != null);
+          maxScore = Math.max(maxScore, shard.getMaxScore());
+        }
+      }
+
+      if (availHitCount == 0) {
+        maxScore = Float.NaN;
+      }
+
+      if (availHitCount <= start) {
+        count = 0;
+        return;
+      }
+
+      count = Math.min(size, availHitCount - start);
+      if (docs.length < count) {
+        final int newLength = ArrayUtil.oversize(count, RamUsageEstimator.NUM_BYTES_INT);
+        docs = new int[newLength];
+        scores = new float[newLength];
+        shardIndices = new int[newLength];
+        hitIndices = new int[newLength];
+      }
+
+      final int numIterOnHits = (int) Math.min(availHitCount, (long) start + size);
+      for (int hitUpto = 0; hitUpto < numIterOnHits; ++hitUpto) {
+        assert heapSize > 0;
+        final int shardIDX = heap[0];
+        final int hitIDX = this.hitUpto[shardIDX]++;
+        if (hitUpto >= start) {
+          final ScoreDoc hit = shardHits[shardIDX][hitIDX];
+          final int i = hitUpto - start;
+          docs[i] = hit.doc;
+          scores[i] = hit.score;
+          shardIndices[i] = shardIDX;
+          hitIndices[i] = hitIDX;
+        }
+
+        if (this.hitUpto[shardIDX] < shardHits[shardIDX].length) {
+          // Not done with this these TopDocs yet:
+          downHeap(sort != null);
+        } else {
+          heap[0] = heap[--heapSize];
+          downHeap(sort != null);
+        }
+      }
+    } finally {
+      // do not hold references to the hits
+      Arrays.fill(shardHits, 0, numShards, null);
+    }
+  }
+
+  private void checkFieldDocs(int numShards) {
+    for (int shardIDX = 0; shardIDX < numShards; shardIDX++) {
+      final ScoreDoc[] shard = shardHits[shardIDX];
+      if (shard != null) {
+        // Fail gracefully if API is misused:
+        for (int hitIDX = 0; hitIDX < shard.length; hitIDX++) {
+          final ScoreDoc sd = shard[hitIDX];
+          if (!(sd instanceof FieldDoc)) {
+            throw new IllegalArgumentException("shard " + shardIDX + " was not sorted by the provided Sort (expected FieldDoc but got ScoreDoc)");
+          }
+          final FieldDoc fd = (FieldDoc) sd;
+          if (fd.fields == null) {
+            throw new IllegalArgumentException("shard " + shardIDX + " did not set sort field values (FieldDoc.fields is null); you must pass fillFields=true to IndexSearcher.search on each shard");
+          }
+        }
+      }
+    }
+  }
+
+  private void setSort(Sort sort) throws IOException {
+    final SortField[] sortFields = sort.getSort();
+    if (sort.equals(this.sort) && sameMissingValues(sortFields)) {
+      return;
+    }
+    comparators = new FieldComparator<?>[sortFields.length];
+    reverseMul = new int[sortFields.length];
+    missingValues = new Object[sortFields.length];
+    for (int compIDX = 0; compIDX < sortFields.length; compIDX++) {
+      final SortField sortField = sortFields[compIDX];
+      comparators[compIDX] = sortField.getComparator(1, compIDX);
+      reverseMul[compIDX] = sortField.getReverse() ? -1 : 1;
+      missingValues[compIDX] = sortField.missingValue;
+    }
+    this.sort = sort;
+  }
+
+  private boolean sameMissingValues(SortField[] sortFields) {
+    for (int i = 0; i < sortFields.length; ++i) {
+      if (Objects.equals(sortFields[i].missingValue, missingValues[i]) == false) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void push(int shardIDX, boolean sorted) {
+    int i = heapSize++;
+    heap[i] = shardIDX;
+    // up heap
+    while (i > 0) {
+      final int parent = (i - 1) >>> 1;
+      if (lessThan(shardIDX, heap[parent], sorted) == false) {
+        break;
+      }
+      heap[i] = heap[parent];
+      i = parent;
+    }
+    heap[i] = shardIDX;
+  }
+
+  private void downHeap(boolean sorted) {
+    if (heapSize == 0) {
+      return;
+    }
+    int i = 0;
+    final int node = heap[0];
+    for (int child = 1; child < heapSize; child = 2 * i + 1) {
+      if (child + 1 < heapSize && lessThan(heap[child + 1], heap[child], sorted)) {
+        child++;
+      }
+      if (lessThan(heap[child], node, sorted) == false) {
+        break;
+      }
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = node;
+  }
+
+  // Returns true if the current hit of the first shard should come before
+  // the current hit of the second shard
+  @SuppressWarnings({"rawtypes","unchecked"})
+  private boolean lessThan(int firstShard, int secondShard, boolean sorted) {
+    assert firstShard != secondShard;
+    final ScoreDoc first = shardHits[firstShard][hitUpto[firstShard]];
+    final ScoreDoc second = shardHits[secondShard][hitUpto[secondShard]];
+    if (sorted) {
+      final Object[] firstFields = ((FieldDoc) first).fields;
+      final Object[] secondFields = ((FieldDoc) second).fields;
+      for (int compIDX = 0; compIDX < comparators.length; compIDX++) {
+        final FieldComparator comp = comparators[compIDX];
+        final int cmp = reverseMul[compIDX] * comp.compareValues(firstFields[compIDX], secondFields[compIDX]);
+        if (cmp != 0) {
+          return cmp < 0;
+        }
+      }
+    } else {
+      if (first.score < second.score) {
+        return false;
+      } else if (first.score > second.score) {
+        return true;
+      }
+    }
+    // Tie break: earlier shard wins. Hits of the same shard are never
+    // compared since a shard appears at most once in the heap.
+    return firstShard < secondShard;
+  }
+}
@@ -18,6 +18,7 @@ package org.apache.lucene.search;
  */
 
 import java.io.IOException;
+import java.util.Objects;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.FieldValueHitQueue.Entry;
@@ -29,6 +30,17 @@ import org.apache.lucene.util.PriorityQueue;
  * <p>
  * See the {@link #create(org.apache.lucene.search.Sort, int, boolean, boolean, boolean)} method
  * for instantiating a TopFieldCollector.
+ * <p>
+ * If documents of a segment are sorted according to an index sort (see
+ * {@link org.apache.lucene.index.IndexWriterConfig#setIndexSort}, which
+ * only applies to merged segments) and the
+ * sort of this collector is a prefix of the index sort, collection of this
+ * segment can be terminated as soon as no more documents can be competitive.
+ * This is disabled by default and needs to be enabled through
+ * {@link #create(Sort, int, FieldDoc, boolean, boolean, boolean, boolean)}.
+ * When this happens,
+ * {@link TopDocs#totalHits} is only a lower bound of the number of hits, see
+ * {@link #isEarlyTerminated()}.
  *
  * @lucene.experimental
  */
@@ -137,14 +149,18 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
    */
   private static class SimpleFieldCollector extends TopFieldCollector {
 
+    final Sort sort;
     final FieldValueHitQueue<Entry> queue;
     final boolean trackDocScores;
     final boolean trackMaxScore;
     final boolean mayNeedScoresTwice;
+    final boolean earlyTerminate;
 
     public SimpleFieldCollector(Sort sort, FieldValueHitQueue<Entry> queue, int numHits, boolean fillFields,
-        boolean trackDocScores, boolean trackMaxScore) {
+        boolean trackDocScores, boolean trackMaxScore, boolean earlyTerminate) {
       super(queue, numHits, fillFields, sort.needsScores() || trackDocScores || trackMaxScore);
+      this.earlyTerminate = earlyTerminate;
+      this.sort = sort;
       this.queue = queue;
       if (trackMaxScore) {
         maxScore = Float.NEGATIVE_INFINITY; // otherwise we would keep NaN
@@ -163,6 +179,8 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
 
       final LeafFieldComparator[] comparators = queue.getComparators(context);
       final int[] reverseMul = queue.getReverseMul();
+      final boolean canEarlyTerminate = earlyTerminate && trackMaxScore == false
+          && canEarlyTerminate(sort, context.reader().getIndexSort());
 
       if (comparators.length == 1) {
         return new OneComparatorLeafCollector(comparators[0], reverseMul[0], mayNeedScoresTwice) {
@@ -183,6 +201,10 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
                 // since docs are visited in doc Id order, if compare is 0, it means
                 // this document is largest than anything else in the queue, and
                 // therefore not competitive.
+                if (canEarlyTerminate) {
+                  // next documents of the segment sort after this one
+                  earlyTerminate();
+                }
                 return;
               }
 
@@ -231,6 +253,10 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
                 // since docs are visited in doc Id order, if compare is 0, it means
                 // this document is largest than anything else in the queue, and
                 // therefore not competitive.
+                if (canEarlyTerminate) {
+                  // next documents of the segment sort after this one
+                  earlyTerminate();
+                }
                 return;
               }
 
@@ -271,15 +297,19 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
   private final static class PagingFieldCollector extends TopFieldCollector {
 
     int collectedHits;
+    final Sort sort;
     final FieldValueHitQueue<Entry> queue;
     final boolean trackDocScores;
     final boolean trackMaxScore;
     final FieldDoc after;
     final boolean mayNeedScoresTwice;
+    final boolean earlyTerminate;
 
     public PagingFieldCollector(Sort sort, FieldValueHitQueue<Entry> queue, FieldDoc after, int numHits, boolean fillFields,
-                                boolean trackDocScores, boolean trackMaxScore) {
+                                boolean trackDocScores, boolean trackMaxScore, boolean earlyTerminate) {
       super(queue, numHits, fillFields, trackDocScores || trackMaxScore || sort.needsScores());
+      this.earlyTerminate = earlyTerminate;
+      this.sort = sort;
       this.queue = queue;
       this.trackDocScores = trackDocScores;
       this.trackMaxScore = trackMaxScore;
@@ -302,6 +332,8 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
       docBase = context.docBase;
       final int afterDoc = after.doc - docBase;
+      final boolean canEarlyTerminate = earlyTerminate && trackMaxScore == false
+          && canEarlyTerminate(sort, context.reader().getIndexSort());
       return new MultiComparatorLeafCollector(queue.getComparators(context), queue.getReverseMul(), mayNeedScoresTwice) {
 
         @Override
@@ -324,6 +356,10 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
             final int cmp = compareBottom(doc);
             if (cmp <= 0) {
               // not competitive since documents are visited in doc id order
+              if (canEarlyTerminate) {
+                // next documents of the segment sort after this one
+                earlyTerminate();
+              }
               return;
             }
           }
@@ -385,6 +421,7 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
   boolean queueFull;
   int docBase;
   final boolean needsScores;
+  boolean earlyTerminated;
 
   // Declaring the constructor private prevents extending this class by anyone
   // else. Note that the class cannot be final since it's extended by the
@@ -403,6 +440,41 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     return needsScores;
   }
 
+  /** Whether documents sorted according to the given {@code indexSort} are
+   *  also sorted according to the given {@code searchSort}, ie. whether
+   *  {@code searchSort} is a prefix of {@code indexSort}. */
+  static boolean canEarlyTerminate(Sort searchSort, Sort indexSort) {
+    if (indexSort == null) {
+      return false;
+    }
+    final SortField[] fields1 = searchSort.getSort();
+    final SortField[] fields2 = indexSort.getSort();
+    if (fields1.length > fields2.length) {
+      return false;
+    }
+    for (int i = 0; i < fields1.length; ++i) {
+      // SortField.equals does not take the missing value into account
+      if (fields1[i].equals(fields2[i]) == false
+          || Objects.equals(fields1[i].missingValue, fields2[i].missingValue) == false) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  final void earlyTerminate() {
+    earlyTerminated = true;
+    throw new CollectionTerminatedException();
+  }
+
+  /** Return whether collection of some segments has been terminated early
+   *  because they were sorted by the index sort, in which case
+   *  {@link TopDocs#totalHits} is only a lower bound of the number of
+   *  matching documents. */
+  public boolean isEarlyTerminated() {
+    return earlyTerminated;
+  }
+
   /**
    * Creates a new {@link TopFieldCollector} from the given
    * arguments.
@@ -480,6 +552,53 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
   public static TopFieldCollector create(Sort sort, int numHits, FieldDoc after,
       boolean fillFields, boolean trackDocScores, boolean trackMaxScore)
       throws IOException {
+    return create(sort, numHits, after, fillFields, trackDocScores, trackMaxScore, false);
+  }
+
+  /**
+   * Creates a new {@link TopFieldCollector} from the given
+   * arguments.
+   *
+   * <p><b>NOTE</b>: The instances returned by this method
+   * pre-allocate a full array of length
+   * <code>numHits</code>.
+   *
+   * @param sort
+   *          the sort criteria (SortFields).
+   * @param numHits
+   *          the number of results to collect.
+   * @param after
+   *          only hits after this FieldDoc will be collected, or null
+   * @param fillFields
+   *          specifies whether the actual field values should be returned on
+   *          the results (FieldDoc).
+   * @param trackDocScores
+   *          specifies whether document scores should be tracked and set on the
+   *          results.
+   * @param trackMaxScore
+   *          specifies whether the query's maxScore should be tracked and set
+   *          on the resulting {@link TopDocs}. This disables early termination
+   *          since all matches need to be scored.
+   * @param earlyTerminate
+   *          specifies whether collection of a segment may stop as soon as a
+   *          document is not competitive when the segment is sorted according
+   *          to <code>sort</code>, see
+   *          {@link org.apache.lucene.index.LeafReader#getIndexSort()}.
+   *          <b>NOTE</b>: If set to true, {@link TopDocs#totalHits} is only a
+   *          lower bound of the number of matching documents when
+   *          {@link #isEarlyTerminated()} returns true. Collection is
+   *          terminated with a {@link CollectionTerminatedException}, so this
+   *          must only be enabled if this collector is the only consumer of
+   *          the matches, or if it is wrapped into collectors that handle this
+   *          exception like {@link MultiCollector}.
+   * @return a {@link TopFieldCollector} instance which will sort the results by
+   *         the sort criteria.
+   * @throws IOException if there is a low-level I/O error
+   * @lucene.experimental
+   */
+  public static TopFieldCollector create(Sort sort, int numHits, FieldDoc after,
+      boolean fillFields, boolean trackDocScores, boolean trackMaxScore, boolean earlyTerminate)
+      throws IOException {
 
     if (sort.fields.length == 0) {
       throw new IllegalArgumentException("Sort must contain at least one field");
@@ -492,7 +611,7 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     FieldValueHitQueue<Entry> queue = FieldValueHitQueue.create(sort.fields, numHits);
 
     if (after == null) {
-      return new SimpleFieldCollector(sort, queue, numHits, fillFields, trackDocScores, trackMaxScore);
+      return new SimpleFieldCollector(sort, queue, numHits, fillFields, trackDocScores, trackMaxScore, earlyTerminate);
     } else {
       if (after.fields == null) {
         throw new IllegalArgumentException("after.fields wasn't set; you must pass fillFields=true for the previous search");
@@ -502,7 +621,7 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
         throw new IllegalArgumentException("after.fields has " + after.fields.length + " values but sort has " + sort.getSort().length);
       }
 
-      return new PagingFieldCollector(sort, queue, after, numHits, fillFields, trackDocScores, trackMaxScore);
+      return new PagingFieldCollector(sort, queue, after, numHits, fillFields, trackDocScores, trackMaxScore, earlyTerminate);
     }
   }
 
@@ -49,14 +49,55 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
 
   private static class SimpleTopScoreDocCollector extends TopScoreDocCollector {
 
-    SimpleTopScoreDocCollector(int numHits) {
+    private final boolean trackTotalHits;
+
+    SimpleTopScoreDocCollector(int numHits, boolean trackTotalHits) {
       super(numHits);
+      this.trackTotalHits = trackTotalHits;
     }
 
     @Override
     public LeafCollector getLeafCollector(LeafReaderContext context)
         throws IOException {
       final int docBase = context.docBase;
+      if (trackTotalHits == false) {
+        return new ScorerLeafCollector() {
+
+          @Override
+          public void setScorer(Scorer scorer) throws IOException {
+            super.setScorer(scorer);
+            updateMinCompetitiveScore();
+          }
+
+          @Override
+          public void collect(int doc) throws IOException {
+            float score = scorer.score();
+
+            // This collector cannot handle these scores:
+            assert score != Float.NEGATIVE_INFINITY;
+            assert !Float.isNaN(score);
+
+            totalHits++;
+            if (score <= pqTop.score) {
+              return;
+            }
+            pqTop.doc = doc + docBase;
+            pqTop.score = score;
+            pqTop = pq.updateTop();
+            updateMinCompetitiveScore();
+          }
+
+          private void updateMinCompetitiveScore() throws IOException {
+            // sentinels have a score of -Infinity, so this only happens once the queue is full
+            if (pqTop.score != Float.NEGATIVE_INFINITY) {
+              // since docs are collected in order, hits that have the same
+              // score as the top of the queue are not competitive either
+              scorer.setMinCompetitiveScore(Math.nextUp(pqTop.score));
+            }
+          }
+
+        };
+      }
       return new ScorerLeafCollector() {
 
         @Override
@@ -87,11 +128,13 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
   private static class PagingTopScoreDocCollector extends TopScoreDocCollector {
 
     private final ScoreDoc after;
+    private final boolean trackTotalHits;
     private int collectedHits;
 
-    PagingTopScoreDocCollector(int numHits, ScoreDoc after) {
+    PagingTopScoreDocCollector(int numHits, ScoreDoc after, boolean trackTotalHits) {
       super(numHits);
       this.after = after;
+      this.trackTotalHits = trackTotalHits;
       this.collectedHits = 0;
     }
 
@@ -110,6 +153,13 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
       final int docBase = context.docBase;
       final int afterDoc = after.doc - context.docBase;
       return new ScorerLeafCollector() {
+
+        @Override
+        public void setScorer(Scorer scorer) throws IOException {
+          super.setScorer(scorer);
+          updateMinCompetitiveScore();
+        }
+
         @Override
         public void collect(int doc) throws IOException {
           float score = scorer.score();
@@ -135,6 +185,15 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
           pqTop.doc = doc + docBase;
           pqTop.score = score;
           pqTop = pq.updateTop();
+          updateMinCompetitiveScore();
+        }
+
+        private void updateMinCompetitiveScore() throws IOException {
+          // hits of previous pages are rejected above, so only the top of the
+          // queue tells us about hits that are not competitive
+          if (trackTotalHits == false && pqTop.score != Float.NEGATIVE_INFINITY) {
+            scorer.setMinCompetitiveScore(Math.nextUp(pqTop.score));
+          }
         }
       };
     }
@@ -165,15 +224,39 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
    * objects.
    */
   public static TopScoreDocCollector create(int numHits, ScoreDoc after) {
+    return create(numHits, after, true);
+  }
+
+  /**
+   * Creates a new {@link TopScoreDocCollector} given the number of hits to
+   * collect, the bottom of the previous page, and whether the total number
+   * of hits needs to be computed.
+   *
+   * <p>When <code>trackTotalHits</code> is <code>false</code>, the collector
+   * tells the {@link Scorer} about the minimum competitive score once it has
+   * collected <code>numHits</code> hits through
+   * {@link Scorer#setMinCompetitiveScore(float)}, which allows some scorers
+   * to skip over documents that cannot make it to the top hits. As a
+   * consequence, {@link TopDocs#totalHits} is only a lower bound of the
+   * number of matches.
+   *
+   * <p><b>NOTE</b>: The instances returned by this method
+   * pre-allocate a full array of length
+   * <code>numHits</code>, and fill the array with sentinel
+   * objects.
+   *
+   * @lucene.experimental
+   */
+  public static TopScoreDocCollector create(int numHits, ScoreDoc after, boolean trackTotalHits) {
 
     if (numHits <= 0) {
       throw new IllegalArgumentException("numHits must be > 0; please use TotalHitCountCollector if you just need the total hit count");
     }
 
     if (after == null) {
-      return new SimpleTopScoreDocCollector(numHits);
+      return new SimpleTopScoreDocCollector(numHits, trackTotalHits);
     } else {
-      return new PagingTopScoreDocCollector(numHits, after);
+      return new PagingTopScoreDocCollector(numHits, after, trackTotalHits);
     }
   }
 
@@ -27,7 +27,9 @@ import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.search.CollectionStatistics;
 import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.TermStatistics;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.SmallFloat;
 
 /**
@@ -221,6 +223,7 @@ public class BM25Similarity extends Similarity {
     private final float weightValue; // boost * idf * (k1 + 1)
     private final NumericDocValues norms;
     private final float[] cache;
+    private float[] normBuffer = new float[0];
     
     BM25DocScorer(BM25Stats stats, NumericDocValues norms) throws IOException {
       this.stats = stats;
@@ -235,6 +238,46 @@ public class BM25Similarity extends Similarity {
       float norm = norms == null ? k1 : cache[(byte)norms.get(doc) & 0xFF];
       return weightValue * freq / (freq + norm);
     }
+
+    @Override
+    public void score(int[] docs, float[] freqs, int count, float[] scores) {
+      if (norms == null) {
+        for (int i = 0; i < count; ++i) {
+          final float freq = freqs[i];
+          scores[i] = weightValue * freq / (freq + k1);
+        }
+      } else {
+        // look up norms first so that the scoring loop only works on arrays
+        if (normBuffer.length < count) {
+          normBuffer = new float[ArrayUtil.oversize(count, RamUsageEstimator.NUM_BYTES_FLOAT)];
+        }
+        final float[] normBuffer = this.normBuffer;
+        for (int i = 0; i < count; ++i) {
+          normBuffer[i] = cache[(byte)norms.get(docs[i]) & 0xFF];
+        }
+        for (int i = 0; i < count; ++i) {
+          final float freq = freqs[i];
+          scores[i] = weightValue * freq / (freq + normBuffer[i]);
+        }
+      }
+    }
+
+    @Override
+    public float maxScore() {
+      // freq / (freq + norm) is at most 1 as long as norms are not negative
+      if (norms == null) {
+        if (k1 < 0) {
+          return Float.POSITIVE_INFINITY;
+        }
+      } else {
+        for (float norm : cache) {
+          if (norm < 0) {
+            return Float.POSITIVE_INFINITY;
+          }
+        }
+      }
+      return Math.max(0f, weightValue);
+    }
     
     @Override
     public Explanation explain(int doc, Explanation freq) {
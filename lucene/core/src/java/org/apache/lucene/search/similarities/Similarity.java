@@ -197,6 +197,35 @@ public abstract class Similarity {
      */
     public abstract float score(int doc, float freq);
 
+    /**
+     * Score a batch of documents: for every {@code i} in
+     * {@code [0, count)}, set {@code scores[i]} to
+     * {@code score(docs[i], freqs[i])}. The default implementation calls
+     * {@link #score(int, float)} in a loop, sub-classes may override it with
+     * loops over arrays that are easier for the JVM to optimize.
+     * @param docs document ids within the inverted index segment, in increasing order
+     * @param freqs sloppy term frequencies of the documents
+     * @param count number of documents to score
+     * @param scores array to store the scores of the documents in
+     * @lucene.experimental
+     */
+    public void score(int[] docs, float[] freqs, int count, float[] scores) {
+      for (int i = 0; i < count; ++i) {
+        scores[i] = score(docs[i], freqs[i]);
+      }
+    }
+
+    /**
+     * Return an upper bound of the score that {@link #score(int, float)} may
+     * return for any document and frequency, or
+     * {@link Float#POSITIVE_INFINITY} if no bound is known, which is the
+     * default.
+     * @lucene.experimental
+     */
+    public float maxScore() {
+      return Float.POSITIVE_INFINITY;
+    }
+
     /** Computes the amount of a sloppy phrase match, based on an edit distance. */
     public abstract float computeSlopFactor(int distance);
     
@@ -714,6 +714,18 @@ public abstract class TFIDFSimilarity extends Similarity {
       
       return norms == null ? raw : raw * decodeNormValue(norms.get(doc));  // normalize for field
     }
+
+    @Override
+    public void score(int[] docs, float[] freqs, int count, float[] scores) {
+      for (int i = 0; i < count; ++i) {
+        scores[i] = tf(freqs[i]) * weightValue;
+      }
+      if (norms != null) {
+        for (int i = 0; i < count; ++i) {
+          scores[i] *= decodeNormValue(norms.get(docs[i]));
+        }
+      }
+    }
     
     @Override
     public float computeSlopFactor(int distance) {
@@ -48,6 +48,11 @@ abstract class ByteBufferIndexInput extends IndexInput implements RandomAccessIn
 
   protected boolean isClone = false;
   protected final WeakIdentityMap<ByteBufferIndexInput,Boolean> clones;
+
+  // reads ahead prefetched ranges, or null if prefetching is disabled
+  FSDirectory.FilePrefetcher prefetcher;
+  // start of this input in the file: non-zero in the slice case
+  long fileOffset;
   
   public static ByteBufferIndexInput newInstance(String resourceDescription, ByteBuffer[] buffers, long length, int chunkSizePower, BufferCleaner cleaner, boolean trackClones) {
     final WeakIdentityMap<ByteBufferIndexInput,Boolean> clones = trackClones ? WeakIdentityMap.<ByteBufferIndexInput,Boolean>newConcurrentHashMap() : null;
@@ -253,6 +258,8 @@ abstract class ByteBufferIndexInput extends IndexInput implements RandomAccessIn
   @Override
   public final ByteBufferIndexInput clone() {
     final ByteBufferIndexInput clone = buildSlice((String) null, 0L, this.length);
+    clone.prefetcher = prefetcher;
+    clone.fileOffset = fileOffset;
     try {
       clone.seek(getFilePointer());
     } catch(IOException ioe) {
@@ -271,7 +278,27 @@ abstract class ByteBufferIndexInput extends IndexInput implements RandomAccessIn
       throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: offset=" + offset + ",length=" + length + ",fileLength="  + this.length + ": "  + this);
     }
     
-    return buildSlice(sliceDescription, offset, length);
+    final ByteBufferIndexInput slice = buildSlice(sliceDescription, offset, length);
+    slice.prefetcher = prefetcher;
+    slice.fileOffset = fileOffset + offset;
+    return slice;
+  }
+
+  @Override
+  public final void prefetch(long offset, long length) throws IOException {
+    if (offset < 0 || length < 0 || offset+length > this.length) {
+      throw new IllegalArgumentException("prefetch() out of bounds: offset=" + offset + ",length=" + length + ",fileLength="  + this.length + ": "  + this);
+    }
+    if (buffers == null) {
+      throw new AlreadyClosedException("Already closed: " + this);
+    }
+    // the pages of the mapping are shared with the OS cache, so reading the
+    // file through a channel in the background is enough to avoid page
+    // faults on the reading thread, without the risk of accessing the
+    // mapping after it has been unmapped
+    if (prefetcher != null) {
+      prefetcher.prefetch(fileOffset + offset, length);
+    }
   }
 
   /** Builds the actual sliced IndexInput (may apply extra offset in subclasses). **/
@@ -354,6 +381,9 @@ abstract class ByteBufferIndexInput extends IndexInput implements RandomAccessIn
       for (final ByteBuffer b : bufs) {
         freeBuffer(b);
       }
+      if (prefetcher != null) {
+        prefetcher.close();
+      }
     } finally {
       unsetBuffers();
     }
@@ -0,0 +1,313 @@
+package org.apache.lucene.store;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import org.apache.lucene.util.Constants;
+import org.apache.lucene.util.IOUtils;
+
+/**
+ * Reads and writes files with direct I/O, which bypasses the OS cache. This
+ * relies on the {@code DIRECT} option of
+ * {@code com.sun.nio.file.ExtendedOpenOption}, which is available as of Java
+ * 10: direct I/O is not supported on older JREs.
+ * <p>
+ * Direct I/O requires that the positions and lengths of reads and writes,
+ * as well as the addresses of the buffers, are aligned on the block size of
+ * the file store. So writes are padded and the file is truncated to its
+ * actual length on close, and reads always read whole blocks.
+ */
+final class DirectIO {
+
+  /** Size of the buffer of outputs: 1 MB. */
+  static final int OUTPUT_BUFFER_SIZE = 1 << 20;
+  /** Size of the buffer of inputs: 64 KB. */
+  static final int INPUT_BUFFER_SIZE = 1 << 16;
+
+  private static final OpenOption DIRECT_OPEN_OPTION;
+  private static final Method ALIGNED_SLICE;
+  private static final Method GET_BLOCK_SIZE;
+
+  static {
+    OpenOption directOpenOption = null;
+    Method alignedSlice = null;
+    Method getBlockSize = null;
+    try {
+      final Class<? extends OpenOption> clazz = Class.forName("com.sun.nio.file.ExtendedOpenOption").asSubclass(OpenOption.class);
+      for (OpenOption option : clazz.getEnumConstants()) {
+        if ("DIRECT".equals(option.toString())) {
+          directOpenOption = option;
+        }
+      }
+      // Java 9
+      alignedSlice = ByteBuffer.class.getMethod("alignedSlice", int.class);
+      // Java 10
+      getBlockSize = FileStore.class.getMethod("getBlockSize");
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      directOpenOption = null;
+    }
+    DIRECT_OPEN_OPTION = directOpenOption;
+    ALIGNED_SLICE = alignedSlice;
+    GET_BLOCK_SIZE = getBlockSize;
+  }
+
+  /** Whether direct I/O is supported on this platform. */
+  static final boolean SUPPORTED = DIRECT_OPEN_OPTION != null && Constants.WINDOWS == false;
+
+  private DirectIO() {} // no instance
+
+  /** Return the block size of the file store of the given file, which
+   *  reads and writes must be aligned on. */
+  private static int alignment(Path path, int bufferSize) throws IOException {
+    final long blockSize;
+    try {
+      blockSize = (Long) GET_BLOCK_SIZE.invoke(Files.getFileStore(path));
+    } catch (ReflectiveOperationException e) {
+      throw new IOException("Cannot get the block size of " + path, e);
+    }
+    if (blockSize <= 0 || blockSize > bufferSize || Long.bitCount(blockSize) != 1) {
+      throw new IOException("Unsupported block size for direct I/O: " + blockSize + " for " + path);
+    }
+    return (int) blockSize;
+  }
+
+  /** Allocate a direct buffer of the given size whose address is aligned. */
+  private static ByteBuffer allocateAligned(int size, int alignment) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(size + alignment - 1);
+    final ByteBuffer aligned;
+    try {
+      aligned = (ByteBuffer) ALIGNED_SLICE.invoke(buffer, alignment);
+    } catch (ReflectiveOperationException e) {
+      throw new IOException("Cannot allocate an aligned buffer", e);
+    }
+    aligned.limit(size);
+    return aligned;
+  }
+
+  /** Writes with direct I/O. */
+  static final class DirectIOIndexOutput extends IndexOutput {
+    private final FileChannel channel;
+    private final int alignment;
+    private final ByteBuffer buffer;
+    private final Checksum digest = new BufferedChecksum(new CRC32());
+    // position in the file of the start of the buffer
+    private long filePos;
+    private boolean closed;
+
+    DirectIOIndexOutput(Path path, String name) throws IOException {
+      super("DirectIOIndexOutput(path=\"" + path + "\")", name);
+      channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, DIRECT_OPEN_OPTION);
+      boolean success = false;
+      try {
+        alignment = alignment(path, OUTPUT_BUFFER_SIZE);
+        buffer = allocateAligned(OUTPUT_BUFFER_SIZE, alignment);
+        success = true;
+      } finally {
+        if (success == false) {
+          IOUtils.closeWhileHandlingException(channel);
+        }
+      }
+    }
+
+    @Override
+    public void writeByte(byte b) throws IOException {
+      buffer.put(b);
+      digest.update(b);
+      if (buffer.hasRemaining() == false) {
+        dump();
+      }
+    }
+
+    @Override
+    public void writeBytes(byte[] b, int offset, int length) throws IOException {
+      digest.update(b, offset, length);
+      while (length > 0) {
+        final int chunk = Math.min(length, buffer.remaining());
+        buffer.put(b, offset, chunk);
+        offset += chunk;
+        length -= chunk;
+        if (buffer.hasRemaining() == false) {
+          dump();
+        }
+      }
+    }
+
+    private void dump() throws IOException {
+      final int size = buffer.position();
+      // round up to the next block: the padding is removed by truncating the
+      // file on close, since only the last dump may be partial
+      buffer.position(0);
+      buffer.limit((size + alignment - 1) & -alignment);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer, filePos + buffer.position());
+      }
+      filePos += size;
+      buffer.clear();
+    }
+
+    @Override
+    public long getFilePointer() {
+      return filePos + buffer.position();
+    }
+
+    @Override
+    public long getChecksum() throws IOException {
+      return digest.getValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed == false) {
+        closed = true;
+        try (FileChannel channel = this.channel) {
+          dump();
+          channel.truncate(filePos);
+        }
+      }
+    }
+  }
+
+  /** Reads with direct I/O. */
+  static final class DirectIOIndexInput extends BufferedIndexInput {
+    private final FileChannel channel;
+    private final int alignment;
+    // start offset: non-zero in the slice case
+    private final long off;
+    // end offset (start+length)
+    private final long end;
+    private boolean isClone;
+
+    // not shared with clones, lazily allocated
+    private ByteBuffer alignedBuffer;
+    // position in the file of the start of alignedBuffer, or -1 if empty
+    private long alignedBufferStart = -1;
+
+    DirectIOIndexInput(Path path, IOContext context) throws IOException {
+      super("DirectIOIndexInput(path=\"" + path + "\")", context);
+      channel = FileChannel.open(path, StandardOpenOption.READ, DIRECT_OPEN_OPTION);
+      boolean success = false;
+      try {
+        alignment = alignment(path, INPUT_BUFFER_SIZE);
+        off = 0L;
+        end = channel.size();
+        success = true;
+      } finally {
+        if (success == false) {
+          IOUtils.closeWhileHandlingException(channel);
+        }
+      }
+    }
+
+    private DirectIOIndexInput(String resourceDesc, DirectIOIndexInput other, long off, long length) {
+      super(resourceDesc, other.getBufferSize());
+      this.channel = other.channel;
+      this.alignment = other.alignment;
+      this.off = off;
+      this.end = off + length;
+      this.isClone = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (isClone == false) {
+        channel.close();
+      }
+    }
+
+    @Override
+    public DirectIOIndexInput clone() {
+      final DirectIOIndexInput clone = (DirectIOIndexInput) super.clone();
+      clone.isClone = true;
+      clone.alignedBuffer = null;
+      clone.alignedBufferStart = -1;
+      return clone;
+    }
+
+    @Override
+    public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+      if (offset < 0 || length < 0 || offset + length > this.length()) {
+        throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: "  + this);
+      }
+      return new DirectIOIndexInput(getFullSliceDescription(sliceDescription), this, off + offset, length);
+    }
+
+    @Override
+    public long length() {
+      return end - off;
+    }
+
+    @Override
+    protected void readInternal(byte[] b, int offset, int len) throws IOException {
+      long pos = getFilePointer() + off;
+      if (pos + len > end) {
+        throw new EOFException("read past EOF: " + this);
+      }
+      while (len > 0) {
+        if (alignedBufferStart == -1 || pos < alignedBufferStart || pos >= alignedBufferStart + alignedBuffer.limit()) {
+          refill(pos);
+        }
+        final int bufferOffset = (int) (pos - alignedBufferStart);
+        final int chunk = Math.min(len, alignedBuffer.limit() - bufferOffset);
+        alignedBuffer.position(bufferOffset);
+        alignedBuffer.get(b, offset, chunk);
+        pos += chunk;
+        offset += chunk;
+        len -= chunk;
+      }
+    }
+
+    /** Read the blocks that start at the block that contains {@code pos}. */
+    private void refill(long pos) throws IOException {
+      if (alignedBuffer == null) {
+        alignedBuffer = allocateAligned(INPUT_BUFFER_SIZE, alignment);
+      }
+      alignedBufferStart = -1;
+      final long start = pos & -alignment;
+      alignedBuffer.clear();
+      try {
+        int read;
+        do {
+          read = channel.read(alignedBuffer, start + alignedBuffer.position());
+          // a read that is not aligned means that we reached the end of the file
+        } while (read > 0 && alignedBuffer.hasRemaining() && (alignedBuffer.position() & (alignment - 1)) == 0);
+      } catch (IOException ioe) {
+        throw new IOException(ioe.getMessage() + ": " + this, ioe);
+      }
+      alignedBuffer.flip();
+      if (start + alignedBuffer.limit() <= pos) {
+        throw new EOFException("read past EOF: " + this);
+      }
+      alignedBufferStart = start;
+    }
+
+    @Override
+    protected void seekInternal(long pos) throws IOException {}
+  }
+}
@@ -17,9 +17,12 @@ package org.apache.lucene.store;
  * limitations under the License.
  */
 
+import java.io.Closeable;
 import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException; // javadoc @link
+import java.nio.channels.FileChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
@@ -30,7 +33,9 @@ import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.lucene.index.IndexFileNames;
@@ -123,6 +128,20 @@ public abstract class FSDirectory extends BaseDirectory {
   /** Used to generate temp file names in {@link #createTempOutput}. */
   private final AtomicLong nextTempFileCounter = new AtomicLong();
 
+  private volatile Executor prefetchExecutor;
+
+  private volatile boolean useDirectIOForMerges;
+
+  /**
+   * <code>true</code>, if this platform supports direct I/O, which requires
+   * Java 10 or later on a platform other than Windows.
+   * @see #setUseDirectIOForMerges
+   */
+  public static final boolean DIRECT_IO_SUPPORTED = DirectIO.SUPPORTED;
+
+  /** Minimum estimated size of merges that use direct I/O: 10 MB. */
+  public static final long MIN_DIRECT_IO_MERGE_BYTES = 10 * 1024 * 1024;
+
   /** Create a new FSDirectory for the named location (ctor for subclasses).
    * The directory is created at the named location if it does not yet exist.
    * 
@@ -188,6 +207,91 @@ public abstract class FSDirectory extends BaseDirectory {
     }
   }
 
+  /**
+   * Set the executor that reads the ranges that are passed to
+   * {@link IndexInput#prefetch} in the background, so that they are in the
+   * OS cache by the time they are read. If {@code null}, which is the
+   * default, prefetch hints are ignored. Only inputs that are opened after
+   * this method is called are affected. Not all implementations support
+   * prefetching.
+   */
+  public void setPrefetchExecutor(Executor executor) {
+    this.prefetchExecutor = executor;
+  }
+
+  /**
+   * Returns the executor that prefetches data, or {@code null} if prefetch
+   * hints are ignored.
+   * @see #setPrefetchExecutor
+   */
+  public Executor getPrefetchExecutor() {
+    return prefetchExecutor;
+  }
+
+  /**
+   * Set to {@code true} to read and write the files of merges of at least
+   * {@link #MIN_DIRECT_IO_MERGE_BYTES} with direct I/O, which bypasses the
+   * OS cache. This prevents large merges from evicting the pages that
+   * searches need from the OS cache, at the cost of slower merges since
+   * the merged segment will not be cached and reads are not read ahead.
+   * Files that cannot be opened with direct I/O, for instance because
+   * their file system does not support it, are read and written with
+   * buffered I/O instead.
+   * @throws IllegalArgumentException if {@link #DIRECT_IO_SUPPORTED}
+   * is <code>false</code>.
+   */
+  public void setUseDirectIOForMerges(boolean useDirectIOForMerges) {
+    if (useDirectIOForMerges && DIRECT_IO_SUPPORTED == false) {
+      throw new IllegalArgumentException("Direct I/O is not supported on this platform");
+    }
+    this.useDirectIOForMerges = useDirectIOForMerges;
+  }
+
+  /**
+   * Returns {@code true} if merges use direct I/O.
+   * @see #setUseDirectIOForMerges
+   */
+  public boolean getUseDirectIOForMerges() {
+    return useDirectIOForMerges;
+  }
+
+  /** Returns {@code true} if the given file should be read or written with
+   *  direct I/O. */
+  protected boolean useDirectIO(String name, IOContext context) {
+    return useDirectIOForMerges
+        && context.context == IOContext.Context.MERGE
+        && context.mergeInfo.estimatedMergeBytes >= MIN_DIRECT_IO_MERGE_BYTES;
+  }
+
+  /** Opens an input that reads the given file with direct I/O, or returns
+   *  {@code null} if the file cannot be opened with direct I/O, for instance
+   *  because its file system does not support it, in which case the file
+   *  should be read with buffered I/O. */
+  final IndexInput openDirectIOInput(Path path, IOContext context) {
+    try {
+      return newDirectIOInput(path, context);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  // pkg-private for testing
+  IndexInput newDirectIOInput(Path path, IOContext context) throws IOException {
+    return new DirectIO.DirectIOIndexInput(path, context);
+  }
+
+  // pkg-private for testing
+  IndexOutput newDirectIOOutput(Path path, String name) throws IOException {
+    return new DirectIO.DirectIOIndexOutput(path, name);
+  }
+
+  /** Returns a prefetcher for the given file, or {@code null} if prefetch
+   *  hints are ignored. */
+  FilePrefetcher newPrefetcher(Path path) {
+    final Executor executor = prefetchExecutor;
+    return executor == null ? null : new FilePrefetcher(executor, path);
+  }
+
   /** Lists all files (including subdirectories) in the
    *  directory.
    *
@@ -229,6 +333,14 @@ public abstract class FSDirectory extends BaseDirectory {
   public IndexOutput createOutput(String name, IOContext context) throws IOException {
     ensureOpen();
     ensureCanWrite(name);
+    if (useDirectIO(name, context)) {
+      try {
+        return newDirectIOOutput(directory.resolve(name), name);
+      } catch (IOException e) {
+        // the file system may not support direct I/O, eg. tmpfs: write this
+        // file with buffered I/O instead, the file is truncated if it exists
+      }
+    }
     return new FSIndexOutput(name);
   }
 
@@ -313,6 +425,94 @@ public abstract class FSDirectory extends BaseDirectory {
     }
   }
 
+  /** Reads ranges of a file on an executor so that they get loaded into
+   *  the OS cache. All ranges are read through the same channel, which is
+   *  closed together with the input that the prefetcher belongs to. */
+  static final class FilePrefetcher implements Closeable {
+    private static final int CHUNK_SIZE = 16384;
+
+    private final Executor executor;
+    private final Path path;
+    // lazily opened, guarded by this
+    private FileChannel channel;
+    private boolean closed;
+
+    FilePrefetcher(Executor executor, Path path) {
+      this.executor = executor;
+      this.path = path;
+    }
+
+    /** Returns the channel to read from, or null if this prefetcher is closed. */
+    private synchronized FileChannel getChannel() throws IOException {
+      if (closed) {
+        return null;
+      }
+      // we do not share the channel of the input, and reopen ours if needed:
+      // a channel is closed if a thread that reads from it is interrupted
+      if (channel == null || channel.isOpen() == false) {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+      }
+      return channel;
+    }
+
+    /** Asynchronously read {@code length} bytes starting at {@code offset}
+     *  in the file. This is best-effort: errors are ignored. */
+    void prefetch(long offset, long length) {
+      if (length <= 0) {
+        return;
+      }
+      try {
+        executor.execute(new PrefetchTask(offset, length));
+      } catch (RejectedExecutionException e) {
+        // the executor is shut down or saturated, the data will be read when needed
+      }
+    }
+
+    /** Reads a range of the file. */
+    final class PrefetchTask implements Runnable {
+      /** Offset of the range in the file. */
+      final long offset;
+      /** Length of the range. */
+      final long length;
+
+      PrefetchTask(long offset, long length) {
+        this.offset = offset;
+        this.length = length;
+      }
+
+      @Override
+      public void run() {
+        try {
+          final FileChannel channel = getChannel();
+          if (channel == null) {
+            return;
+          }
+          final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, length));
+          final long end = offset + length;
+          for (long pos = offset; pos < end; ) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - pos));
+            final int read = channel.read(buffer, pos);
+            if (read < 0) {
+              break;
+            }
+            pos += read;
+          }
+        } catch (IOException e) {
+          // the input may have been closed in the meantime, the data will be read when needed
+        }
+      }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      closed = true;
+      if (channel != null) {
+        channel.close();
+      }
+    }
+  }
+
   protected void fsync(String name) throws IOException {
     IOUtils.fsync(directory.resolve(name), false);
   }
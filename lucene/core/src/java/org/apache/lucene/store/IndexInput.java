@@ -99,6 +99,16 @@ public abstract class IndexInput extends DataInput implements Cloneable,Closeabl
    */
   public abstract IndexInput slice(String sliceDescription, long offset, long length) throws IOException;
 
+  /**
+   * Hint that the given range of this input, relative to its beginning, is
+   * going to be read soon. Implementations may start loading the data
+   * asynchronously, so that reads of several ranges can be issued in
+   * parallel instead of one after the other. This method must not block on
+   * I/O. The default implementation does nothing.
+   */
+  public void prefetch(long offset, long length) throws IOException {
+  }
+
   /** Subclasses call this to get the String for resourceDescription of a slice of this {@code IndexInput}. */
   protected String getFullSliceDescription(String sliceDescription) {
     if (sliceDescription == null) {
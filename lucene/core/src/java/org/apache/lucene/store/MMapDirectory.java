@@ -29,10 +29,14 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedExceptionAction;
 import java.security.PrivilegedActionException;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.Future;
 import java.lang.reflect.Method;
 
+import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.store.ByteBufferIndexInput.BufferCleaner;
 import org.apache.lucene.util.Constants;
 import org.apache.lucene.util.SuppressForbidden;
@@ -89,6 +93,7 @@ import org.apache.lucene.util.SuppressForbidden;
 public class MMapDirectory extends FSDirectory {
   private boolean useUnmapHack = UNMAP_SUPPORTED;
   private boolean preload;
+  private volatile Set<String> preloadExtensions = Collections.emptySet();
 
   /** 
    * Default max chunk size.
@@ -221,6 +226,55 @@ public class MMapDirectory extends FSDirectory {
   public boolean getPreload() {
     return preload;
   }
+
+  /**
+   * Set the extensions of the files whose mapped pages should be loaded
+   * into physical memory on init, for instance small files that are
+   * accessed by every query such as terms indexes ({@code tip}) or norms
+   * ({@code nvd}). Files that are opened for merging are never preloaded.
+   * This has no effect on files that are stored in a compound file.
+   * @see #setPreload
+   */
+  public void setPreloadExtensions(Set<String> extensions) {
+    this.preloadExtensions = Collections.unmodifiableSet(new HashSet<>(extensions));
+  }
+
+  /**
+   * Returns the extensions of the files whose mapped pages should be loaded.
+   * @see #setPreloadExtensions
+   */
+  public Set<String> getPreloadExtensions() {
+    return preloadExtensions;
+  }
+
+  /**
+   * Returns {@code true} if the mapped pages of the given file should be
+   * loaded into physical memory.
+   * @see #setPreload
+   * @see #setPreloadExtensions
+   */
+  protected boolean preload(String name, IOContext context) {
+    if (preload) {
+      return true;
+    }
+    final String extension = IndexFileNames.getExtension(name);
+    return extension != null
+        && context.context != IOContext.Context.MERGE
+        && preloadExtensions.contains(extension);
+  }
+
+  /**
+   * Called on every buffer that a file is mapped into, before it is read.
+   * The default implementation loads the buffer into physical memory if
+   * {@link #preload(String, IOContext)} returns {@code true}. Sub-classes
+   * can override this method to give other hints to the operating system
+   * about how the file is going to be accessed.
+   */
+  protected void advise(String name, IOContext context, MappedByteBuffer buffer) throws IOException {
+    if (preload(name, context)) {
+      buffer.load();
+    }
+  }
   
   /**
    * Returns the current mmap chunk size.
@@ -235,17 +289,25 @@ public class MMapDirectory extends FSDirectory {
   public IndexInput openInput(String name, IOContext context) throws IOException {
     ensureOpen();
     Path path = directory.resolve(name);
+    if (useDirectIO(name, context)) {
+      final IndexInput directInput = openDirectIOInput(path, context);
+      if (directInput != null) {
+        return directInput;
+      }
+    }
     try (FileChannel c = FileChannel.open(path, StandardOpenOption.READ)) {
       final String resourceDescription = "MMapIndexInput(path=\"" + path.toString() + "\")";
       final boolean useUnmap = getUseUnmap();
-      return ByteBufferIndexInput.newInstance(resourceDescription,
-          map(resourceDescription, c, 0, c.size()), 
+      final ByteBufferIndexInput input = ByteBufferIndexInput.newInstance(resourceDescription,
+          map(resourceDescription, name, context, c, 0, c.size()),
           c.size(), chunkSizePower, useUnmap ? CLEANER : null, useUnmap);
+      input.prefetcher = newPrefetcher(path);
+      return input;
     }
   }
 
   /** Maps a file into a set of buffers */
-  final ByteBuffer[] map(String resourceDescription, FileChannel fc, long offset, long length) throws IOException {
+  final ByteBuffer[] map(String resourceDescription, String name, IOContext context, FileChannel fc, long offset, long length) throws IOException {
     if ((length >>> chunkSizePower) >= Integer.MAX_VALUE)
       throw new IllegalArgumentException("RandomAccessFile too big for chunk size: " + resourceDescription);
     
@@ -268,9 +330,7 @@ public class MMapDirectory extends FSDirectory {
       } catch (IOException ioe) {
         throw convertMapFailedIOException(ioe, resourceDescription, bufSize);
       }
-      if (preload) {
-        buffer.load();
-      }
+      advise(name, context, buffer);
       buffers[bufNr] = buffer;
       bufferStart += bufSize;
     }
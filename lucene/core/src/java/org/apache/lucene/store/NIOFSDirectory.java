@@ -26,6 +26,8 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.concurrent.Future; // javadoc
 
+import org.apache.lucene.util.IOUtils;
+
 /**
  * An {@link FSDirectory} implementation that uses java.nio's FileChannel's
  * positional read, which allows multiple threads to read from the same file
@@ -79,8 +81,16 @@ public class NIOFSDirectory extends FSDirectory {
   public IndexInput openInput(String name, IOContext context) throws IOException {
     ensureOpen();
     Path path = getDirectory().resolve(name);
+    if (useDirectIO(name, context)) {
+      final IndexInput directInput = openDirectIOInput(path, context);
+      if (directInput != null) {
+        return directInput;
+      }
+    }
     FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
-    return new NIOFSIndexInput("NIOFSIndexInput(path=\"" + path + "\")", fc, context);
+    final NIOFSIndexInput input = new NIOFSIndexInput("NIOFSIndexInput(path=\"" + path + "\")", fc, context);
+    input.prefetcher = newPrefetcher(path);
+    return input;
   }
   
   /**
@@ -100,6 +110,8 @@ public class NIOFSDirectory extends FSDirectory {
     protected final long off;
     /** end offset (start+length) */
     protected final long end;
+    /** reads ahead prefetched ranges, or null if prefetching is disabled */
+    FilePrefetcher prefetcher;
     
     private ByteBuffer byteBuf; // wraps the buffer for NIO
 
@@ -121,7 +133,7 @@ public class NIOFSDirectory extends FSDirectory {
     @Override
     public void close() throws IOException {
       if (!isClone) {
-        channel.close();
+        IOUtils.close(channel, prefetcher);
       }
     }
     
@@ -137,7 +149,19 @@ public class NIOFSDirectory extends FSDirectory {
       if (offset < 0 || length < 0 || offset + length > this.length()) {
         throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: "  + this);
       }
-      return new NIOFSIndexInput(getFullSliceDescription(sliceDescription), channel, off + offset, length, getBufferSize());
+      final NIOFSIndexInput slice = new NIOFSIndexInput(getFullSliceDescription(sliceDescription), channel, off + offset, length, getBufferSize());
+      slice.prefetcher = prefetcher;
+      return slice;
+    }
+
+    @Override
+    public void prefetch(long offset, long length) throws IOException {
+      if (offset < 0 || length < 0 || offset + length > this.length()) {
+        throw new IllegalArgumentException("prefetch() out of bounds: offset=" + offset + ",length=" + length + ",fileLength=" + this.length() + ": " + this);
+      }
+      if (prefetcher != null) {
+        prefetcher.prefetch(off + offset, length);
+      }
     }
 
     @Override
@@ -73,6 +73,12 @@ public class SimpleFSDirectory extends FSDirectory {
   public IndexInput openInput(String name, IOContext context) throws IOException {
     ensureOpen();
     Path path = directory.resolve(name);
+    if (useDirectIO(name, context)) {
+      final IndexInput directInput = openDirectIOInput(path, context);
+      if (directInput != null) {
+        return directInput;
+      }
+    }
     SeekableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.READ);
     return new SimpleFSIndexInput("SimpleFSIndexInput(path=\"" + path + "\")", channel, context);
   }
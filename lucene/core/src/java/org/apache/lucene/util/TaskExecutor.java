@@ -0,0 +1,111 @@
+package org.apache.lucene.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs a list of tasks, concurrently if an {@link Executor} is provided, and
+ * waits for all of them to complete.
+ * <p>
+ * The calling thread does not only wait: it runs every task that the
+ * executor has not started yet itself. So tasks always make progress, even
+ * if the executor is saturated, shared with other components or if its
+ * threads are blocked on a lock that the caller holds. Tasks that the
+ * executor rejects are run on the calling thread as well.
+ *
+ * @lucene.internal
+ */
+public final class TaskExecutor {
+
+  private TaskExecutor() {} // no instance
+
+  /**
+   * Run the given tasks and return their results in the same order as the
+   * tasks. This method only returns once all tasks are done, even if some of
+   * them failed or if the calling thread is interrupted, so that callers can
+   * safely release resources that the tasks use. If some tasks failed, the
+   * exception of the first one of them is rethrown, and if the thread was
+   * interrupted while waiting, a {@link ThreadInterruptedException} is thrown.
+   */
+  public static <T> List<T> invokeAll(Executor executor, List<? extends Callable<T>> tasks) throws Exception {
+    final List<T> results = new ArrayList<>(tasks.size());
+    if (executor == null || tasks.size() <= 1) {
+      for (Callable<T> task : tasks) {
+        results.add(task.call());
+      }
+      return results;
+    }
+
+    final List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+    for (Callable<T> task : tasks) {
+      final FutureTask<T> future = new FutureTask<>(task);
+      futures.add(future);
+      try {
+        executor.execute(future);
+      } catch (RejectedExecutionException e) {
+        // run on the current thread below
+      }
+    }
+    for (FutureTask<T> future : futures) {
+      // does nothing if the executor already started this task
+      future.run();
+    }
+
+    Throwable firstExc = null;
+    InterruptedException interrupted = null;
+    for (FutureTask<T> future : futures) {
+      while (true) {
+        try {
+          results.add(future.get());
+          break;
+        } catch (InterruptedException e) {
+          // keep waiting: the task may still be using resources of the caller
+          interrupted = e;
+        } catch (ExecutionException e) {
+          if (firstExc == null) {
+            firstExc = e.getCause();
+          } else {
+            firstExc.addSuppressed(e.getCause());
+          }
+          results.add(null);
+          break;
+        }
+      }
+    }
+
+    if (interrupted != null) {
+      final ThreadInterruptedException e = new ThreadInterruptedException(interrupted);
+      if (firstExc != null) {
+        e.addSuppressed(firstExc);
+      }
+      throw e;
+    }
+    if (firstExc instanceof Exception) {
+      throw (Exception) firstExc;
+    }
+    IOUtils.reThrowUnchecked(firstExc);
+    return results;
+  }
+}
@@ -17,6 +17,9 @@ package org.apache.lucene.codecs.lucene50;
  * limitations under the License.
  */
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.blocktree.FieldReader;
@@ -27,7 +30,12 @@ import org.apache.lucene.index.BasePostingsFormatTestCase;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.TestUtil;
 
 /**
@@ -65,6 +73,83 @@ public class TestBlockPostingsFormat extends BasePostingsFormatTestCase {
     d.close();
   }
 
+  public void testBulkRead() throws Exception {
+    Directory d = newDirectory();
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setCodec(codec);
+    IndexWriter w = new IndexWriter(d, iwc);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      StringBuilder text = new StringBuilder();
+      // terms with very different doc freqs, from a single doc to several blocks
+      if (i == 0) {
+        text.append("single ");
+      }
+      if (random().nextInt(10) == 0) {
+        text.append("rare ");
+      }
+      final int freq = random().nextInt(4);
+      for (int j = 0; j < freq; j++) {
+        text.append("common ");
+      }
+      doc.add(newTextField("field", text.toString(), Field.Store.NO));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+
+    DirectoryReader r = DirectoryReader.open(w, true);
+    LeafReader leaf = r.leaves().get(0).reader();
+    for (String term : new String[] { "single", "rare", "common" }) {
+      TermsEnum te = leaf.terms("field").iterator();
+      assertTrue(te.seekExact(new BytesRef(term)));
+      final boolean needsFreqs = random().nextBoolean();
+      final int flags = needsFreqs ? PostingsEnum.FREQS : PostingsEnum.NONE;
+      List<Integer> expectedDocs = new ArrayList<>();
+      List<Integer> expectedFreqs = new ArrayList<>();
+      PostingsEnum postings = te.postings(null, flags);
+      for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.nextDoc()) {
+        expectedDocs.add(doc);
+        expectedFreqs.add(postings.freq());
+      }
+
+      postings = te.postings(postings, flags);
+      final int[] docs = new int[TestUtil.nextInt(random(), 1, 300)];
+      final int[] freqs = needsFreqs ? new int[docs.length] : null;
+      List<Integer> actualDocs = new ArrayList<>();
+      List<Integer> actualFreqs = new ArrayList<>();
+      int doc = postings.nextDoc();
+      while (doc != DocIdSetIterator.NO_MORE_DOCS) {
+        final int upTo = random().nextBoolean() ? DocIdSetIterator.NO_MORE_DOCS : doc + random().nextInt(500);
+        final int count = postings.read(docs, freqs, upTo);
+        assertTrue(count > 0 || doc >= upTo);
+        for (int i = 0; i < count; i++) {
+          assertTrue(docs[i] < upTo);
+          actualDocs.add(docs[i]);
+          if (needsFreqs) {
+            actualFreqs.add(freqs[i]);
+          }
+        }
+        doc = postings.docID();
+        assertTrue(doc >= upTo || count == docs.length || doc == DocIdSetIterator.NO_MORE_DOCS);
+        if (doc != DocIdSetIterator.NO_MORE_DOCS) {
+          actualDocs.add(doc);
+          if (needsFreqs) {
+            actualFreqs.add(postings.freq());
+          }
+          doc = postings.nextDoc();
+        }
+      }
+      assertEquals(expectedDocs, actualDocs);
+      if (needsFreqs) {
+        assertEquals(expectedFreqs, actualFreqs);
+      }
+    }
+    r.close();
+    w.close();
+    d.close();
+  }
+
   private void shouldFail(int minItemsInBlock, int maxItemsInBlock) {
     try {
       new Lucene50PostingsFormat(minItemsInBlock, maxItemsInBlock);
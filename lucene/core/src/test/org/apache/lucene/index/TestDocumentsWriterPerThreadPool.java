@@ -0,0 +1,107 @@
+package org.apache.lucene.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.index.DocumentsWriterPerThreadPool.ThreadState;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestDocumentsWriterPerThreadPool extends LuceneTestCase {
+
+  public void testAffinity() {
+    DocumentsWriterPerThreadPool pool = new DocumentsWriterPerThreadPool(TestUtil.nextInt(random(), 1, 16));
+    ThreadState state = pool.getAndLock(Thread.currentThread(), null);
+    assertTrue(state.isHeldByCurrentThread());
+    assertEquals(1, pool.getActiveThreadStateCount());
+    pool.release(state);
+    assertFalse(state.isHeldByCurrentThread());
+
+    for (int i = 0; i < 10; ++i) {
+      ThreadState other = pool.getAndLock(Thread.currentThread(), null);
+      assertSame(state, other);
+      pool.release(other);
+    }
+    assertEquals(1, pool.getActiveThreadStateCount());
+  }
+
+  public void testReuseFreeStatesOfOtherThreads() throws Exception {
+    final DocumentsWriterPerThreadPool pool = new DocumentsWriterPerThreadPool(TestUtil.nextInt(random(), 1, 16));
+    final ThreadState[] released = new ThreadState[1];
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        released[0] = pool.getAndLock(Thread.currentThread(), null);
+        pool.release(released[0]);
+      }
+    };
+    thread.start();
+    thread.join();
+
+    // no need to create a new thread state while another one is free
+    ThreadState state = pool.getAndLock(Thread.currentThread(), null);
+    assertSame(released[0], state);
+    assertEquals(1, pool.getActiveThreadStateCount());
+    pool.release(state);
+  }
+
+  public void testConcurrency() throws Exception {
+    final DocumentsWriterPerThreadPool pool = new DocumentsWriterPerThreadPool(TestUtil.nextInt(random(), 1, 16));
+    final int numThreads = TestUtil.nextInt(random(), 2, 8);
+    final int iters = atLeast(1000);
+    final AtomicInteger inUse = new AtomicInteger();
+    final AtomicInteger maxInUse = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[numThreads];
+    for (int i = 0; i < numThreads; ++i) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          for (int iter = 0; iter < iters; ++iter) {
+            ThreadState state = pool.getAndLock(Thread.currentThread(), null);
+            try {
+              assertEquals(1, state.getHoldCount());
+              final int current = inUse.incrementAndGet();
+              int max;
+              while ((max = maxInUse.get()) < current && maxInUse.compareAndSet(max, current) == false) {}
+              inUse.decrementAndGet();
+            } finally {
+              pool.release(state);
+            }
+          }
+        }
+      };
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // thread states are only created when no other one is free
+    assertTrue(pool.getActiveThreadStateCount() <= numThreads);
+    assertTrue(maxInUse.get() <= pool.getActiveThreadStateCount());
+  }
+}
@@ -0,0 +1,214 @@
+package org.apache.lucene.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestIndexSorting extends LuceneTestCase {
+
+  public void testInvalidSortField() {
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()));
+    try {
+      iwc.setIndexSort(new Sort(new SortField("foo", SortField.Type.STRING_VAL)));
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    try {
+      iwc.setIndexSort(new Sort(new SortedNumericSortField("foo", SortField.Type.LONG)));
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    assertNull(iwc.getIndexSort());
+  }
+
+  private static Sort randomSort() {
+    SortField[] fields;
+    if (random().nextBoolean()) {
+      SortField sortField = new SortField("num", SortField.Type.LONG, random().nextBoolean());
+      if (random().nextBoolean()) {
+        sortField.setMissingValue(random().nextLong());
+      }
+      fields = new SortField[] { sortField };
+    } else {
+      SortField sortField = new SortField("str", SortField.Type.STRING, random().nextBoolean());
+      if (random().nextBoolean()) {
+        sortField.setMissingValue(random().nextBoolean() ? SortField.STRING_FIRST : SortField.STRING_LAST);
+      }
+      fields = new SortField[] { sortField, new SortField("num", SortField.Type.LONG) };
+    }
+    return new Sort(fields);
+  }
+
+  private static void assertSorted(LeafReader reader, Sort sort) throws Exception {
+    // sorting the sorted reader must be a no-op
+    assertNull(new Sorter(sort).sort(reader));
+  }
+
+  public void testSortOnMerge() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    final Sort sort = randomSort();
+    iwc.setIndexSort(sort);
+    iwc.setMergePolicy(newLogMergePolicy());
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Store.NO));
+      if (random().nextInt(10) != 0) {
+        doc.add(new NumericDocValuesField("num", random().nextInt(50)));
+      }
+      if (random().nextInt(10) != 0) {
+        doc.add(new SortedDocValuesField("str", new BytesRef(TestUtil.randomSimpleString(random(), 2))));
+      }
+      w.addDocument(doc);
+      if (i == numDocs / 2 || random().nextInt(50) == 0) {
+        // make sure there are several segments to merge
+        w.commit();
+      }
+    }
+    w.forceMerge(1);
+    w.close();
+
+    DirectoryReader reader = DirectoryReader.open(dir);
+    assertEquals(1, reader.leaves().size());
+    LeafReader leaf = reader.leaves().get(0).reader();
+    assertEquals(numDocs, leaf.numDocs());
+    assertEquals(sort, leaf.getIndexSort());
+    for (int i = 0; i < sort.getSort().length; ++i) {
+      // the missing value is persisted too
+      assertEquals(sort.getSort()[i].missingValue, leaf.getIndexSort().getSort()[i].missingValue);
+    }
+    assertSorted(leaf, sort);
+    reader.close();
+    dir.close();
+  }
+
+  public void testFlushedSegmentsAreNotSorted() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setIndexSort(new Sort(new SortField("num", SortField.Type.LONG)));
+    iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    Document doc = new Document();
+    doc.add(new NumericDocValuesField("num", 3));
+    w.addDocument(doc);
+    w.close();
+
+    DirectoryReader reader = DirectoryReader.open(dir);
+    assertNull(reader.leaves().get(0).reader().getIndexSort());
+    reader.close();
+    dir.close();
+  }
+
+  public void testDeletesDuringMerges() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    final Sort sort = randomSort();
+    iwc.setIndexSort(sort);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numDocs = atLeast(500);
+    final Set<String> deleted = new HashSet<>();
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Store.YES));
+      doc.add(new NumericDocValuesField("num", random().nextInt(50)));
+      doc.add(new SortedDocValuesField("str", new BytesRef(TestUtil.randomSimpleString(random(), 2))));
+      w.addDocument(doc);
+      if (i == numDocs / 2) {
+        w.commit();
+      }
+      if (i > 0 && random().nextInt(4) == 0) {
+        final String id = Integer.toString(random().nextInt(i));
+        w.deleteDocuments(new Term("id", id));
+        deleted.add(id);
+      }
+    }
+    w.forceMerge(1);
+    w.close();
+
+    DirectoryReader reader = DirectoryReader.open(dir);
+    assertEquals(numDocs - deleted.size(), reader.numDocs());
+    LeafReader leaf = reader.leaves().get(0).reader();
+    assertEquals(sort, leaf.getIndexSort());
+    final Bits liveDocs = leaf.getLiveDocs();
+    for (int i = 0; i < leaf.maxDoc(); ++i) {
+      if (liveDocs == null || liveDocs.get(i)) {
+        assertFalse(deleted.contains(leaf.document(i).get("id")));
+      }
+    }
+    assertSorted(leaf, sort);
+    reader.close();
+    dir.close();
+  }
+
+  public void testAddIndexes() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(100);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new NumericDocValuesField("num", random().nextInt(50)));
+      doc.add(new SortedDocValuesField("str", new BytesRef(TestUtil.randomSimpleString(random(), 2))));
+      w.addDocument(doc);
+    }
+    DirectoryReader reader = w.getReader();
+    w.close();
+
+    Directory dir2 = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    final Sort sort = randomSort();
+    iwc.setIndexSort(sort);
+    IndexWriter w2 = new IndexWriter(dir2, iwc);
+    CodecReader[] readers = new CodecReader[reader.leaves().size()];
+    for (int i = 0; i < readers.length; ++i) {
+      readers[i] = SlowCodecReaderWrapper.wrap(reader.leaves().get(i).reader());
+    }
+    w2.addIndexes(readers);
+    w2.close();
+    reader.close();
+
+    DirectoryReader reader2 = DirectoryReader.open(dir2);
+    assertEquals(1, reader2.leaves().size());
+    LeafReader leaf = reader2.leaves().get(0).reader();
+    assertEquals(numDocs, leaf.numDocs());
+    assertEquals(sort, leaf.getIndexSort());
+    assertSorted(leaf, sort);
+    reader2.close();
+    IOUtils.close(dir, dir2);
+  }
+}
@@ -34,6 +34,8 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.CannedTokenStream;
@@ -47,6 +49,7 @@ import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.simpletext.SimpleTextCodec;
 import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.DimensionalField;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FieldType;
@@ -79,6 +82,7 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.InfoStream;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.SetOnce;
 import org.apache.lucene.util.StringHelper;
 import org.apache.lucene.util.TestUtil;
@@ -2858,5 +2862,169 @@ public class TestIndexWriter extends LuceneTestCase {
     w.close();
     dir.close();
   }
-}
 
+  /** A document with all kinds of index parts, for the tests of the flush
+   *  and merge executors. */
+  private static Document newExecutorTestDocument(int id) {
+    FieldType vectors = new FieldType(TextField.TYPE_STORED);
+    vectors.setStoreTermVectors(true);
+    vectors.setStoreTermVectorPositions(true);
+    Document doc = new Document();
+    doc.add(new StringField("id", "" + id, Field.Store.YES));
+    doc.add(new TextField("body", TestUtil.randomSimpleString(random(), 20) + " " + random().nextInt(10), Field.Store.NO));
+    doc.add(new Field("vectors", "v" + random().nextInt(10) + " v" + random().nextInt(10), vectors));
+    doc.add(new NumericDocValuesField("num", random().nextLong()));
+    doc.add(new SortedDocValuesField("sorted", new BytesRef(TestUtil.randomSimpleString(random()))));
+    doc.add(new DimensionalField("point", random().nextLong()));
+    return doc;
+  }
+
+  public void testFlushExecutor() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 1, 4), new NamedThreadFactory("TestIndexWriter"));
+    try {
+      Directory dir1 = newDirectory();
+      Directory dir2 = newDirectory();
+      final int maxBufferedDocs = TestUtil.nextInt(random(), 2, 100);
+      IndexWriter w1 = new IndexWriter(dir1, new IndexWriterConfig(new MockAnalyzer(random()))
+          .setCodec(TestUtil.getDefaultCodec())
+          .setMaxBufferedDocs(maxBufferedDocs)
+          .setMergePolicy(NoMergePolicy.INSTANCE));
+      IndexWriter w2 = new IndexWriter(dir2, new IndexWriterConfig(new MockAnalyzer(random()))
+          .setCodec(TestUtil.getDefaultCodec())
+          .setMaxBufferedDocs(maxBufferedDocs)
+          .setMergePolicy(NoMergePolicy.INSTANCE)
+          .setFlushExecutor(executor));
+
+      final int numDocs = atLeast(500);
+      for (int i = 0; i < numDocs; i++) {
+        Document doc = newExecutorTestDocument(i);
+        w1.addDocument(doc);
+        w2.addDocument(doc);
+      }
+
+      DirectoryReader r1 = DirectoryReader.open(w1, true);
+      DirectoryReader r2 = DirectoryReader.open(w2, true);
+      assertEquals(r1.leaves().size(), r2.leaves().size());
+      assertReaderEquals("flush executor", r1, r2);
+
+      IOUtils.close(r1, r2, w1, w2, dir1, dir2);
+    } finally {
+      TestUtil.shutdownExecutorService(executor);
+    }
+  }
+
+  /** Index documents whose fields all have both postings and doc values, and
+   *  check that they are consistent, optionally after a force merge. */
+  private static void doTestPostingsAndDocValuesOnSameField(IndexWriterConfig iwc, boolean forceMerge) throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numFields = TestUtil.nextInt(random(), 20, 50);
+    final int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      for (int j = 0; j < numFields; ++j) {
+        final String value = Integer.toString(i + j);
+        doc.add(new StringField("f" + j, value, Field.Store.NO));
+        doc.add(new SortedDocValuesField("f" + j, new BytesRef(value)));
+      }
+      w.addDocument(doc);
+    }
+    if (forceMerge) {
+      w.forceMerge(1);
+    }
+
+    DirectoryReader r = DirectoryReader.open(w, true);
+    if (forceMerge) {
+      assertEquals(1, r.leaves().size());
+    }
+    for (LeafReaderContext ctx : r.leaves()) {
+      final LeafReader leaf = ctx.reader();
+      for (int j = 0; j < numFields; ++j) {
+        final SortedDocValues values = leaf.getSortedDocValues("f" + j);
+        final TermsEnum termsEnum = leaf.terms("f" + j).iterator();
+        for (int doc = 0; doc < leaf.maxDoc(); ++doc) {
+          final BytesRef value = values.get(doc);
+          assertTrue(termsEnum.seekExact(value));
+          assertEquals(1, termsEnum.docFreq());
+        }
+      }
+    }
+
+    IOUtils.close(r, w, dir);
+  }
+
+  public void testFlushExecutorPostingsAndDocValuesOnSameField() throws Exception {
+    // postings and doc values are flushed concurrently, and both record their
+    // per-field format in the attributes of the same FieldInfo
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 2, 4), new NamedThreadFactory("TestIndexWriter"));
+    try {
+      doTestPostingsAndDocValuesOnSameField(new IndexWriterConfig(new MockAnalyzer(random()))
+          .setCodec(TestUtil.getDefaultCodec())
+          .setMaxBufferedDocs(TestUtil.nextInt(random(), 2, 10))
+          .setMergePolicy(NoMergePolicy.INSTANCE)
+          .setFlushExecutor(executor), false);
+    } finally {
+      TestUtil.shutdownExecutorService(executor);
+    }
+  }
+
+  public void testMergeExecutorPostingsAndDocValuesOnSameField() throws Exception {
+    // same as above for merges
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 2, 4), new NamedThreadFactory("TestIndexWriter"));
+    try {
+      doTestPostingsAndDocValuesOnSameField(new IndexWriterConfig(new MockAnalyzer(random()))
+          .setCodec(TestUtil.getDefaultCodec())
+          .setMaxBufferedDocs(TestUtil.nextInt(random(), 2, 10))
+          .setMergePolicy(new LogDocMergePolicy())
+          .setMergeExecutor(executor), true);
+    } finally {
+      TestUtil.shutdownExecutorService(executor);
+    }
+  }
+
+  public void testMergeExecutor() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 1, 4), new NamedThreadFactory("TestIndexWriter"));
+    try {
+      Directory dir1 = newDirectory();
+      Directory dir2 = newDirectory();
+      // keeps documents in the same order whatever merges run
+      IndexWriter w1 = new IndexWriter(dir1, new IndexWriterConfig(new MockAnalyzer(random()))
+          .setCodec(TestUtil.getDefaultCodec())
+          .setMergePolicy(new LogDocMergePolicy()));
+      ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
+      if (random().nextBoolean()) {
+        // all index parts are throttled by the rate limiter of the merge
+        cms.setForceMergeMBPerSec(TestUtil.nextInt(random(), 10, 100));
+      }
+      IndexWriter w2 = new IndexWriter(dir2, new IndexWriterConfig(new MockAnalyzer(random()))
+          .setCodec(TestUtil.getDefaultCodec())
+          .setMergePolicy(new LogDocMergePolicy())
+          .setMergeScheduler(cms)
+          .setMergeExecutor(executor));
+
+      final int numDocs = atLeast(500);
+      for (int i = 0; i < numDocs; i++) {
+        Document doc = newExecutorTestDocument(i);
+        w1.addDocument(doc);
+        w2.addDocument(doc);
+        if (random().nextInt(100) == 0) {
+          w1.commit();
+          w2.commit();
+        }
+      }
+      w1.deleteDocuments(new Term("id", "0"));
+      w2.deleteDocuments(new Term("id", "0"));
+      w1.forceMerge(1);
+      w2.forceMerge(1);
+
+      DirectoryReader r1 = DirectoryReader.open(w1, true);
+      DirectoryReader r2 = DirectoryReader.open(w2, true);
+      assertEquals(1, r2.leaves().size());
+      assertReaderEquals("merge executor", r1, r2);
+
+      IOUtils.close(r1, r2, w1, w2, dir1, dir2);
+    } finally {
+      TestUtil.shutdownExecutorService(executor);
+    }
+  }
+}
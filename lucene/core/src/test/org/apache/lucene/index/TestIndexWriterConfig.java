@@ -67,6 +67,10 @@ public class TestIndexWriterConfig extends LuceneTestCase {
     assertEquals(IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB, conf.getRAMBufferSizeMB(), 0.0);
     assertEquals(IndexWriterConfig.DEFAULT_MAX_BUFFERED_DOCS, conf.getMaxBufferedDocs());
     assertEquals(IndexWriterConfig.DEFAULT_READER_POOLING, conf.getReaderPooling());
+    assertNull(conf.getApplyDeletesExecutor());
+    assertNull(conf.getFlushExecutor());
+    assertNull(conf.getMergeExecutor());
+    assertEquals(0, conf.getIndexingBufferPoolSizeMB(), 0d);
     assertTrue(DocumentsWriterPerThread.defaultIndexingChain == conf.getIndexingChain());
     assertNull(conf.getMergedSegmentWarmer());
     assertEquals(TieredMergePolicy.class, conf.getMergePolicy().getClass());
@@ -76,6 +80,7 @@ public class TestIndexWriterConfig extends LuceneTestCase {
     assertEquals(Codec.getDefault(), conf.getCodec());
     assertEquals(InfoStream.getDefault(), conf.getInfoStream());
     assertEquals(IndexWriterConfig.DEFAULT_USE_COMPOUND_FILE_SYSTEM, conf.getUseCompoundFile());
+    assertNull(conf.getIndexSort());
     // Sanity check - validate that all getters are covered.
     Set<String> getters = new HashSet<>();
     getters.add("getAnalyzer");
@@ -95,6 +100,10 @@ public class TestIndexWriterConfig extends LuceneTestCase {
     getters.add("getMergePolicy");
     getters.add("getMaxThreadStates");
     getters.add("getReaderPooling");
+    getters.add("getApplyDeletesExecutor");
+    getters.add("getFlushExecutor");
+    getters.add("getMergeExecutor");
+    getters.add("getIndexingBufferPoolSizeMB");
     getters.add("getIndexerThreadPool");
     getters.add("getFlushPolicy");
     getters.add("getRAMPerThreadHardLimitMB");
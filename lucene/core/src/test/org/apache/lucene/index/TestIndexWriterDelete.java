@@ -23,8 +23,11 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -40,11 +43,13 @@ import org.apache.lucene.document.StringField;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.MockDirectoryWrapper;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.LuceneTestCase.SuppressCodecs;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.TestUtil;
 
 @SuppressCodecs("SimpleText") // too slow here
@@ -1413,4 +1418,124 @@ public class TestIndexWriterDelete extends LuceneTestCase {
     w.close();
     dir.close();
   }
+
+  public void testApplyDeletesConcurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 2, 4), new NamedThreadFactory("TestIndexWriterDelete"));
+    try {
+      Directory dir = newDirectory();
+      IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+      iwc.setApplyDeletesExecutor(executor);
+      iwc.setMaxBufferedDocs(TestUtil.nextInt(random(), 2, 20));
+      iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+      IndexWriter w = new IndexWriter(dir, iwc);
+
+      // docs that get updated or deleted
+      final int numIds = atLeast(100);
+      final boolean[] live = new boolean[numIds];
+      // docs whose doc values get updated, at most once each
+      final int numDVIds = atLeast(20);
+      final long[] values = new long[numDVIds];
+      final boolean[] updated = new boolean[numDVIds];
+      for (int id = 0; id < numDVIds; id++) {
+        Document doc = new Document();
+        doc.add(new StringField("dvid", "" + id, Field.Store.NO));
+        doc.add(new NumericDocValuesField("val", values[id]));
+        w.addDocument(doc);
+      }
+
+      final int numOps = atLeast(1000);
+      for (int i = 0; i < numOps; i++) {
+        final int op = random().nextInt(10);
+        if (op < 2) {
+          final int id = random().nextInt(numDVIds);
+          if (updated[id]) {
+            continue;
+          }
+          updated[id] = true;
+          values[id] = TestUtil.nextInt(random(), 1, 1000);
+          w.updateNumericDocValue(new Term("dvid", "" + id), "val", values[id]);
+        } else {
+          final int id = random().nextInt(numIds);
+          if (op == 2) {
+            w.deleteDocuments(new TermQuery(new Term("id", "" + id)));
+            live[id] = false;
+          } else if (op == 3) {
+            w.deleteDocuments(new Term("id", "" + id));
+            live[id] = false;
+          } else {
+            Document doc = new Document();
+            doc.add(new StringField("id", "" + id, Field.Store.NO));
+            w.updateDocument(new Term("id", "" + id), doc);
+            live[id] = true;
+          }
+        }
+        if (random().nextInt(100) == 0) {
+          DirectoryReader.open(w, true).close();
+        }
+      }
+
+      DirectoryReader r = DirectoryReader.open(w, true);
+      IndexSearcher s = newSearcher(r);
+      for (int id = 0; id < numIds; id++) {
+        assertEquals(live[id] ? 1 : 0, s.search(new TermQuery(new Term("id", "" + id)), 1).totalHits);
+      }
+      NumericDocValues dv = MultiDocValues.getNumericValues(s.getIndexReader(), "val");
+      for (int id = 0; id < numDVIds; id++) {
+        TopDocs hits = s.search(new TermQuery(new Term("dvid", "" + id)), 1);
+        assertEquals(1, hits.totalHits);
+        assertEquals(values[id], dv.get(hits.scoreDocs[0].doc));
+      }
+
+      r.close();
+      w.close();
+      dir.close();
+    } finally {
+      TestUtil.shutdownExecutorService(executor);
+    }
+  }
+
+  public void testSortedTermDeletes() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setMaxBufferedDocs(TestUtil.nextInt(random(), 10, 100));
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numDocs = atLeast(1000);
+    for (int id = 0; id < numDocs; id++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", String.format(Locale.ROOT, "%06d", id), Field.Store.NO));
+      w.addDocument(doc);
+    }
+    w.commit();
+
+    // delete runs of consecutive ids, isolated ids and missing ids
+    final boolean[] deleted = new boolean[numDocs];
+    int id = 0;
+    while (id < numDocs) {
+      if (random().nextBoolean()) {
+        final int runLength = TestUtil.nextInt(random(), 1, 50);
+        for (int i = 0; i < runLength && id < numDocs; i++, id++) {
+          w.deleteDocuments(new Term("id", String.format(Locale.ROOT, "%06d", id)));
+          deleted[id] = true;
+        }
+      } else {
+        w.deleteDocuments(new Term("id", String.format(Locale.ROOT, "%06da", id)));
+        id += TestUtil.nextInt(random(), 1, 50);
+      }
+    }
+
+    DirectoryReader r = DirectoryReader.open(w, true);
+    IndexSearcher s = newSearcher(r);
+    int numDeleted = 0;
+    for (id = 0; id < numDocs; id++) {
+      assertEquals(deleted[id] ? 0 : 1, s.search(new TermQuery(new Term("id", String.format(Locale.ROOT, "%06d", id))), 1).totalHits);
+      if (deleted[id]) {
+        numDeleted++;
+      }
+    }
+    assertEquals(numDocs - numDeleted, r.numDocs());
+
+    r.close();
+    w.close();
+    dir.close();
+  }
 }
@@ -0,0 +1,195 @@
+package org.apache.lucene.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.IntBlockPool;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestIndexingBufferPool extends LuceneTestCase {
+
+  public void testByteBlocks() {
+    IndexingBufferPool pool = new IndexingBufferPool(2 * ByteBlockPool.BYTE_BLOCK_SIZE);
+    Counter bytesUsed = Counter.newCounter();
+    ByteBlockPool.Allocator allocator = pool.newByteBlockAllocator(bytesUsed);
+    byte[][] blocks = new byte[3][];
+    for (int i = 0; i < blocks.length; ++i) {
+      blocks[i] = allocator.getByteBlock();
+      Arrays.fill(blocks[i], (byte) 42);
+    }
+    assertEquals(3 * ByteBlockPool.BYTE_BLOCK_SIZE, bytesUsed.get());
+    final byte[][] recycled = blocks.clone();
+    allocator.recycleByteBlocks(blocks, 0, blocks.length);
+    assertEquals(0, bytesUsed.get());
+    // only two blocks fit in the pool
+    assertEquals(2 * ByteBlockPool.BYTE_BLOCK_SIZE, pool.ramBytesUsed());
+
+    for (int i = 0; i < 2; ++i) {
+      byte[] block = allocator.getByteBlock();
+      assertTrue(block == recycled[0] || block == recycled[1]);
+      for (byte b : block) {
+        assertEquals(0, b);
+      }
+    }
+    assertEquals(0, pool.ramBytesUsed());
+    assertEquals(2 * ByteBlockPool.BYTE_BLOCK_SIZE, bytesUsed.get());
+    byte[] block = allocator.getByteBlock();
+    assertNotSame(recycled[2], block);
+    assertEquals(3 * ByteBlockPool.BYTE_BLOCK_SIZE, bytesUsed.get());
+  }
+
+  public void testIntBlocks() {
+    final int intBlockBytes = IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES;
+    IndexingBufferPool pool = new IndexingBufferPool(ByteBlockPool.BYTE_BLOCK_SIZE + intBlockBytes);
+    Counter bytesUsed = Counter.newCounter();
+    IntBlockPool.Allocator intAllocator = pool.newIntBlockAllocator(bytesUsed);
+    ByteBlockPool.Allocator byteAllocator = pool.newByteBlockAllocator(bytesUsed);
+
+    int[][] intBlocks = new int[][] { intAllocator.getIntBlock(), intAllocator.getIntBlock() };
+    assertEquals(2 * intBlockBytes, bytesUsed.get());
+    Arrays.fill(intBlocks[0], 7);
+    final int[] recycled = intBlocks[0];
+    intAllocator.recycleIntBlocks(intBlocks, 0, 1);
+    assertEquals(intBlockBytes, bytesUsed.get());
+    assertEquals(intBlockBytes, pool.ramBytesUsed());
+
+    // byte and int blocks share the same budget
+    byte[][] byteBlocks = new byte[][] { byteAllocator.getByteBlock(), byteAllocator.getByteBlock() };
+    byteAllocator.recycleByteBlocks(byteBlocks, 0, byteBlocks.length);
+    assertEquals(intBlockBytes + ByteBlockPool.BYTE_BLOCK_SIZE, pool.ramBytesUsed());
+
+    int[] block = intAllocator.getIntBlock();
+    assertSame(recycled, block);
+    for (int i : block) {
+      assertEquals(0, i);
+    }
+    assertEquals(ByteBlockPool.BYTE_BLOCK_SIZE, pool.ramBytesUsed());
+  }
+
+  public void testLocalBlocks() {
+    IndexingBufferPool pool = new IndexingBufferPool(ByteBlockPool.BYTE_BLOCK_SIZE);
+    Counter bytesUsed = Counter.newCounter();
+    ByteBlockPool.Allocator allocator = pool.newByteBlockAllocator(bytesUsed, 1);
+    byte[][] blocks = new byte[][] { allocator.getByteBlock(), allocator.getByteBlock() };
+    Arrays.fill(blocks[0], (byte) 42);
+    final byte[] local = blocks[0];
+    allocator.recycleByteBlocks(blocks, 0, blocks.length);
+    // the first block is kept by the allocator and still accounted
+    assertEquals(ByteBlockPool.BYTE_BLOCK_SIZE, bytesUsed.get());
+    assertEquals(ByteBlockPool.BYTE_BLOCK_SIZE, pool.ramBytesUsed());
+
+    byte[] block = allocator.getByteBlock();
+    assertSame(local, block);
+    for (byte b : block) {
+      assertEquals(0, b);
+    }
+    assertEquals(ByteBlockPool.BYTE_BLOCK_SIZE, bytesUsed.get());
+    assertEquals(ByteBlockPool.BYTE_BLOCK_SIZE, pool.ramBytesUsed());
+    // then blocks come from the pool
+    assertSame(blocks[1], allocator.getByteBlock());
+    assertEquals(0, pool.ramBytesUsed());
+    assertEquals(2 * ByteBlockPool.BYTE_BLOCK_SIZE, bytesUsed.get());
+
+    IntBlockPool.Allocator intAllocator = pool.newIntBlockAllocator(bytesUsed, 1);
+    int[][] intBlocks = new int[][] { intAllocator.getIntBlock() };
+    Arrays.fill(intBlocks[0], 7);
+    final int[] localInts = intBlocks[0];
+    intAllocator.recycleIntBlocks(intBlocks, 0, 1);
+    assertEquals(0, pool.ramBytesUsed());
+    int[] intBlock = intAllocator.getIntBlock();
+    assertSame(localInts, intBlock);
+    for (int i : intBlock) {
+      assertEquals(0, i);
+    }
+  }
+
+  public void testIndexingReusesBlocks() throws Exception {
+    // every segment after the first one indexes into recycled blocks: stale
+    // bytes of previous segments would corrupt postings and term vectors
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(new MockAnalyzer(random()))
+        .setCodec(TestUtil.getDefaultCodec())
+        .setMaxBufferedDocs(TestUtil.nextInt(random(), 2, 20))
+        .setMergePolicy(NoMergePolicy.INSTANCE)
+        .setIndexingBufferPoolSizeMB(TestUtil.nextInt(random(), 1, 4)));
+    final IndexingBufferPool pool = w.getDocsWriter().bufferPool;
+    assertNotNull(pool);
+
+    FieldType vectors = new FieldType(TextField.TYPE_NOT_STORED);
+    vectors.setStoreTermVectors(true);
+    vectors.setStoreTermVectorPositions(true);
+    vectors.setStoreTermVectorOffsets(true);
+    final int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", "" + i, Field.Store.YES));
+      doc.add(new TextField("body", "b" + i + " common", Field.Store.NO));
+      doc.add(new Field("vectors", "v" + (i % 7) + " w" + (i % 11), vectors));
+      w.addDocument(doc);
+    }
+    w.commit();
+    // blocks of flushed segments went back to the pool
+    assertTrue(pool.ramBytesUsed() > 0);
+
+    DirectoryReader r = DirectoryReader.open(dir);
+    assertTrue(r.leaves().size() > 1);
+    assertEquals(numDocs, r.numDocs());
+    for (LeafReaderContext ctx : r.leaves()) {
+      final LeafReader leaf = ctx.reader();
+      final TermsEnum body = leaf.terms("body").iterator();
+      assertTrue(body.seekExact(new BytesRef("common")));
+      assertEquals(leaf.maxDoc(), body.docFreq());
+      for (int doc = 0; doc < leaf.maxDoc(); ++doc) {
+        final int id = Integer.parseInt(leaf.document(doc).get("id"));
+        assertTrue(body.seekExact(new BytesRef("b" + id)));
+        PostingsEnum postings = body.postings(null, PostingsEnum.NONE);
+        assertEquals(doc, postings.nextDoc());
+        assertEquals(DocIdSetIterator.NO_MORE_DOCS, postings.nextDoc());
+
+        final TermsEnum termVector = leaf.getTermVector(doc, "vectors").iterator();
+        assertEquals(new BytesRef("v" + (id % 7)), termVector.next());
+        postings = termVector.postings(null, PostingsEnum.ALL);
+        assertEquals(0, postings.nextDoc());
+        assertEquals(1, postings.freq());
+        assertEquals(0, postings.nextPosition());
+        assertEquals(0, postings.startOffset());
+        assertEquals(new BytesRef("w" + (id % 11)), termVector.next());
+        postings = termVector.postings(null, PostingsEnum.ALL);
+        assertEquals(0, postings.nextDoc());
+        assertEquals(1, postings.nextPosition());
+        assertEquals(3, postings.startOffset());
+        assertNull(termVector.next());
+      }
+    }
+    IOUtils.close(r, w, dir);
+  }
+}
@@ -179,7 +179,7 @@ public class TestBooleanScorer extends LuceneTestCase {
       .build();
     weight = searcher.createNormalizedWeight(query, true);
     scorer = ((BooleanWeight) weight).booleanScorer(ctx);
-    assertTrue(scorer instanceof DefaultBulkScorer); // term scorer
+    assertTrue(scorer instanceof TermBulkScorer); // term scorer
 
     // enabled coords -> BoostedBulkScorer
     searcher.setSimilarity(new ClassicSimilarity());
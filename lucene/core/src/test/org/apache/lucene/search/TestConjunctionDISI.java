@@ -310,4 +310,44 @@ public class TestConjunctionDISI extends LuceneTestCase {
   public void testCollapseSubConjunctionScorers() throws IOException {
     testCollapseSubConjunctions(true);
   }
+
+  public void testSelectiveClausesAreConfirmedFirst() throws IOException {
+    final int maxDoc = 100000;
+    final FixedBitSet rare = new FixedBitSet(maxDoc);
+    for (int i = 0; i < maxDoc; i += 100) {
+      rare.set(i);
+    }
+    final int[] cheapChecks = new int[1];
+    // cheap clause that matches all documents
+    final TwoPhaseIterator cheap = new TwoPhaseIterator(DocIdSetIterator.all(maxDoc)) {
+      @Override
+      public boolean matches() throws IOException {
+        cheapChecks[0]++;
+        return true;
+      }
+
+      @Override
+      public float matchCost() {
+        return 1;
+      }
+    };
+    // more costly clause that rarely matches
+    final TwoPhaseIterator selective = new TwoPhaseIterator(DocIdSetIterator.all(maxDoc)) {
+      @Override
+      public boolean matches() throws IOException {
+        return rare.get(approximation.docID());
+      }
+
+      @Override
+      public float matchCost() {
+        return 10;
+      }
+    };
+
+    final ConjunctionDISI conjunction = ConjunctionDISI.intersect(Arrays.asList(scorer(cheap), scorer(selective)));
+    assertEquals(rare, toBitSet(maxDoc, conjunction));
+    // the cheap clause is checked first until statistics show that the
+    // selective one rejects more documents
+    assertTrue(cheapChecks[0] < maxDoc / 10);
+  }
 }
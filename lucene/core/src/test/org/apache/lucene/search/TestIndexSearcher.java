@@ -19,6 +19,7 @@ package org.apache.lucene.search;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -29,9 +30,13 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
@@ -223,4 +228,103 @@ public class TestIndexSearcher extends LuceneTestCase {
     searcher = new IndexSearcher(new MultiReader());
     assertEquals(dummyPolicy, searcher.getQueryCachingPolicy());
   }
+
+  public void testBalancedSlices() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+    // one large segment followed by several small ones
+    for (int i = 0; i < 100; ++i) {
+      w.addDocument(new Document());
+    }
+    w.commit();
+    for (int seg = 0; seg < 5; ++seg) {
+      for (int i = 0; i < 5; ++i) {
+        w.addDocument(new Document());
+      }
+      w.commit();
+    }
+    IndexReader reader = DirectoryReader.open(w, true);
+    w.close();
+    assertEquals(6, reader.leaves().size());
+
+    IndexSearcher.LeafSlice[] slices = IndexSearcher.slices(reader.leaves(), 30, 2);
+    // the large leaf is split into 4 ranges, the small leaves are grouped by 2
+    assertEquals(4 + 3, slices.length);
+    int expectedMin = 0;
+    for (int i = 0; i < 4; ++i) {
+      assertEquals(1, slices[i].leaves.length);
+      assertSame(reader.leaves().get(0), slices[i].leaves[0]);
+      assertEquals(expectedMin, slices[i].minDocs[0]);
+      expectedMin = slices[i].maxDocs[0];
+    }
+    assertEquals(100, expectedMin);
+    for (int i = 4; i < slices.length; ++i) {
+      assertNull(slices[i].minDocs);
+      assertEquals(i == slices.length - 1 ? 1 : 2, slices[i].leaves.length);
+    }
+
+    try {
+      IndexSearcher.slices(reader.leaves(), 0, 2);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    IOUtils.close(reader, dir);
+  }
+
+  public void testSplitLeavesSearch() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(newStringField("foo", random().nextBoolean() ? "bar" : "baz", Store.NO));
+      doc.add(new SortedDocValuesField("sort", new BytesRef(TestUtil.randomSimpleString(random()))));
+      w.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      w.forceMerge(1);
+    }
+    final IndexReader reader = w.getReader();
+    w.close();
+
+    ExecutorService service = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new NamedThreadFactory("TestIndexSearcher"));
+    final int maxDocsPerSlice = TestUtil.nextInt(random(), 1, 200);
+    final int maxSegmentsPerSlice = TestUtil.nextInt(random(), 1, 5);
+    IndexSearcher singleThreaded = new IndexSearcher(reader);
+    IndexSearcher concurrent = new IndexSearcher(reader, service) {
+      @Override
+      protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return slices(leaves, maxDocsPerSlice, maxSegmentsPerSlice);
+      }
+    };
+
+    for (Query query : Arrays.asList(
+        new MatchAllDocsQuery(),
+        new TermQuery(new Term("foo", "bar")),
+        new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("foo", "bar")), Occur.SHOULD)
+          .add(new TermQuery(new Term("foo", "baz")), Occur.SHOULD)
+          .build())) {
+      assertEquals(singleThreaded.count(query), concurrent.count(query));
+      TopDocs expected = singleThreaded.search(query, 20);
+      TopDocs actual = concurrent.search(query, 20);
+      assertEquals(expected.totalHits, actual.totalHits);
+      CheckHits.checkEqual(query, expected.scoreDocs, actual.scoreDocs);
+
+      Sort sort = new Sort(new SortField("sort", SortField.Type.STRING));
+      expected = singleThreaded.search(query, 20, sort);
+      actual = concurrent.search(query, 20, sort);
+      assertEquals(expected.totalHits, actual.totalHits);
+      assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+      for (int i = 0; i < expected.scoreDocs.length; ++i) {
+        assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+      }
+    }
+
+    TestUtil.shutdownExecutorService(service);
+    IOUtils.close(reader, dir);
+  }
 }
@@ -30,6 +30,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -56,6 +57,7 @@ import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.RamUsageTester;
 import org.apache.lucene.util.TestUtil;
+import org.apache.lucene.util.ThreadInterruptedException;
 
 public class TestLRUQueryCache extends LuceneTestCase {
 
@@ -1165,4 +1167,63 @@ public class TestLRUQueryCache extends LuceneTestCase {
     searcher.getIndexReader().close();
     dir.close();
   }
+
+  public void testBypassCacheWhenLocked() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    w.addDocument(new Document());
+    IndexReader reader = w.getReader();
+    w.close();
+    IndexSearcher searcher = newSearcher(reader);
+    LeafReaderContext leaf = searcher.getIndexReader().leaves().get(0);
+    AtomicBoolean scorerCalled = new AtomicBoolean();
+    AtomicBoolean bulkScorerCalled = new AtomicBoolean();
+    final LRUQueryCache cache = new LRUQueryCache(1, Long.MAX_VALUE);
+
+    Weight weight = searcher.createNormalizedWeight(new MatchAllDocsQuery(), false);
+    weight = new WeightWrapper(weight, scorerCalled, bulkScorerCalled);
+    weight = cache.doCache(weight, QueryCachingPolicy.ALWAYS_CACHE);
+
+    // hold the lock from another thread: lookups must not wait for it
+    final CountDownLatch locked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        cache.lock.lock();
+        try {
+          locked.countDown();
+          release.await();
+        } catch (InterruptedException e) {
+          throw new ThreadInterruptedException(e);
+        } finally {
+          cache.lock.unlock();
+        }
+      }
+    };
+    thread.start();
+    locked.await();
+
+    assertNotNull(weight.scorer(leaf));
+    assertEquals(true, scorerCalled.get());
+    assertNotNull(weight.bulkScorer(leaf));
+    assertEquals(true, bulkScorerCalled.get());
+    assertEquals(0, cache.getTotalCount());
+    assertEquals(0, cache.getCacheCount());
+
+    release.countDown();
+    thread.join();
+
+    // now that the lock is free, the cache is used again
+    scorerCalled.set(false);
+    bulkScorerCalled.set(false);
+    weight.scorer(leaf);
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getCacheCount());
+    weight.scorer(leaf);
+    assertEquals(1, cache.getHitCount());
+
+    searcher.getIndexReader().close();
+    dir.close();
+  }
 }
@@ -0,0 +1,172 @@
+package org.apache.lucene.search;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestMaxScoreSumScorer extends LuceneTestCase {
+
+  private Directory dir;
+  private IndexReader reader;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      StringBuilder text = new StringBuilder();
+      final int numTerms = TestUtil.nextInt(random(), 1, 20);
+      for (int j = 0; j < numTerms; ++j) {
+        // skewed distribution so that terms have very different idfs
+        text.append((char) ('a' + Math.min(random().nextInt(26), random().nextInt(26)))).append(' ');
+      }
+      doc.add(new TextField("f", text.toString(), Store.NO));
+      w.addDocument(doc);
+    }
+    reader = w.getReader();
+    w.close();
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    IOUtils.close(reader, dir);
+    super.tearDown();
+  }
+
+  private static Query randomDisjunction() {
+    BooleanQuery.Builder builder = new BooleanQuery.Builder();
+    builder.setDisableCoord(random().nextBoolean());
+    final int numClauses = TestUtil.nextInt(random(), 2, 6);
+    for (int i = 0; i < numClauses; ++i) {
+      Query q = new TermQuery(new Term("f", Character.toString((char) ('a' + random().nextInt(26)))));
+      if (random().nextBoolean()) {
+        q = new BoostQuery(q, random().nextInt(5));
+      }
+      builder.add(q, Occur.SHOULD);
+    }
+    return builder.build();
+  }
+
+  public void testTopDocs() throws IOException {
+    for (IndexSearcher searcher : new IndexSearcher[] { newSearcher(reader), new IndexSearcher(reader) }) {
+      searcher.setSimilarity(new BM25Similarity());
+      for (int iter = 0; iter < 50; ++iter) {
+        Query query = randomDisjunction();
+        final int numHits = TestUtil.nextInt(random(), 1, 20);
+        TopScoreDocCollector exhaustive = TopScoreDocCollector.create(numHits, null, true);
+        searcher.search(query, exhaustive);
+        TopScoreDocCollector pruning = TopScoreDocCollector.create(numHits, null, false);
+        searcher.search(query, pruning);
+        TopDocs expected = exhaustive.topDocs();
+        TopDocs actual = pruning.topDocs();
+        assertTrue(actual.totalHits <= expected.totalHits);
+        CheckHits.checkEqual(query, expected.scoreDocs, actual.scoreDocs);
+      }
+    }
+  }
+
+  public void testPaging() throws IOException {
+    for (IndexSearcher searcher : new IndexSearcher[] { newSearcher(reader), new IndexSearcher(reader) }) {
+      searcher.setSimilarity(new BM25Similarity());
+      for (int iter = 0; iter < 50; ++iter) {
+        Query query = randomDisjunction();
+        final int numHits = TestUtil.nextInt(random(), 1, 20);
+        TopScoreDocCollector firstPage = TopScoreDocCollector.create(numHits, null, true);
+        searcher.search(query, firstPage);
+        ScoreDoc[] firstHits = firstPage.topDocs().scoreDocs;
+        if (firstHits.length == 0) {
+          continue;
+        }
+        final ScoreDoc after = firstHits[firstHits.length - 1];
+        TopScoreDocCollector exhaustive = TopScoreDocCollector.create(numHits, after, true);
+        searcher.search(query, exhaustive);
+        TopScoreDocCollector pruning = TopScoreDocCollector.create(numHits, after, false);
+        searcher.search(query, pruning);
+        TopDocs expected = exhaustive.topDocs();
+        TopDocs actual = pruning.topDocs();
+        assertTrue(actual.totalHits <= expected.totalHits);
+        CheckHits.checkEqual(query, expected.scoreDocs, actual.scoreDocs);
+      }
+    }
+  }
+
+  public void testSkipNonCompetitiveDocs() throws IOException {
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setSimilarity(new BM25Similarity());
+    for (int iter = 0; iter < 50; ++iter) {
+      Query query = randomDisjunction();
+      Weight weight = searcher.createNormalizedWeight(query, true);
+      for (LeafReaderContext context : reader.leaves()) {
+        // compute expected scores with a scorer that never gets a min competitive score
+        Map<Integer, Float> expectedScores = new HashMap<>();
+        Scorer scorer = weight.scorer(context);
+        if (scorer == null) {
+          continue;
+        }
+        for (int doc = scorer.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = scorer.nextDoc()) {
+          expectedScores.put(doc, scorer.score());
+        }
+
+        scorer = weight.scorer(context);
+        if (scorer instanceof MaxScoreSumScorer == false) {
+          // only one clause matches in this segment
+          continue;
+        }
+        float minCompetitiveScore = 0;
+        int lastDoc = -1;
+        for (int doc = scorer.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = scorer.nextDoc()) {
+          // all docs that have been skipped must not be competitive
+          for (int skipped = lastDoc + 1; skipped < doc; ++skipped) {
+            Float score = expectedScores.get(skipped);
+            assertTrue(score == null || score < minCompetitiveScore);
+          }
+          assertEquals(expectedScores.get(doc), scorer.score(), 0f);
+          assertTrue(scorer.score() >= minCompetitiveScore);
+          if (random().nextInt(10) == 0) {
+            minCompetitiveScore += random().nextFloat() * scorer.maxScore() / 10;
+            scorer.setMinCompetitiveScore(minCompetitiveScore);
+          }
+          lastDoc = doc;
+        }
+        for (int skipped = lastDoc + 1; skipped < context.reader().maxDoc(); ++skipped) {
+          Float score = expectedScores.get(skipped);
+          assertTrue(score == null || score < minCompetitiveScore);
+        }
+      }
+    }
+  }
+}
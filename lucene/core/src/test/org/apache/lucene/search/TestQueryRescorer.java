@@ -20,6 +20,8 @@ package org.apache.lucene.search;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.Set;
 
 import org.apache.lucene.document.Document;
@@ -36,6 +38,7 @@ import org.apache.lucene.search.spans.SpanQuery;
 import org.apache.lucene.search.spans.SpanTermQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.TestUtil;
 
 public class TestQueryRescorer extends LuceneTestCase {
@@ -518,4 +521,37 @@ public class TestQueryRescorer extends LuceneTestCase {
       return hash;
     }
   }
+
+  public void testConcurrentRescoring() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(newTextField("field", random().nextBoolean() ? "a b" : "a", Field.Store.NO));
+      doc.add(new NumericDocValuesField("num", random().nextInt(100)));
+      w.addDocument(doc);
+      if (random().nextInt(50) == 0) {
+        w.commit();
+      }
+    }
+    IndexReader r = w.getReader();
+    w.close();
+
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 2, 4), new NamedThreadFactory(getTestName()));
+    IndexSearcher searcher = new IndexSearcher(r);
+    IndexSearcher concurrentSearcher = new IndexSearcher(r, executor);
+    final int numHits = TestUtil.nextInt(random(), 1, numDocs);
+    TopDocs hits = searcher.search(new TermQuery(new Term("field", "a")), numHits);
+
+    Query secondPass = new TermQuery(new Term("field", "b"));
+    final int topN = TestUtil.nextInt(random(), 1, numHits);
+    TopDocs expected = QueryRescorer.rescore(searcher, hits, secondPass, 2, topN);
+    TopDocs actual = QueryRescorer.rescore(concurrentSearcher, hits, secondPass, 2, topN);
+    CheckHits.checkEqual(secondPass, expected.scoreDocs, actual.scoreDocs);
+
+    TestUtil.shutdownExecutorService(executor);
+    r.close();
+    dir.close();
+  }
 }
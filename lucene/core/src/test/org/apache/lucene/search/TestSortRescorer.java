@@ -20,6 +20,8 @@ package org.apache.lucene.search;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
@@ -31,6 +33,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.similarities.ClassicSimilarity;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.TestUtil;
 
 public class TestSortRescorer extends LuceneTestCase {
@@ -180,4 +183,47 @@ public class TestSortRescorer extends LuceneTestCase {
     r.close();
     dir.close();
   }
+
+  public void testConcurrentRescoring() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(newTextField("field", random().nextBoolean() ? "a b" : "a", Field.Store.NO));
+      doc.add(new NumericDocValuesField("num", random().nextInt(100)));
+      w.addDocument(doc);
+      if (random().nextInt(50) == 0) {
+        w.commit();
+      }
+    }
+    IndexReader r = w.getReader();
+    w.close();
+
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 2, 4), new NamedThreadFactory(getTestName()));
+    IndexSearcher searcher = new IndexSearcher(r);
+    IndexSearcher concurrentSearcher = new IndexSearcher(r, executor);
+    final int numHits = TestUtil.nextInt(random(), 1, numDocs);
+    TopDocs hits = searcher.search(new TermQuery(new Term("field", "a")), numHits);
+
+    Rescorer rescorer = new SortRescorer(new Sort(new SortField("num", SortField.Type.INT, random().nextBoolean())));
+    final int topN = TestUtil.nextInt(random(), 1, numHits);
+    TopDocs expected = rescorer.rescore(searcher, hits, topN);
+    TopDocs actual = rescorer.rescore(concurrentSearcher, hits, topN);
+    assertEquals(expected.totalHits, actual.totalHits);
+    assertEquals(expected.getMaxScore(), actual.getMaxScore(), 0f);
+    assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+    for (int i = 0; i < expected.scoreDocs.length; ++i) {
+      FieldDoc expectedHit = (FieldDoc) expected.scoreDocs[i];
+      FieldDoc actualHit = (FieldDoc) actual.scoreDocs[i];
+      assertEquals(expectedHit.doc, actualHit.doc);
+      assertEquals(expectedHit.score, actualHit.score, 0f);
+      assertEquals(expectedHit.shardIndex, actualHit.shardIndex);
+      assertArrayEquals(expectedHit.fields, actualHit.fields);
+    }
+
+    TestUtil.shutdownExecutorService(executor);
+    r.close();
+    dir.close();
+  }
 }
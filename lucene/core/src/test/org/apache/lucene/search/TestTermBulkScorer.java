@@ -0,0 +1,156 @@
+package org.apache.lucene.search;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermContext;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.search.similarities.ClassicSimilarity;
+import org.apache.lucene.search.similarities.Similarity;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestTermBulkScorer extends LuceneTestCase {
+
+  private Directory dir;
+  private IndexReader reader;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      StringBuilder text = new StringBuilder();
+      final int numTerms = TestUtil.nextInt(random(), 1, 20);
+      for (int j = 0; j < numTerms; ++j) {
+        text.append((char) ('a' + random().nextInt(5))).append(' ');
+      }
+      doc.add(new TextField("f", text.toString(), Store.NO));
+      w.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      w.deleteDocuments(new Term("f", "e"));
+    }
+    reader = w.getReader();
+    w.close();
+  }
+
+  @Override
+  public void tearDown() throws Exception {
+    IOUtils.close(reader, dir);
+    super.tearDown();
+  }
+
+  private static Similarity randomSimilarity() {
+    return random().nextBoolean() ? new BM25Similarity() : new ClassicSimilarity();
+  }
+
+  public void testSameScoresAsTermScorer() throws IOException {
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setSimilarity(randomSimilarity());
+    for (int iter = 0; iter < 10; ++iter) {
+      Query query = new TermQuery(new Term("f", Character.toString((char) ('a' + random().nextInt(5)))));
+      Weight weight = searcher.createNormalizedWeight(query, true);
+      for (LeafReaderContext context : reader.leaves()) {
+        Scorer scorer = weight.scorer(context);
+        BulkScorer bulkScorer = weight.bulkScorer(context);
+        if (scorer == null) {
+          assertNull(bulkScorer);
+          continue;
+        }
+        assertTrue(bulkScorer instanceof TermBulkScorer);
+
+        final Map<Integer, Float> expected = new HashMap<>();
+        final Map<Integer, Integer> expectedFreqs = new HashMap<>();
+        for (int doc = scorer.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = scorer.nextDoc()) {
+          if (context.reader().getLiveDocs() == null || context.reader().getLiveDocs().get(doc)) {
+            expected.put(doc, scorer.score());
+            expectedFreqs.put(doc, scorer.freq());
+          }
+        }
+
+        final Map<Integer, Float> actual = new HashMap<>();
+        LeafCollector collector = new LeafCollector() {
+          Scorer scorer;
+
+          @Override
+          public void setScorer(Scorer scorer) throws IOException {
+            this.scorer = scorer;
+          }
+
+          @Override
+          public void collect(int doc) throws IOException {
+            assertEquals(doc, scorer.docID());
+            assertSame(weight, scorer.getWeight());
+            assertEquals(expectedFreqs.get(doc).intValue(), scorer.freq());
+            assertNull(actual.put(doc, scorer.score()));
+          }
+        };
+        // score in several windows to exercise partial blocks
+        final int maxDoc = context.reader().maxDoc();
+        int next = 0;
+        while (next < maxDoc) {
+          final int max = (int) Math.min(maxDoc, next + (long) TestUtil.nextInt(random(), 1, 300));
+          next = bulkScorer.score(collector, context.reader().getLiveDocs(), next, max);
+        }
+        assertEquals(expected, actual);
+      }
+    }
+  }
+
+  public void testBatchScoresMatchPerDocScores() throws IOException {
+    IndexSearcher searcher = new IndexSearcher(reader);
+    Similarity similarity = randomSimilarity();
+    searcher.setSimilarity(similarity);
+    Term term = new Term("f", "a");
+    Similarity.SimWeight stats = similarity.computeWeight(
+        searcher.collectionStatistics("f"),
+        searcher.termStatistics(term, TermContext.build(reader.getContext(), term)));
+    stats.normalize(1f, 1f);
+    for (LeafReaderContext context : reader.leaves()) {
+      Similarity.SimScorer simScorer = similarity.simScorer(stats, context);
+      final int count = TestUtil.nextInt(random(), 0, context.reader().maxDoc());
+      int[] docs = new int[count];
+      float[] freqs = new float[count];
+      for (int i = 0; i < count; ++i) {
+        docs[i] = random().nextInt(context.reader().maxDoc());
+        freqs[i] = TestUtil.nextInt(random(), 1, 10);
+      }
+      float[] scores = new float[count];
+      simScorer.score(docs, freqs, count, scores);
+      for (int i = 0; i < count; ++i) {
+        assertEquals(simScorer.score(docs[i], freqs[i]), scores[i], 0f);
+      }
+    }
+  }
+}
@@ -72,6 +72,39 @@ public class TestTopDocsMerge extends LuceneTestCase {
     testSort(true);
   }
 
+  public void testMergerMissingValue() throws Exception {
+    final SortField sortField = new SortField("string", SortField.Type.STRING);
+    final Sort sort = new Sort(sortField);
+    final TopFieldDocs[] shardHits = new TopFieldDocs[] {
+        new TopFieldDocs(1, new ScoreDoc[] { new FieldDoc(0, Float.NaN, new Object[] { new BytesRef("a") }) }, sort.getSort(), Float.NaN),
+        new TopFieldDocs(1, new ScoreDoc[] { new FieldDoc(1, Float.NaN, new Object[] { null }) }, sort.getSort(), Float.NaN)
+    };
+    final TopDocsMerger merger = new TopDocsMerger();
+
+    sortField.setMissingValue(SortField.STRING_LAST);
+    merger.merge(sort, 0, 2, shardHits);
+    assertEquals(2, merger.count);
+    assertEquals(0, merger.docs[0]);
+    assertEquals(1, merger.docs[1]);
+
+    // same sort, but the missing value changed: comparators must not be reused
+    sortField.setMissingValue(SortField.STRING_FIRST);
+    merger.merge(sort, 0, 2, shardHits);
+    assertEquals(2, merger.count);
+    assertEquals(1, merger.docs[0]);
+    assertEquals(0, merger.docs[1]);
+
+    // equal sort with a different missing value
+    final SortField sortField2 = new SortField("string", SortField.Type.STRING);
+    sortField2.setMissingValue(SortField.STRING_LAST);
+    final Sort sort2 = new Sort(sortField2);
+    assertEquals(sort, sort2);
+    merger.merge(sort2, 0, 2, shardHits);
+    assertEquals(2, merger.count);
+    assertEquals(0, merger.docs[0]);
+    assertEquals(1, merger.docs[1]);
+  }
+
   void testSort(boolean useFrom) throws Exception {
 
     IndexReader reader = null;
@@ -167,6 +200,8 @@ public class TestTopDocsMerge extends LuceneTestCase {
     sortFields.add(new SortField(null, SortField.Type.DOC, false));
 
     int numIters = atLeast(300); 
+    // reused across iterations
+    final TopDocsMerger merger = new TopDocsMerger();
     for(int iter=0;iter<numIters;iter++) {
 
       // TODO: custom FieldComp...
@@ -308,6 +343,25 @@ public class TestTopDocsMerge extends LuceneTestCase {
       }
 
       TestUtil.assertEquals(topHits, mergedHits);
+
+      // The primitive merge must return the same hits:
+      final int mergeFrom = useFrom ? from : 0;
+      final int mergeSize = useFrom ? size : numHits;
+      if (sort == null) {
+        merger.merge(mergeFrom, mergeSize, shardHits);
+      } else {
+        merger.merge(sort, mergeFrom, mergeSize, (TopFieldDocs[]) shardHits);
+      }
+      assertEquals(mergedHits.totalHits, merger.totalHits);
+      assertEquals(mergedHits.getMaxScore(), merger.maxScore, 0f);
+      assertEquals(mergedHits.scoreDocs.length, merger.count);
+      for(int hitIDX=0;hitIDX<merger.count;hitIDX++) {
+        final ScoreDoc sd = mergedHits.scoreDocs[hitIDX];
+        assertEquals(sd.doc, merger.docs[hitIDX]);
+        assertEquals(sd.score, merger.scores[hitIDX], 0f);
+        assertEquals(sd.shardIndex, merger.shardIndices[hitIDX]);
+        assertSame(sd, shardHits[merger.shardIndices[hitIDX]].scoreDocs[merger.hitIndices[hitIDX]]);
+      }
     }
     reader.close();
     dir.close();
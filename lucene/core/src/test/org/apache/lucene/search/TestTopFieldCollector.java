@@ -19,17 +19,22 @@ package org.apache.lucene.search;
 
 import java.io.IOException;
 
+import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.FieldValueHitQueue.Entry;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.TestUtil;
 
@@ -269,4 +274,111 @@ public class TestTopFieldCollector extends LuceneTestCase {
     dir.close();
   }
 
+
+  public void testEarlyTerminationWithIndexSort() throws Exception {
+    Directory dir = newDirectory();
+    final Sort indexSort = new Sort(
+        new SortField("num", SortField.Type.LONG, true),
+        new SortField("str", SortField.Type.STRING));
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setIndexSort(indexSort);
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("text", random().nextBoolean() ? "foo" : "bar", Store.NO));
+      doc.add(new NumericDocValuesField("num", random().nextInt(100)));
+      doc.add(new SortedDocValuesField("str", new BytesRef(TestUtil.randomSimpleString(random(), 2))));
+      w.addDocument(doc);
+      if (i == numDocs / 2) {
+        w.commit();
+      }
+    }
+    w.forceMerge(1);
+    IndexReader reader = w.getReader();
+    w.close();
+
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    for (int iter = 0; iter < 20; ++iter) {
+      final Sort sort = random().nextBoolean()
+          ? indexSort
+          : new Sort(new SortField("num", SortField.Type.LONG, true));
+      final Query query = random().nextBoolean()
+          ? new MatchAllDocsQuery()
+          : new TermQuery(new Term("text", "foo"));
+      final int numHits = TestUtil.nextInt(random(), 1, 20);
+      // early termination is disabled by default
+      final TopFieldCollector exhaustive = TopFieldCollector.create(sort, numHits, true, false, random().nextBoolean());
+      searcher.search(query, exhaustive);
+      final TopFieldCollector earlyTerminating = TopFieldCollector.create(sort, numHits, null, true, false, false, true);
+      searcher.search(query, earlyTerminating);
+
+      final TopDocs expected = exhaustive.topDocs();
+      final TopDocs actual = earlyTerminating.topDocs();
+      assertFalse(exhaustive.isEarlyTerminated());
+      assertTrue(earlyTerminating.isEarlyTerminated());
+      assertTrue(actual.totalHits < expected.totalHits);
+      assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+      for (int i = 0; i < expected.scoreDocs.length; ++i) {
+        assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+        assertArrayEquals(((FieldDoc) expected.scoreDocs[i]).fields, ((FieldDoc) actual.scoreDocs[i]).fields);
+      }
+    }
+
+    // not a prefix of the index sort
+    final TopFieldCollector collector = TopFieldCollector.create(
+        new Sort(new SortField("str", SortField.Type.STRING)), 10, null, true, false, false, true);
+    searcher.search(new MatchAllDocsQuery(), collector);
+    assertFalse(collector.isEarlyTerminated());
+    assertEquals(numDocs, collector.getTotalHits());
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testNoEarlyTerminationWithMaxScoreTracking() throws Exception {
+    Directory dir = newDirectory();
+    final Sort indexSort = new Sort(new SortField("num", SortField.Type.LONG, true));
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwc.setIndexSort(indexSort);
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      // vary term freqs so that the max score is not reached by every document
+      StringBuilder text = new StringBuilder();
+      for (int j = random().nextInt(5); j >= 0; --j) {
+        text.append(" foo");
+      }
+      doc.add(new TextField("text", text.toString(), Store.NO));
+      doc.add(new NumericDocValuesField("num", random().nextInt(100)));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    IndexReader reader = w.getReader();
+    w.close();
+
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    final Query query = new TermQuery(new Term("text", "foo"));
+    final int numHits = TestUtil.nextInt(random(), 1, 20);
+    final TopFieldCollector exhaustive = TopFieldCollector.create(indexSort, numHits, true, true, true);
+    searcher.search(query, exhaustive);
+    // tracking the max score requires to score all matches
+    final TopFieldCollector collector = TopFieldCollector.create(indexSort, numHits, null, true, true, true, true);
+    searcher.search(query, collector);
+
+    final TopDocs expected = exhaustive.topDocs();
+    final TopDocs actual = collector.topDocs();
+    assertFalse(collector.isEarlyTerminated());
+    assertEquals(expected.totalHits, actual.totalHits);
+    assertEquals(expected.getMaxScore(), actual.getMaxScore(), 0f);
+    assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+    for (int i = 0; i < expected.scoreDocs.length; ++i) {
+      assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+      assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 0f);
+    }
+
+    reader.close();
+    dir.close();
+  }
 }
@@ -0,0 +1,77 @@
+package org.apache.lucene.store;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.BeforeClass;
+
+/**
+ * Tests direct I/O of FSDirectory: all files are read and written with
+ * direct I/O.
+ */
+public class TestDirectIODirectory extends BaseDirectoryTestCase {
+
+  @BeforeClass
+  public static void beforeClass() {
+    assumeTrue("test requires a platform that supports direct I/O", FSDirectory.DIRECT_IO_SUPPORTED);
+  }
+
+  @Override
+  protected Directory getDirectory(Path path) throws IOException {
+    NIOFSDirectory dir = new NIOFSDirectory(path) {
+      @Override
+      protected boolean useDirectIO(String name, IOContext context) {
+        return true;
+      }
+    };
+    dir.setUseDirectIOForMerges(true);
+    return dir;
+  }
+
+  public void testMergeContext() throws IOException {
+    FSDirectory dir = new NIOFSDirectory(createTempDir("testMergeContext"));
+    final IOContext smallMerge = new IOContext(new MergeInfo(10, 1024, false, -1));
+    final IOContext largeMerge = new IOContext(new MergeInfo(10, FSDirectory.MIN_DIRECT_IO_MERGE_BYTES, false, -1));
+    assertFalse(dir.useDirectIO("_0.cfs", largeMerge));
+
+    dir.setUseDirectIOForMerges(true);
+    assertTrue(dir.getUseDirectIOForMerges());
+    assertFalse(dir.useDirectIO("_0.cfs", IOContext.DEFAULT));
+    assertFalse(dir.useDirectIO("_0.cfs", smallMerge));
+    assertTrue(dir.useDirectIO("_0.cfs", largeMerge));
+
+    final int numBytes = random().nextInt(1 << 21);
+    try (IndexOutput out = dir.createOutput("_0.cfs", largeMerge)) {
+      for (int i = 0; i < numBytes; ++i) {
+        out.writeByte((byte) i);
+      }
+    }
+    assertEquals(numBytes, dir.fileLength("_0.cfs"));
+    for (IOContext context : new IOContext[] { IOContext.DEFAULT, largeMerge }) {
+      try (IndexInput in = dir.openInput("_0.cfs", context)) {
+        assertEquals(numBytes, in.length());
+        for (int i = 0; i < numBytes; ++i) {
+          assertEquals((byte) i, in.readByte());
+        }
+      }
+    }
+    dir.close();
+  }
+}
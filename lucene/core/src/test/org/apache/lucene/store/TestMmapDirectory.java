@@ -18,7 +18,12 @@ package org.apache.lucene.store;
  */
 
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Tests MMapDirectory
@@ -29,6 +34,37 @@ public class TestMmapDirectory extends BaseDirectoryTestCase {
   protected Directory getDirectory(Path path) throws IOException {
     MMapDirectory m = new MMapDirectory(path);
     m.setPreload(random().nextBoolean());
+    if (random().nextBoolean()) {
+      m.setPreloadExtensions(Collections.singleton("tip"));
+    }
     return m;
   }
+
+  public void testPreloadExtensions() throws IOException {
+    final Set<String> preloaded = Collections.synchronizedSet(new HashSet<String>());
+    MMapDirectory dir = new MMapDirectory(createTempDir("testPreloadExtensions")) {
+      @Override
+      protected void advise(String name, IOContext context, MappedByteBuffer buffer) throws IOException {
+        if (preload(name, context)) {
+          preloaded.add(name);
+        }
+        super.advise(name, context, buffer);
+      }
+    };
+    dir.setPreloadExtensions(new HashSet<>(Arrays.asList("tip", "nvd")));
+    assertEquals(new HashSet<>(Arrays.asList("tip", "nvd")), dir.getPreloadExtensions());
+    for (String name : Arrays.asList("_0.tip", "_0.nvd", "_0.tim", "segments_1")) {
+      try (IndexOutput out = dir.createOutput(name, newIOContext(random()))) {
+        out.writeInt(42);
+      }
+      dir.openInput(name, IOContext.DEFAULT).close();
+    }
+    assertEquals(new HashSet<>(Arrays.asList("_0.tip", "_0.nvd")), preloaded);
+
+    // merges do not preload
+    preloaded.clear();
+    dir.openInput("_0.tip", new IOContext(new MergeInfo(1, 4, false, -1))).close();
+    assertTrue(preloaded.isEmpty());
+    dir.close();
+  }
 }
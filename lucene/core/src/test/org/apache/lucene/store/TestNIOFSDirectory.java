@@ -18,7 +18,9 @@ package org.apache.lucene.store;
  */
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Tests NIOFSDirectory
@@ -29,4 +31,51 @@ public class TestNIOFSDirectory extends BaseDirectoryTestCase {
   protected Directory getDirectory(Path path) throws IOException {
     return new NIOFSDirectory(path);
   }
+
+  public void testDirectIOUnsupported() throws IOException {
+    assumeFalse("test requires a platform that does not support direct I/O", FSDirectory.DIRECT_IO_SUPPORTED);
+    FSDirectory dir = new NIOFSDirectory(createTempDir("testDirectIOUnsupported"));
+    try {
+      dir.setUseDirectIOForMerges(true);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    dir.close();
+  }
+
+  public void testDirectIOFallback() throws IOException {
+    final AtomicInteger directOutputs = new AtomicInteger();
+    final AtomicInteger directInputs = new AtomicInteger();
+    FSDirectory dir = new NIOFSDirectory(createTempDir("testDirectIOFallback")) {
+      @Override
+      protected boolean useDirectIO(String name, IOContext context) {
+        return true;
+      }
+      @Override
+      IndexOutput newDirectIOOutput(Path path, String name) throws IOException {
+        directOutputs.incrementAndGet();
+        // like on file systems that create the file before rejecting direct I/O
+        Files.write(path, new byte[] { 1, 2, 3 });
+        throw new IOException("Invalid argument");
+      }
+      @Override
+      IndexInput newDirectIOInput(Path path, IOContext context) throws IOException {
+        directInputs.incrementAndGet();
+        throw new IOException("Invalid argument");
+      }
+    };
+
+    try (IndexOutput out = dir.createOutput("foo", IOContext.DEFAULT)) {
+      out.writeInt(42);
+    }
+    assertEquals(1, directOutputs.get());
+    assertEquals(4, dir.fileLength("foo"));
+    try (IndexInput in = dir.openInput("foo", IOContext.DEFAULT)) {
+      assertEquals(4, in.length());
+      assertEquals(42, in.readInt());
+    }
+    assertEquals(1, directInputs.get());
+    dir.close();
+  }
 }
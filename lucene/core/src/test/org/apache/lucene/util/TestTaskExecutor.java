@@ -0,0 +1,202 @@
+package org.apache.lucene.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TestTaskExecutor extends LuceneTestCase {
+
+  private static List<Callable<Integer>> tasks(int count) {
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      final int value = i;
+      tasks.add(new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          return value;
+        }
+      });
+    }
+    return tasks;
+  }
+
+  private static void assertResults(int count, List<Integer> results) {
+    assertEquals(count, results.size());
+    for (int i = 0; i < count; ++i) {
+      assertEquals(i, results.get(i).intValue());
+    }
+  }
+
+  public void testNoExecutor() throws Exception {
+    final int count = TestUtil.nextInt(random(), 0, 10);
+    assertResults(count, TaskExecutor.invokeAll(null, tasks(count)));
+  }
+
+  public void testExecutor() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2, new NamedThreadFactory("TestTaskExecutor"));
+    try {
+      final int count = TestUtil.nextInt(random(), 0, 100);
+      assertResults(count, TaskExecutor.invokeAll(executor, tasks(count)));
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+  }
+
+  public void testSaturatedExecutor() throws Exception {
+    // an executor whose threads are all busy: tasks never start
+    final List<Runnable> queue = new ArrayList<>();
+    Executor executor = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        queue.add(command);
+      }
+    };
+    final int count = TestUtil.nextInt(random(), 2, 10);
+    assertResults(count, TaskExecutor.invokeAll(executor, tasks(count)));
+    assertEquals(count, queue.size());
+  }
+
+  public void testRejectingExecutor() throws Exception {
+    Executor executor = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        throw new RejectedExecutionException();
+      }
+    };
+    final int count = TestUtil.nextInt(random(), 2, 10);
+    assertResults(count, TaskExecutor.invokeAll(executor, tasks(count)));
+  }
+
+  public void testException() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2, new NamedThreadFactory("TestTaskExecutor"));
+    try {
+      List<Callable<Integer>> tasks = tasks(10);
+      final AtomicBoolean lastTaskRan = new AtomicBoolean();
+      tasks.set(3, new Callable<Integer>() {
+        @Override
+        public Integer call() throws IOException {
+          throw new IOException("first");
+        }
+      });
+      tasks.set(5, new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          throw new IllegalStateException("second");
+        }
+      });
+      tasks.set(9, new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          lastTaskRan.set(true);
+          return 9;
+        }
+      });
+      try {
+        TaskExecutor.invokeAll(executor, tasks);
+        fail();
+      } catch (IOException e) {
+        assertEquals("first", e.getMessage());
+        assertEquals(1, e.getSuppressed().length);
+        assertEquals("second", e.getSuppressed()[0].getMessage());
+      }
+      // all tasks ran to completion
+      assertTrue(lastTaskRan.get());
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+  }
+
+  public void testInterruptWaitsForRunningTasks() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicBoolean done = new AtomicBoolean();
+    final Thread caller = Thread.currentThread();
+    final List<Thread> threads = new ArrayList<>();
+    // runs the first task in a new thread, and rejects other tasks so that
+    // they run on the calling thread
+    Executor executor = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        if (threads.isEmpty() == false) {
+          throw new RejectedExecutionException();
+        }
+        Thread thread = new Thread(command);
+        threads.add(thread);
+        thread.start();
+        try {
+          started.await();
+        } catch (InterruptedException e) {
+          throw new ThreadInterruptedException(e);
+        }
+      }
+    };
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    tasks.add(new Callable<Integer>() {
+      @Override
+      public Integer call() throws InterruptedException {
+        started.countDown();
+        release.await();
+        done.set(true);
+        return 0;
+      }
+    });
+    tasks.add(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        // runs on the calling thread: interrupt it, and only let the first
+        // task complete once the calling thread waits for it again
+        caller.interrupt();
+        Thread thread = new Thread() {
+          @Override
+          public void run() {
+            while (caller.getState() != Thread.State.WAITING) {
+              Thread.yield();
+            }
+            release.countDown();
+          }
+        };
+        threads.add(thread);
+        thread.start();
+        return 1;
+      }
+    });
+    try {
+      TaskExecutor.invokeAll(executor, tasks);
+      fail();
+    } catch (ThreadInterruptedException e) {
+      // expected
+    }
+    // the running task completed before invokeAll returned
+    assertTrue(done.get());
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+}
@@ -0,0 +1,308 @@
+package org.apache.lucene.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A {@link MergePolicy} that can force-merge an index incrementally, in
+ * bounded steps that can be spread over time, for instance over several
+ * off-peak windows.
+ * <p>
+ * Outside of {@link #forceMergeStep}, this policy delegates to the wrapped
+ * policy, including for calls to {@link IndexWriter#forceMerge(int)}. Within a
+ * step, merges are run one at a time, smallest segments first, and each of
+ * them is committed as soon as it completes by default, so that:
+ * <ul>
+ *   <li>the temporary disk space that a step needs is bounded by the
+ *       {@link #setMaxMergeMB(double) maximum size of a merge},
+ *   <li>the amount of data that a step rewrites is bounded by its budget,
+ *   <li>progress survives restarts of the writer: the next step simply
+ *       resumes from the segments of the last commit,
+ *   <li>{@link #cancel() cancelling} a step only waits for the current merge
+ *       to complete, and does not lose any completed merge.
+ * </ul>
+ * The rate at which merges write can be limited on the merge scheduler, see
+ * {@link ConcurrentMergeScheduler#setForceMergeMBPerSec(double)}.
+ * <p>
+ * <b>NOTE</b>: committing after each merge commits <em>all</em> pending
+ * changes of the writer, including documents that the application added or
+ * deleted concurrently. Applications that need to control when their changes
+ * are committed should use
+ * {@link #forceMergeStep(IndexWriter, int, double, boolean)} with
+ * {@code commit=false}, and commit themselves.
+ * <p>
+ * <b>NOTE</b>: segments that are larger than the maximum merge size are
+ * never merged, so the index may end up with more segments than requested.
+ *
+ * @lucene.experimental
+ */
+public class IncrementalForceMergePolicy extends MergePolicy {
+
+  private final MergePolicy in;
+  private int maxMergeAtOnce = 10;
+  private long maxMergeBytes = Long.MAX_VALUE;
+
+  // state of the current step, guarded by this
+  private boolean inStep;
+  private boolean cancelled;
+  private boolean mergeAllowed;
+  private boolean mergeProposed;
+  private boolean budgetExhausted;
+  private long remainingBytes;
+
+  /** Create a new policy that delegates to {@code in} outside of steps. */
+  public IncrementalForceMergePolicy(MergePolicy in) {
+    this.in = in;
+  }
+
+  /** Maximum number of segments to merge at once. Default is 10. */
+  public synchronized IncrementalForceMergePolicy setMaxMergeAtOnce(int v) {
+    if (v < 2) {
+      throw new IllegalArgumentException("maxMergeAtOnce must be > 1 (got " + v + ")");
+    }
+    maxMergeAtOnce = v;
+    return this;
+  }
+
+  /** Returns the current maxMergeAtOnce setting.
+   *
+   * @see #setMaxMergeAtOnce */
+  public synchronized int getMaxMergeAtOnce() {
+    return maxMergeAtOnce;
+  }
+
+  /** Maximum total size of the segments of a single merge, which bounds the
+   *  additional disk space that a step needs. Default is unlimited. */
+  public synchronized IncrementalForceMergePolicy setMaxMergeMB(double v) {
+    if (v <= 0.0 || Double.isNaN(v)) {
+      throw new IllegalArgumentException("maxMergeMB must be > 0.0 (got " + v + ")");
+    }
+    v *= 1024 * 1024;
+    maxMergeBytes = v > Long.MAX_VALUE ? Long.MAX_VALUE : (long) v;
+    return this;
+  }
+
+  /** Returns the current maxMergeMB setting.
+   *
+   * @see #setMaxMergeMB */
+  public synchronized double getMaxMergeMB() {
+    return ((double) maxMergeBytes) / 1024 / 1024;
+  }
+
+  /**
+   * Same as {@link #forceMergeStep(IndexWriter, int, double, boolean)} with
+   * {@code commit=true}: each merge is committed as soon as it completes.
+   * <p>
+   * <b>NOTE</b>: this commits all pending changes of the writer, not only
+   * the merges of this step.
+   */
+  public boolean forceMergeStep(IndexWriter writer, int maxSegmentCount, double maxStepMB) throws IOException {
+    return forceMergeStep(writer, maxSegmentCount, maxStepMB, true);
+  }
+
+  /**
+   * Merge segments of the index of the given writer, toward
+   * {@code maxSegmentCount} segments, until merges have read
+   * {@code maxStepMB} MB of segments, the target is reached or the step is
+   * {@link #cancel() cancelled}. The writer must have been configured with
+   * this policy.
+   * <p>
+   * If {@code commit} is true, the writer is committed after each merge,
+   * which also commits all other pending changes of the writer. Otherwise,
+   * nothing is committed: merged segments only survive restarts once the
+   * application commits, and the segments of the last commit keep using
+   * disk space until then, so the temporary disk space of a step is no
+   * longer bounded by the maximum size of a merge.
+   *
+   * @return true if no more merges are needed or possible, false if
+   *         there is remaining work for a subsequent step
+   */
+  public boolean forceMergeStep(IndexWriter writer, int maxSegmentCount, double maxStepMB, boolean commit) throws IOException {
+    if (writer.getConfig().getMergePolicy() != this) {
+      throw new IllegalArgumentException("the writer must be configured with this merge policy");
+    }
+    if (maxStepMB <= 0.0 || Double.isNaN(maxStepMB)) {
+      throw new IllegalArgumentException("maxStepMB must be > 0.0 (got " + maxStepMB + ")");
+    }
+    synchronized (this) {
+      if (inStep) {
+        throw new IllegalStateException("a step is already running");
+      }
+      inStep = true;
+      cancelled = false;
+      budgetExhausted = false;
+      final double maxStepBytes = maxStepMB * 1024 * 1024;
+      remainingBytes = maxStepBytes > Long.MAX_VALUE ? Long.MAX_VALUE : (long) maxStepBytes;
+    }
+    try {
+      while (true) {
+        synchronized (this) {
+          if (cancelled) {
+            return false;
+          }
+          mergeAllowed = true;
+          mergeProposed = false;
+        }
+        // runs at most one merge
+        writer.forceMerge(maxSegmentCount);
+        final boolean merged;
+        synchronized (this) {
+          mergeAllowed = false;
+          merged = mergeProposed;
+        }
+        if (merged == false) {
+          synchronized (this) {
+            return budgetExhausted == false && cancelled == false;
+          }
+        }
+        if (commit) {
+          writer.commit();
+        }
+      }
+    } finally {
+      synchronized (this) {
+        inStep = false;
+        mergeAllowed = false;
+      }
+    }
+  }
+
+  /** Cancel the current step, if any. The step returns once the running
+   *  merge, if any, completes. */
+  public synchronized void cancel() {
+    cancelled = true;
+  }
+
+  @Override
+  public MergeSpecification findMerges(MergeTrigger mergeTrigger, SegmentInfos segmentInfos, IndexWriter writer) throws IOException {
+    return in.findMerges(mergeTrigger, segmentInfos, writer);
+  }
+
+  @Override
+  public MergeSpecification findForcedMerges(SegmentInfos segmentInfos, int maxSegmentCount, Map<SegmentCommitInfo,Boolean> segmentsToMerge, IndexWriter writer) throws IOException {
+    final boolean inStep;
+    synchronized (this) {
+      inStep = this.inStep;
+      if (inStep && (mergeAllowed == false || cancelled)) {
+        return null;
+      }
+    }
+    if (inStep == false) {
+      return in.findForcedMerges(segmentInfos, maxSegmentCount, segmentsToMerge, writer);
+    }
+
+    final int segmentCount = segmentInfos.size();
+    if (segmentCount <= maxSegmentCount) {
+      return null;
+    }
+
+    final Collection<SegmentCommitInfo> merging = writer.getMergingSegments();
+    final List<SegmentCommitInfo> eligible = new ArrayList<>();
+    final Map<SegmentCommitInfo,Long> sizes = new HashMap<>();
+    for (SegmentCommitInfo info : segmentInfos) {
+      if (segmentsToMerge.containsKey(info) && merging.contains(info) == false) {
+        eligible.add(info);
+        // actual bytes: this is what merges read and temporarily need on disk
+        sizes.put(info, info.sizeInBytes());
+      }
+    }
+    Collections.sort(eligible, new Comparator<SegmentCommitInfo>() {
+      @Override
+      public int compare(SegmentCommitInfo o1, SegmentCommitInfo o2) {
+        return Long.compare(sizes.get(o1), sizes.get(o2));
+      }
+    });
+
+    synchronized (this) {
+      final int numToMerge = Math.min(maxMergeAtOnce, segmentCount - maxSegmentCount + 1);
+      final List<SegmentCommitInfo> candidate = new ArrayList<>();
+      long mergeBytes = 0;
+      for (SegmentCommitInfo info : eligible) {
+        final long segBytes = sizes.get(info);
+        if (candidate.size() == numToMerge || mergeBytes + segBytes > maxMergeBytes) {
+          break;
+        }
+        candidate.add(info);
+        mergeBytes += segBytes;
+      }
+      if (candidate.size() < 2) {
+        // the smallest segments are too large to be merged
+        if (verbose(writer)) {
+          message("no segments can be merged within maxMergeMB=" + getMaxMergeMB(), writer);
+        }
+        return null;
+      }
+      if (mergeBytes > remainingBytes) {
+        budgetExhausted = true;
+        if (verbose(writer)) {
+          message(String.format(Locale.ROOT, "step budget exhausted: next merge needs %.3f MB but only %.3f MB remain",
+                                mergeBytes/1024./1024., remainingBytes/1024./1024.), writer);
+        }
+        return null;
+      }
+
+      remainingBytes -= mergeBytes;
+      mergeAllowed = false;
+      mergeProposed = true;
+      if (verbose(writer)) {
+        message(String.format(Locale.ROOT, "add merge=%s size=%.3f MB remainingStepBudget=%.3f MB",
+                              writer.segString(candidate), mergeBytes/1024./1024., remainingBytes/1024./1024.), writer);
+      }
+      final MergeSpecification spec = new MergeSpecification();
+      spec.add(new OneMerge(candidate));
+      return spec;
+    }
+  }
+
+  @Override
+  public MergeSpecification findForcedDeletesMerges(SegmentInfos segmentInfos, IndexWriter writer) throws IOException {
+    return in.findForcedDeletesMerges(segmentInfos, writer);
+  }
+
+  @Override
+  public boolean useCompoundFile(SegmentInfos segments, SegmentCommitInfo newSegment, IndexWriter writer) throws IOException {
+    return in.useCompoundFile(segments, newSegment, writer);
+  }
+
+  @Override
+  protected long size(SegmentCommitInfo info, IndexWriter writer) throws IOException {
+    return in.size(info, writer);
+  }
+
+  private boolean verbose(IndexWriter writer) {
+    return writer != null && writer.infoStream.isEnabled("IFMP");
+  }
+
+  private void message(String message, IndexWriter writer) {
+    writer.infoStream.message("IFMP", message);
+  }
+
+  @Override
+  public String toString() {
+    return "IncrementalForceMergePolicy(" + in + ", maxMergeAtOnce=" + getMaxMergeAtOnce() + ", maxMergeMB=" + getMaxMergeMB() + ")";
+  }
+}
@@ -0,0 +1,371 @@
+package org.apache.lucene.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.lucene.index.MergePolicy.OneMerge;
+import org.apache.lucene.util.ThreadInterruptedException;
+
+/**
+ * A {@link ConcurrentMergeScheduler} that slows down or stops large merges
+ * while queries are slow, so that merging does not compete with searches
+ * for IO when the same node indexes and serves queries.
+ * <p>
+ * The application reports the latency of its queries through
+ * {@link #recordQueryLatency(long)}. This scheduler maintains an
+ * exponentially weighted moving average of these latencies and derives a
+ * {@link State} from it:
+ * <ul>
+ *   <li>{@link State#NORMAL}: merges are scheduled and throttled like with
+ *       {@link ConcurrentMergeScheduler},
+ *   <li>{@link State#ELEVATED}, when the average latency is above half of the
+ *       {@link #setQueryLatencyThresholdMS threshold}: large merges may not
+ *       write faster than half the peak merge write throughput that has been
+ *       measured,
+ *   <li>{@link State#SPIKE}, when the average latency is above the threshold:
+ *       large merges are stopped until latency goes down again.
+ * </ul>
+ * Small merges are never throttled, so that the number of segments that
+ * queries need to visit stays under control. The state goes back to
+ * {@link State#NORMAL} if no latency has been reported for one second, so
+ * that merges do not stay stopped forever once queries stop.
+ * <p>
+ * Throughput is measured by summing up the bytes that merges write. Since
+ * merges that are not rate limited write as fast as the device allows, the
+ * peak merge throughput is an estimate of the write throughput of the device.
+ * <p>
+ * Decisions are logged to the {@link IndexWriter}'s info stream and exposed
+ * through {@link #getState()}, {@link #getStoppedMergeCount()},
+ * {@link #getSpikeCount()}, {@link #getQueryLatencyMS()},
+ * {@link #getMergeMBPerSec()} and {@link #getPeakMergeMBPerSec()}.
+ * <p>
+ * <b>NOTE</b>: stopping large merges may cause segments to pile up, in which
+ * case {@link ConcurrentMergeScheduler} will eventually stall indexing
+ * threads, see {@link #setMaxMergesAndThreads}.
+ *
+ * @lucene.experimental
+ */
+public class LatencyAwareMergeScheduler extends ConcurrentMergeScheduler {
+
+  /** How query latency currently affects large merges. */
+  public enum State {
+    /** Merges run as with {@link ConcurrentMergeScheduler}. */
+    NORMAL,
+    /** Large merges are throttled to half the peak merge throughput. */
+    ELEVATED,
+    /** Large merges are stopped. */
+    SPIKE
+  }
+
+  /** Merges below this size are never throttled. */
+  private static final long MIN_BIG_MERGE_BYTES = 50L * 1024 * 1024;
+
+  /** Floor for IO write rate of large merges in the {@link State#ELEVATED} state. */
+  private static final double MIN_MERGE_MB_PER_SEC = 5.0;
+
+  /** Weight of a new sample in the moving average of query latencies. */
+  private static final double LATENCY_ALPHA = 0.1;
+
+  /** Latencies that are older than that are ignored. */
+  private static final long LATENCY_TIMEOUT_NS = 1000000000L;
+
+  /** Minimum interval between two measurements of merge throughput. */
+  private static final long THROUGHPUT_INTERVAL_NS = 1000000000L;
+
+  /** How often states are re-evaluated when they are not {@link State#NORMAL}. */
+  private static final long WATCHDOG_INTERVAL_MS = 100;
+
+  private volatile double latencyThresholdMS = Double.POSITIVE_INFINITY;
+
+  // guarded by latencyLock so that recording latencies does not contend
+  // with merge scheduling
+  private final Object latencyLock = new Object();
+  private double latencyNS;
+  private long lastLatencyNS = -1;
+
+  private volatile State state = State.NORMAL;
+  private int stoppedMergeCount;
+  private long spikeCount;
+
+  private final Set<OneMerge> runningMerges = Collections.newSetFromMap(new IdentityHashMap<OneMerge,Boolean>());
+  private long completedMergeBytes;
+  private long lastThroughputNS = -1;
+  private long lastThroughputBytes;
+  private double mergeMBPerSec;
+  private double peakMergeMBPerSec;
+
+  private Thread watchdog;
+  private volatile boolean closed;
+
+  /** Sole constructor, with all settings set to default values. Large
+   *  merges are not stopped until a
+   *  {@link #setQueryLatencyThresholdMS(double) threshold} is set. */
+  public LatencyAwareMergeScheduler() {
+  }
+
+  /** Set the query latency, in milliseconds, above which large merges are
+   *  stopped. Large merges are throttled when query latency is above half of
+   *  this threshold. */
+  public synchronized void setQueryLatencyThresholdMS(double latencyThresholdMS) {
+    if (latencyThresholdMS <= 0 || Double.isNaN(latencyThresholdMS)) {
+      throw new IllegalArgumentException("latencyThresholdMS must be positive; got: " + latencyThresholdMS);
+    }
+    this.latencyThresholdMS = latencyThresholdMS;
+    updateMergeThreads();
+  }
+
+  /** Return the query latency, in milliseconds, above which large merges are
+   *  stopped. */
+  public double getQueryLatencyThresholdMS() {
+    return latencyThresholdMS;
+  }
+
+  /** Record the latency of a query, in nanoseconds. This method is
+   *  thread-safe and is cheap unless the {@link State} changes. */
+  public void recordQueryLatency(long nanos) {
+    if (nanos < 0) {
+      throw new IllegalArgumentException("nanos must be positive; got: " + nanos);
+    }
+    final long now = System.nanoTime();
+    synchronized (latencyLock) {
+      if (lastLatencyNS == -1 || now - lastLatencyNS > LATENCY_TIMEOUT_NS) {
+        // previous samples are too old to be meaningful
+        latencyNS = nanos;
+      } else {
+        latencyNS += LATENCY_ALPHA * (nanos - latencyNS);
+      }
+      lastLatencyNS = now;
+    }
+    if (closed == false && computeState(now) != state) {
+      synchronized (this) {
+        updateMergeThreads();
+      }
+    }
+  }
+
+  /** Return the current moving average of query latencies, in
+   *  milliseconds, or 0 if no latency has been recorded recently. */
+  public double getQueryLatencyMS() {
+    synchronized (latencyLock) {
+      if (lastLatencyNS == -1 || System.nanoTime() - lastLatencyNS > LATENCY_TIMEOUT_NS) {
+        return 0;
+      }
+      return latencyNS / 1000000;
+    }
+  }
+
+  /** Return the current {@link State}. */
+  public State getState() {
+    return state;
+  }
+
+  /** Return the number of large merges that are currently stopped because
+   *  of a latency spike. */
+  public synchronized int getStoppedMergeCount() {
+    return stoppedMergeCount;
+  }
+
+  /** Return the number of times that a latency spike stopped large
+   *  merges. */
+  public synchronized long getSpikeCount() {
+    return spikeCount;
+  }
+
+  /** Return the rate, in MB/sec, at which merges were writing during the
+   *  last measurement interval. */
+  public synchronized double getMergeMBPerSec() {
+    return mergeMBPerSec;
+  }
+
+  /** Return the highest rate, in MB/sec, at which merges have been
+   *  measured to write. */
+  public synchronized double getPeakMergeMBPerSec() {
+    return peakMergeMBPerSec;
+  }
+
+  private State computeState(long now) {
+    final double latencyMS;
+    synchronized (latencyLock) {
+      if (lastLatencyNS == -1 || now - lastLatencyNS > LATENCY_TIMEOUT_NS) {
+        return State.NORMAL;
+      }
+      latencyMS = latencyNS / 1000000;
+    }
+    final double threshold = latencyThresholdMS;
+    if (latencyMS >= threshold) {
+      return State.SPIKE;
+    } else if (latencyMS >= threshold / 2) {
+      return State.ELEVATED;
+    } else {
+      return State.NORMAL;
+    }
+  }
+
+  private synchronized void measureThroughput(long now) {
+    long bytes = completedMergeBytes;
+    for (OneMerge merge : runningMerges) {
+      bytes += merge.rateLimiter.getTotalBytesWritten();
+    }
+    if (lastThroughputNS == -1) {
+      lastThroughputNS = now;
+      lastThroughputBytes = bytes;
+    } else if (now - lastThroughputNS >= THROUGHPUT_INTERVAL_NS) {
+      mergeMBPerSec = (bytes - lastThroughputBytes) / 1024. / 1024. / ((now - lastThroughputNS) / 1000000000.);
+      peakMergeMBPerSec = Math.max(peakMergeMBPerSec, mergeMBPerSec);
+      lastThroughputNS = now;
+      lastThroughputBytes = bytes;
+    }
+  }
+
+  @Override
+  protected void doMerge(IndexWriter writer, OneMerge merge) throws IOException {
+    synchronized (this) {
+      runningMerges.add(merge);
+    }
+    try {
+      super.doMerge(writer, merge);
+    } finally {
+      synchronized (this) {
+        runningMerges.remove(merge);
+        completedMergeBytes += merge.rateLimiter.getTotalBytesWritten();
+      }
+    }
+  }
+
+  @Override
+  protected synchronized void updateMergeThreads() {
+    super.updateMergeThreads();
+
+    final long now = System.nanoTime();
+    measureThroughput(now);
+
+    // merges must be able to complete once closed
+    final State newState = closed ? State.NORMAL : computeState(now);
+    if (newState != state) {
+      if (newState == State.SPIKE) {
+        spikeCount++;
+      }
+      if (verbose()) {
+        message(String.format(Locale.ROOT, "latency: state %s -> %s queryLatency=%.1f ms threshold=%.1f ms mergeRate=%.1f MB/sec peakMergeRate=%.1f MB/sec",
+                              state, newState, getQueryLatencyMS(), latencyThresholdMS, mergeMBPerSec, peakMergeMBPerSec));
+      }
+      state = newState;
+    }
+
+    int stopped = 0;
+    for (MergeThread mergeThread : mergeThreads) {
+      final OneMerge merge = mergeThread.merge;
+      if (merge.estimatedMergeBytes < MIN_BIG_MERGE_BYTES) {
+        // small merges keep running at full speed
+        continue;
+      }
+      final double curMBPerSec = merge.rateLimiter.getMBPerSec();
+      double newMBPerSec = curMBPerSec;
+      if (state == State.SPIKE) {
+        newMBPerSec = 0.0;
+        stopped++;
+      } else if (state == State.ELEVATED && peakMergeMBPerSec > 0) {
+        newMBPerSec = Math.min(curMBPerSec, Math.max(MIN_MERGE_MB_PER_SEC, peakMergeMBPerSec / 2));
+      }
+      if (newMBPerSec != curMBPerSec) {
+        if (verbose()) {
+          message(String.format(Locale.ROOT, "latency: merge thread %s estSize=%.1f MB state=%s: change rate from %s to %s",
+                                mergeThread.getName(), merge.estimatedMergeBytes / 1024. / 1024., state,
+                                rateToString(curMBPerSec), rateToString(newMBPerSec)));
+        }
+        merge.rateLimiter.setMBPerSec(newMBPerSec);
+      }
+    }
+    stoppedMergeCount = stopped;
+
+    if (state != State.NORMAL && watchdog == null && closed == false) {
+      // nothing else would resume merges if queries stopped being reported
+      watchdog = new Thread("Lucene Merge Latency Watchdog") {
+        @Override
+        public void run() {
+          runWatchdog();
+        }
+      };
+      watchdog.setDaemon(true);
+      watchdog.start();
+    }
+  }
+
+  private synchronized void runWatchdog() {
+    try {
+      while (closed == false) {
+        try {
+          wait(WATCHDOG_INTERVAL_MS);
+        } catch (InterruptedException ie) {
+          throw new ThreadInterruptedException(ie);
+        }
+        if (closed) {
+          break;
+        }
+        updateMergeThreads();
+        if (state == State.NORMAL) {
+          break;
+        }
+      }
+    } finally {
+      watchdog = null;
+    }
+  }
+
+  private static String rateToString(double mbPerSec) {
+    if (mbPerSec == 0.0) {
+      return "stopped";
+    } else if (mbPerSec == Double.POSITIVE_INFINITY) {
+      return "unlimited";
+    } else {
+      return String.format(Locale.ROOT, "%.1f MB/sec", mbPerSec);
+    }
+  }
+
+  @Override
+  public void close() {
+    final Thread watchdog;
+    synchronized (this) {
+      closed = true;
+      watchdog = this.watchdog;
+      notifyAll();
+    }
+    if (watchdog != null) {
+      try {
+        watchdog.join();
+      } catch (InterruptedException ie) {
+        throw new ThreadInterruptedException(ie);
+      }
+    }
+    // resume merges that might have been stopped so that they can complete
+    synchronized (this) {
+      updateMergeThreads();
+    }
+    super.close();
+  }
+
+  @Override
+  public String toString() {
+    return super.toString() + ", queryLatencyThresholdMS=" + getQueryLatencyThresholdMS();
+  }
+}
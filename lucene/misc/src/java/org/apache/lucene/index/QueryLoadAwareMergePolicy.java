@@ -0,0 +1,315 @@
+package org.apache.lucene.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.search.IndexSearcher;
+
+/**
+ * A {@link TieredMergePolicy} that also takes into account how often
+ * segments are searched and how old they are when picking merges, and that
+ * can bound the number of segments of similar sizes.
+ * <p>
+ * On top of the size and deletes based scoring of {@link TieredMergePolicy}
+ * (see {@link #setReclaimDeletesWeight(double)}), merge candidates are scored
+ * according to:
+ * <ul>
+ *   <li>how hot their segments are: the application can report searches
+ *       with {@link #recordSearch(LeafReaderContext)}, for instance from an
+ *       {@link IndexSearcher} subclass, and merges of segments that are
+ *       searched more often than others are favored, see
+ *       {@link #setHotSegmentWeight(double)},
+ *   <li>how old their segments are: merges of segments that have been
+ *       written less than {@link #setMinSegmentAgeSeconds(double)} seconds
+ *       ago are penalized, since fresh segments are more likely to get deletes
+ *       soon in update-heavy workloads.
+ * </ul>
+ * <p>
+ * In addition, {@link #setMaxSegmentsPerTier(int)} sets a hard limit on the
+ * number of segments per size tier, where tiers are separated by a factor of
+ * {@link #getMaxMergeAtOnce()} above the {@link #getFloorSegmentMB() floor
+ * segment size}. When a tier has too many segments, its smallest segments
+ * are merged even if the tiered budget is not exceeded, so that near-real-time
+ * readers never see large numbers of tiny segments.
+ *
+ * @lucene.experimental
+ */
+public class QueryLoadAwareMergePolicy extends TieredMergePolicy {
+
+  private final ConcurrentHashMap<String,AtomicLong> searchCounts = new ConcurrentHashMap<>();
+  private double hotSegmentWeight = 1.0;
+  private double minSegmentAgeSeconds = 0.0;
+  private int maxSegmentsPerTier = Integer.MAX_VALUE;
+
+  /** Sole constructor, setting all settings to their defaults. */
+  public QueryLoadAwareMergePolicy() {
+  }
+
+  /** Record that a query searched the given segment. This method is
+   *  thread-safe. Leaves that are not backed by a segment of an index are
+   *  ignored. */
+  public void recordSearch(LeafReaderContext context) {
+    final LeafReader reader = FilterLeafReader.unwrap(context.reader());
+    if (reader instanceof SegmentReader) {
+      final String segmentName = ((SegmentReader) reader).getSegmentName();
+      AtomicLong count = searchCounts.get(segmentName);
+      if (count == null) {
+        count = new AtomicLong();
+        final AtomicLong previous = searchCounts.putIfAbsent(segmentName, count);
+        if (previous != null) {
+          count = previous;
+        }
+      }
+      count.incrementAndGet();
+    }
+  }
+
+  /** Return the number of searches that have been recorded for the given
+   *  segment. */
+  public long getSearchCount(String segmentName) {
+    final AtomicLong count = searchCounts.get(segmentName);
+    return count == null ? 0 : count.get();
+  }
+
+  /** Sets how much to favor merging segments that are searched often.
+   *  Scores of merges are divided by {@code 1 + weight * heat}, where
+   *  {@code heat} is the average number of searches of the merged segments
+   *  divided by the number of searches of the most searched segment. Set to
+   *  0 to ignore query load. Default is 1.0. */
+  public QueryLoadAwareMergePolicy setHotSegmentWeight(double v) {
+    if (v < 0.0 || Double.isNaN(v)) {
+      throw new IllegalArgumentException("hotSegmentWeight must be >= 0.0 (got " + v + ")");
+    }
+    hotSegmentWeight = v;
+    return this;
+  }
+
+  /** Returns the current hotSegmentWeight setting.
+   *
+   * @see #setHotSegmentWeight(double) */
+  public double getHotSegmentWeight() {
+    return hotSegmentWeight;
+  }
+
+  /** Segments that were written less than this number of seconds ago are
+   *  considered fresh, and merges are penalized proportionally to their
+   *  number of fresh segments, up to a factor of 2. Default is 0, which
+   *  disables the penalty. */
+  public QueryLoadAwareMergePolicy setMinSegmentAgeSeconds(double v) {
+    if (v < 0.0 || Double.isNaN(v)) {
+      throw new IllegalArgumentException("minSegmentAgeSeconds must be >= 0.0 (got " + v + ")");
+    }
+    minSegmentAgeSeconds = v;
+    return this;
+  }
+
+  /** Returns the current minSegmentAgeSeconds setting.
+   *
+   * @see #setMinSegmentAgeSeconds(double) */
+  public double getMinSegmentAgeSeconds() {
+    return minSegmentAgeSeconds;
+  }
+
+  /** Sets the maximum number of segments that are not being merged that a
+   *  size tier may have. Must be at least 2. Default is
+   *  {@link Integer#MAX_VALUE}, which means no limit on top of the budget
+   *  of {@link TieredMergePolicy}. */
+  public QueryLoadAwareMergePolicy setMaxSegmentsPerTier(int v) {
+    if (v < 2) {
+      throw new IllegalArgumentException("maxSegmentsPerTier must be >= 2 (got " + v + ")");
+    }
+    maxSegmentsPerTier = v;
+    return this;
+  }
+
+  /** Returns the current maxSegmentsPerTier setting.
+   *
+   * @see #setMaxSegmentsPerTier(int) */
+  public int getMaxSegmentsPerTier() {
+    return maxSegmentsPerTier;
+  }
+
+  @Override
+  public MergeSpecification findMerges(MergeTrigger mergeTrigger, SegmentInfos infos, IndexWriter writer) throws IOException {
+    // forget about segments that do not exist anymore
+    final Set<String> segmentNames = new HashSet<>();
+    for (SegmentCommitInfo info : infos) {
+      segmentNames.add(info.info.name);
+    }
+    searchCounts.keySet().retainAll(segmentNames);
+
+    final MergeSpecification spec = super.findMerges(mergeTrigger, infos, writer);
+    return enforceMaxSegmentsPerTier(infos, writer, spec);
+  }
+
+  private MergeSpecification enforceMaxSegmentsPerTier(SegmentInfos infos, final IndexWriter writer, MergeSpecification spec) throws IOException {
+    if (maxSegmentsPerTier == Integer.MAX_VALUE) {
+      return spec;
+    }
+
+    final Set<SegmentCommitInfo> excluded = new HashSet<>(writer.getMergingSegments());
+    if (spec != null) {
+      for (OneMerge merge : spec.merges) {
+        excluded.addAll(merge.segments);
+      }
+    }
+
+    final long floorSegmentBytes = (long) (getFloorSegmentMB() * 1024 * 1024);
+    final long maxMergedSegmentBytes = (long) (getMaxMergedSegmentMB() * 1024 * 1024);
+    final Map<SegmentCommitInfo,Long> sizes = new HashMap<>();
+    final Map<Integer,List<SegmentCommitInfo>> tiers = new TreeMap<>();
+    for (SegmentCommitInfo info : infos) {
+      if (excluded.contains(info)) {
+        continue;
+      }
+      final long segBytes = size(info, writer);
+      if (segBytes >= maxMergedSegmentBytes / 2.0) {
+        // too large to be merged again
+        continue;
+      }
+      sizes.put(info, segBytes);
+      final int tier = tier(segBytes, floorSegmentBytes);
+      List<SegmentCommitInfo> segments = tiers.get(tier);
+      if (segments == null) {
+        segments = new ArrayList<>();
+        tiers.put(tier, segments);
+      }
+      segments.add(info);
+    }
+
+    for (Map.Entry<Integer,List<SegmentCommitInfo>> entry : tiers.entrySet()) {
+      final List<SegmentCommitInfo> segments = entry.getValue();
+      // smallest first
+      Collections.sort(segments, new Comparator<SegmentCommitInfo>() {
+        @Override
+        public int compare(SegmentCommitInfo o1, SegmentCommitInfo o2) {
+          final int cmp = Long.compare(sizes.get(o1), sizes.get(o2));
+          if (cmp != 0) {
+            return cmp;
+          }
+          return o1.info.name.compareTo(o2.info.name);
+        }
+      });
+
+      while (segments.size() > maxSegmentsPerTier) {
+        final int maxMergeCount = Math.min(segments.size() - maxSegmentsPerTier + 1, getMaxMergeAtOnceExplicit());
+        final List<SegmentCommitInfo> candidate = new ArrayList<>();
+        long mergeBytes = 0;
+        for (SegmentCommitInfo info : segments) {
+          if (candidate.size() == maxMergeCount || mergeBytes + sizes.get(info) > maxMergedSegmentBytes) {
+            break;
+          }
+          candidate.add(info);
+          mergeBytes += sizes.get(info);
+        }
+        if (candidate.size() < 2) {
+          break;
+        }
+        segments.subList(0, candidate.size()).clear();
+        if (spec == null) {
+          spec = new MergeSpecification();
+        }
+        spec.add(new OneMerge(candidate));
+        if (verbose(writer)) {
+          message("  add merge=" + writer.segString(candidate) + " size=" + String.format(Locale.ROOT, "%.3f MB", mergeBytes/1024./1024.) + " [tier " + entry.getKey() + " has too many segments]", writer);
+        }
+      }
+    }
+
+    return spec;
+  }
+
+  /** Return the size tier of a segment, 0 for floored segments. */
+  private int tier(long segBytes, long floorSegmentBytes) {
+    if (segBytes <= floorSegmentBytes) {
+      return 0;
+    }
+    return 1 + (int) (Math.log((double) segBytes / floorSegmentBytes) / Math.log(getMaxMergeAtOnce()));
+  }
+
+  @Override
+  protected MergeScore score(List<SegmentCommitInfo> candidate, boolean hitTooLarge, long mergingBytes, IndexWriter writer) throws IOException {
+    final MergeScore score = super.score(candidate, hitTooLarge, mergingBytes, writer);
+
+    long maxSearchCount = 0;
+    for (AtomicLong count : searchCounts.values()) {
+      maxSearchCount = Math.max(maxSearchCount, count.get());
+    }
+    double heat = 0;
+    if (maxSearchCount > 0) {
+      for (SegmentCommitInfo info : candidate) {
+        heat += (double) getSearchCount(info.info.name) / maxSearchCount;
+      }
+      heat /= candidate.size();
+    }
+
+    int freshCount = 0;
+    if (minSegmentAgeSeconds > 0) {
+      final long now = System.currentTimeMillis();
+      for (SegmentCommitInfo info : candidate) {
+        final String timestamp = info.info.getDiagnostics().get("timestamp");
+        if (timestamp != null && (now - Long.parseLong(timestamp)) / 1000.0 < minSegmentAgeSeconds) {
+          freshCount++;
+        }
+      }
+    }
+    final double freshRatio = (double) freshCount / candidate.size();
+
+    final double finalHeat = heat;
+    final double finalMergeScore = score.getScore() / (1 + hotSegmentWeight * heat) * (1 + freshRatio);
+
+    return new MergeScore() {
+
+      @Override
+      public double getScore() {
+        return finalMergeScore;
+      }
+
+      @Override
+      public String getExplanation() {
+        return score.getExplanation() + " heat=" + String.format(Locale.ROOT, "%.3f", finalHeat) + " freshRatio=" + String.format(Locale.ROOT, "%.3f", freshRatio);
+      }
+    };
+  }
+
+  private boolean verbose(IndexWriter writer) {
+    return writer != null && writer.infoStream.isEnabled("TMP");
+  }
+
+  private void message(String message, IndexWriter writer) {
+    writer.infoStream.message("TMP", message);
+  }
+
+  @Override
+  public String toString() {
+    return super.toString() + ", hotSegmentWeight=" + hotSegmentWeight + ", minSegmentAgeSeconds=" + minSegmentAgeSeconds + ", maxSegmentsPerTier=" + maxSegmentsPerTier;
+  }
+}
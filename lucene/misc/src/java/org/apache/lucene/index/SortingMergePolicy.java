@@ -18,8 +18,6 @@ package org.apache.lucene.index;
  */
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -29,18 +27,13 @@ import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.MergeState;
 import org.apache.lucene.index.MergeTrigger;
-import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.index.SegmentCommitInfo;
 import org.apache.lucene.index.SegmentInfo;
 import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.SegmentReader;
-import org.apache.lucene.index.SlowCompositeReaderWrapper;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.InfoStream;
-import org.apache.lucene.util.packed.PackedInts;
-import org.apache.lucene.util.packed.PackedLongValues;
 
 /** A {@link MergePolicy} that reorders documents according to a {@link Sort}
  *  before merging them. As a consequence, all segments resulting from a merge
@@ -54,6 +47,9 @@ import org.apache.lucene.util.packed.PackedLongValues;
  *  {@link Sort#INDEXORDER} in reverse (which is not idempotent) will make 
  *  the order of documents in a segment depend on the number of times the segment 
  *  has been merged.
+ *  <p><b>NOTE</b>: This policy cannot be used on an {@link IndexWriter} that
+ *  has an {@link IndexWriterConfig#setIndexSort(Sort) index sort}, which
+ *  already sorts merged segments.
  *  @lucene.experimental */
 public final class SortingMergePolicy extends MergePolicy {
 
@@ -66,8 +62,7 @@ public final class SortingMergePolicy extends MergePolicy {
   class SortingOneMerge extends OneMerge {
 
     List<CodecReader> unsortedReaders;
-    Sorter.DocMap docMap;
-    LeafReader sortedView;
+    MergeSorter mergeSorter;
     final InfoStream infoStream;
 
     SortingOneMerge(List<SegmentCommitInfo> segments, InfoStream infoStream) {
@@ -89,36 +84,18 @@ public final class SortingMergePolicy extends MergePolicy {
             infoStream.message("SMP", "seg=" + leaf + " " + sortDescription);
           }
         }
-        // wrap readers, to be optimal for merge;
-        List<LeafReader> wrapped = new ArrayList<>(unsortedReaders.size());
-        for (LeafReader leaf : unsortedReaders) {
-          if (leaf instanceof SegmentReader) {
-            leaf = new MergeReaderWrapper((SegmentReader)leaf);
-          }
-          wrapped.add(leaf);
-        }
-        final LeafReader atomicView;
-        if (wrapped.size() == 1) {
-          atomicView = wrapped.get(0);
-        } else {
-          final CompositeReader multiReader = new MultiReader(wrapped.toArray(new LeafReader[wrapped.size()]));
-          atomicView = new SlowCompositeReaderWrapper(multiReader, true);
-        }
-        docMap = sorter.sort(atomicView);
-        sortedView = SortingLeafReader.wrap(atomicView, docMap);
+        mergeSorter = new MergeSorter(unsortedReaders, sort);
       }
-      // a null doc map means that the readers are already sorted
-      if (docMap == null) {
+      if (mergeSorter.wasSorted()) {
         if (infoStream.isEnabled("SMP")) {
           infoStream.message("SMP", "readers already sorted, omitting sort");
         }
-        return unsortedReaders;
       } else {
         if (infoStream.isEnabled("SMP")) {
           infoStream.message("SMP", "sorting readers by " + sort);
         }
-        return Collections.singletonList(SlowCodecReaderWrapper.wrap(sortedView));
       }
+      return mergeSorter.getSortedReaders();
     }
     
     @Override
@@ -128,41 +105,12 @@ public final class SortingMergePolicy extends MergePolicy {
       super.setMergeInfo(info);
     }
 
-    private PackedLongValues getDeletes(List<CodecReader> readers) {
-      PackedLongValues.Builder deletes = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
-      int deleteCount = 0;
-      for (LeafReader reader : readers) {
-        final int maxDoc = reader.maxDoc();
-        final Bits liveDocs = reader.getLiveDocs();
-        for (int i = 0; i < maxDoc; ++i) {
-          if (liveDocs != null && !liveDocs.get(i)) {
-            ++deleteCount;
-          } else {
-            deletes.add(deleteCount);
-          }
-        }
-      }
-      return deletes.build();
-    }
-
     @Override
     public MergePolicy.DocMap getDocMap(final MergeState mergeState) {
       if (unsortedReaders == null) {
         throw new IllegalStateException();
       }
-      if (docMap == null) {
-        return super.getDocMap(mergeState);
-      }
-      assert mergeState.docMaps.length == 1; // we returned a singleton reader
-      final PackedLongValues deletes = getDeletes(unsortedReaders);
-      return new MergePolicy.DocMap() {
-        @Override
-        public int map(int old) {
-          final int oldWithDeletes = old + (int) deletes.get(old);
-          final int newWithDeletes = docMap.oldToNew(oldWithDeletes);
-          return mergeState.docMaps[0].get(newWithDeletes);
-        }
-      };
+      return mergeSorter.getDocMap(super.getDocMap(mergeState), mergeState);
     }
 
   }
@@ -210,11 +158,14 @@ public final class SortingMergePolicy extends MergePolicy {
     return null;
   }
 
-  private MergeSpecification sortedMergeSpecification(MergeSpecification specification, InfoStream infoStream) {
+  private MergeSpecification sortedMergeSpecification(MergeSpecification specification, IndexWriter writer) {
+    if (writer.getConfig().getIndexSort() != null) {
+      throw new IllegalStateException("SortingMergePolicy cannot be used on an IndexWriter that has an index sort: " + writer.getConfig().getIndexSort());
+    }
     if (specification == null) {
       return null;
     }
-    MergeSpecification sortingSpec = new SortingMergeSpecification(infoStream);
+    MergeSpecification sortingSpec = new SortingMergeSpecification(writer.infoStream);
     for (OneMerge merge : specification.merges) {
       sortingSpec.add(merge);
     }
@@ -240,20 +191,20 @@ public final class SortingMergePolicy extends MergePolicy {
   @Override
   public MergeSpecification findMerges(MergeTrigger mergeTrigger,
       SegmentInfos segmentInfos, IndexWriter writer) throws IOException {
-    return sortedMergeSpecification(in.findMerges(mergeTrigger, segmentInfos, writer), writer.infoStream);
+    return sortedMergeSpecification(in.findMerges(mergeTrigger, segmentInfos, writer), writer);
   }
 
   @Override
   public MergeSpecification findForcedMerges(SegmentInfos segmentInfos,
       int maxSegmentCount, Map<SegmentCommitInfo,Boolean> segmentsToMerge, IndexWriter writer)
       throws IOException {
-    return sortedMergeSpecification(in.findForcedMerges(segmentInfos, maxSegmentCount, segmentsToMerge, writer), writer.infoStream);
+    return sortedMergeSpecification(in.findForcedMerges(segmentInfos, maxSegmentCount, segmentsToMerge, writer), writer);
   }
 
   @Override
   public MergeSpecification findForcedDeletesMerges(SegmentInfos segmentInfos, IndexWriter writer)
       throws IOException {
-    return sortedMergeSpecification(in.findForcedDeletesMerges(segmentInfos, writer), writer.infoStream);
+    return sortedMergeSpecification(in.findForcedDeletesMerges(segmentInfos, writer), writer);
   }
 
   @Override
@@ -0,0 +1,277 @@
+package org.apache.lucene.store;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of fixed-size blocks of files, stored off-heap in direct
+ * {@link ByteBuffer}s. A cache can be shared by several
+ * {@link BlockCacheDirectory} instances.
+ * <p>
+ * Once the cache is full, blocks are evicted according to the CLOCK
+ * algorithm, which approximates LRU: blocks that have been read since the
+ * clock hand last passed them get a second chance. Reads of cached blocks
+ * only take a lock that is striped by block, so that concurrent searches
+ * rarely contend.
+ * <p>
+ * <b>NOTE</b>: direct memory is allocated as the cache fills up, and is only
+ * released when the cache is garbage collected.
+ *
+ * @lucene.experimental
+ */
+public final class BlockCache {
+
+  /** Default size of blocks: 64 KB. */
+  public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+  // maximum size of a single direct buffer
+  private static final int MAX_SLAB_SIZE = 1 << 30;
+  private static final int NUM_LOCKS = 256;
+
+  /** Identifies a block of a file. */
+  private static final class BlockKey {
+    final long fileId;
+    final long block;
+
+    BlockKey(long fileId, long block) {
+      this.fileId = fileId;
+      this.block = block;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof BlockKey == false) {
+        return false;
+      }
+      final BlockKey that = (BlockKey) obj;
+      return fileId == that.fileId && block == that.block;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(fileId * 31 + block);
+    }
+  }
+
+  private final int blockSize;
+  private final int blockShift;
+  private final int numBlocks;
+  private final int blocksPerSlab;
+  private final ByteBuffer[] slabs;
+
+  private final ConcurrentHashMap<BlockKey,Integer> slots = new ConcurrentHashMap<>();
+  // guarded by locks[slot % NUM_LOCKS]
+  private final BlockKey[] keys;
+  private final int[] lengths;
+  private final boolean[] referenced;
+  private final Object[] locks = new Object[NUM_LOCKS];
+
+  // guarded by evictionLock
+  private final Object evictionLock = new Object();
+  private int usedBlocks;
+  private int clockHand;
+
+  private final AtomicLong nextFileId = new AtomicLong();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  /** Create a cache of {@code maxSizeMB} MB with blocks of
+   *  {@link #DEFAULT_BLOCK_SIZE} bytes. */
+  public BlockCache(double maxSizeMB) {
+    this(maxSizeMB, DEFAULT_BLOCK_SIZE);
+  }
+
+  /** Create a cache of {@code maxSizeMB} MB with blocks of
+   *  {@code blockSize} bytes, which must be a power of 2. */
+  public BlockCache(double maxSizeMB, int blockSize) {
+    if (blockSize <= 0 || Integer.bitCount(blockSize) != 1 || blockSize > MAX_SLAB_SIZE) {
+      throw new IllegalArgumentException("blockSize must be a power of 2 (got " + blockSize + ")");
+    }
+    final double maxBlocks = maxSizeMB * 1024 * 1024 / blockSize;
+    if (maxBlocks < 1 || Double.isNaN(maxBlocks)) {
+      throw new IllegalArgumentException("maxSizeMB must be able to hold at least one block (got " + maxSizeMB + ")");
+    }
+    if (maxBlocks >= Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("maxSizeMB is too large for blockSize=" + blockSize + " (got " + maxSizeMB + ")");
+    }
+    this.blockSize = blockSize;
+    this.blockShift = Integer.numberOfTrailingZeros(blockSize);
+    this.numBlocks = (int) maxBlocks;
+    this.blocksPerSlab = MAX_SLAB_SIZE / blockSize;
+    this.slabs = new ByteBuffer[(numBlocks + blocksPerSlab - 1) / blocksPerSlab];
+    this.keys = new BlockKey[numBlocks];
+    this.lengths = new int[numBlocks];
+    this.referenced = new boolean[numBlocks];
+    for (int i = 0; i < NUM_LOCKS; ++i) {
+      locks[i] = new Object();
+    }
+  }
+
+  /** Return the size of blocks. */
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /** Return the maximum number of blocks that this cache may hold. */
+  public int getMaxBlockCount() {
+    return numBlocks;
+  }
+
+  /** Return the number of blocks that have been cached so far. */
+  public int getBlockCount() {
+    synchronized (evictionLock) {
+      return usedBlocks;
+    }
+  }
+
+  /** Return the number of reads that were served from the cache. */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /** Return the number of reads that had to go to the underlying directory. */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  /** Return the number of blocks that have been evicted. */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /** Return the ratio of reads that were served from the cache, or 0 if
+   *  nothing has been read yet. */
+  public double getHitRate() {
+    final long hits = hitCount.get();
+    final long total = hits + missCount.get();
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  /** Return a new identifier for a file. Blocks of files that are deleted
+   *  or overwritten are never read again since the new file gets a new
+   *  identifier, and they are eventually evicted. */
+  long newFileId() {
+    return nextFileId.incrementAndGet();
+  }
+
+  int blockShift() {
+    return blockShift;
+  }
+
+  private Object lock(int slot) {
+    return locks[slot & (NUM_LOCKS - 1)];
+  }
+
+  private ByteBuffer slice(int slot) {
+    final ByteBuffer slab = slabs[slot / blocksPerSlab].duplicate();
+    slab.position((slot % blocksPerSlab) * blockSize);
+    return slab;
+  }
+
+  /**
+   * Copy {@code len} bytes of the given block, starting at
+   * {@code offset} in the block, into {@code b}. Returns false if the block
+   * is not cached.
+   */
+  boolean read(long fileId, long block, int offset, byte[] b, int off, int len) {
+    final BlockKey key = new BlockKey(fileId, block);
+    final Integer slot = slots.get(key);
+    if (slot != null) {
+      synchronized (lock(slot)) {
+        // the block may have been evicted in the meantime
+        if (key.equals(keys[slot]) && offset + len <= lengths[slot]) {
+          final ByteBuffer buffer = slice(slot);
+          buffer.position(buffer.position() + offset);
+          buffer.get(b, off, len);
+          referenced[slot] = true;
+          hitCount.incrementAndGet();
+          return true;
+        }
+      }
+    }
+    missCount.incrementAndGet();
+    return false;
+  }
+
+  /** Return true if the given block is cached. This does not count as a
+   *  hit or a miss. */
+  boolean contains(long fileId, long block) {
+    return slots.containsKey(new BlockKey(fileId, block));
+  }
+
+  /** Cache the first {@code len} bytes of {@code b} as the content of the
+   *  given block. */
+  void put(long fileId, long block, byte[] b, int len) {
+    assert len <= blockSize;
+    final BlockKey key = new BlockKey(fileId, block);
+    synchronized (evictionLock) {
+      if (slots.containsKey(key)) {
+        // cached by another thread
+        return;
+      }
+      final int slot;
+      if (usedBlocks < numBlocks) {
+        slot = usedBlocks++;
+        if (slabs[slot / blocksPerSlab] == null) {
+          final int slabBlocks = Math.min(blocksPerSlab, numBlocks - slot);
+          slabs[slot / blocksPerSlab] = ByteBuffer.allocateDirect(slabBlocks * blockSize);
+        }
+      } else {
+        slot = evict();
+      }
+      synchronized (lock(slot)) {
+        slice(slot).put(b, 0, len);
+        keys[slot] = key;
+        lengths[slot] = len;
+        referenced[slot] = false;
+      }
+      slots.put(key, slot);
+    }
+  }
+
+  /** Move the clock hand until it finds a block that has not been read
+   *  since the last pass, evict it and return its slot. */
+  private int evict() {
+    assert Thread.holdsLock(evictionLock);
+    while (true) {
+      final int slot = clockHand;
+      clockHand = (clockHand + 1) % numBlocks;
+      synchronized (lock(slot)) {
+        if (referenced[slot]) {
+          // second chance
+          referenced[slot] = false;
+          continue;
+        }
+        slots.remove(keys[slot], slot);
+        keys[slot] = null;
+        lengths[slot] = 0;
+      }
+      evictionCount.incrementAndGet();
+      return slot;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(blockSize=" + blockSize + ",maxBlocks=" + numBlocks + ")";
+  }
+}
@@ -0,0 +1,234 @@
+package org.apache.lucene.store;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link FilterDirectory} that caches blocks of the files that it reads
+ * in a {@link BlockCache}, so that repeated reads do not go to the wrapped
+ * directory. This is useful when the wrapped directory is slow, for
+ * instance when it is stored on a network-attached or throttled volume.
+ * <p>
+ * Files that are opened with a {@link IOContext.Context#MERGE merge} or
+ * {@link IOContext#READONCE read-once} context bypass the cache, so that
+ * merges do not evict the blocks that searches need. Here is how you might
+ * use it:
+ *
+ * <pre class="prettyprint">
+ *   BlockCache cache = new BlockCache(1024);
+ *   Directory dir = new BlockCacheDirectory(FSDirectory.open(path), cache);
+ * </pre>
+ *
+ * @lucene.experimental
+ */
+public class BlockCacheDirectory extends FilterDirectory {
+
+  private final BlockCache cache;
+  // identifiers of the files that have been opened
+  private final ConcurrentHashMap<String,Long> fileIds = new ConcurrentHashMap<>();
+
+  /** Create a new directory that caches blocks of the files of {@code in}
+   *  in the given cache. */
+  public BlockCacheDirectory(Directory in, BlockCache cache) {
+    super(in);
+    this.cache = cache;
+  }
+
+  /** Return the cache. */
+  public BlockCache getCache() {
+    return cache;
+  }
+
+  /** Return true if the blocks of a file opened with the given context should
+   *  be cached. By default, all files are cached, except those that are
+   *  opened for merging or read once. */
+  protected boolean doCache(String name, IOContext context) {
+    return context.context != IOContext.Context.MERGE && context.readOnce == false;
+  }
+
+  private long fileId(String name) {
+    Long fileId = fileIds.get(name);
+    if (fileId == null) {
+      fileId = cache.newFileId();
+      final Long previous = fileIds.putIfAbsent(name, fileId);
+      if (previous != null) {
+        fileId = previous;
+      }
+    }
+    return fileId;
+  }
+
+  @Override
+  public IndexInput openInput(String name, IOContext context) throws IOException {
+    if (doCache(name, context) == false) {
+      return in.openInput(name, context);
+    }
+    final IndexInput input = in.openInput(name, context);
+    return new CachingIndexInput("BlockCacheIndexInput(" + input + ")", cache, fileId(name), input, 0, input.length(), context);
+  }
+
+  @Override
+  public IndexOutput createOutput(String name, IOContext context) throws IOException {
+    // this is a new file
+    fileIds.remove(name);
+    return in.createOutput(name, context);
+  }
+
+  @Override
+  public void deleteFile(String name) throws IOException {
+    fileIds.remove(name);
+    in.deleteFile(name);
+  }
+
+  @Override
+  public void renameFile(String source, String dest) throws IOException {
+    fileIds.remove(source);
+    fileIds.remove(dest);
+    in.renameFile(source, dest);
+  }
+
+  @Override
+  public String toString() {
+    return "BlockCacheDirectory(" + in + ", " + cache + ")";
+  }
+
+  /** Reads from the cache and fills the cache with whole blocks of the
+   *  underlying input on misses. */
+  static final class CachingIndexInput extends BufferedIndexInput {
+
+    private final BlockCache cache;
+    private final long fileId;
+    // input over the whole file
+    private IndexInput in;
+    // start of this input in the file: non-zero in the slice case
+    private final long off;
+    private final long length;
+    private byte[] blockBuffer;
+    boolean isClone;
+
+    CachingIndexInput(String resourceDesc, BlockCache cache, long fileId, IndexInput in, long off, long length, IOContext context) {
+      super(resourceDesc, context);
+      this.cache = cache;
+      this.fileId = fileId;
+      this.in = in;
+      this.off = off;
+      this.length = length;
+    }
+
+    private CachingIndexInput(String resourceDesc, CachingIndexInput other, long off, long length) {
+      super(resourceDesc, other.getBufferSize());
+      this.cache = other.cache;
+      this.fileId = other.fileId;
+      this.in = other.in.clone();
+      this.off = off;
+      this.length = length;
+      this.isClone = true;
+    }
+
+    @Override
+    protected void readInternal(byte[] b, int offset, int len) throws IOException {
+      long pos = off + getFilePointer();
+      if (getFilePointer() + len > length) {
+        throw new EOFException("read past EOF: " + this);
+      }
+      final int blockShift = cache.blockShift();
+      final int blockSize = cache.getBlockSize();
+      while (len > 0) {
+        final long block = pos >>> blockShift;
+        final int blockOffset = (int) (pos & (blockSize - 1));
+        final int toRead = Math.min(len, blockSize - blockOffset);
+        if (cache.read(fileId, block, blockOffset, b, offset, toRead) == false) {
+          // read the whole block
+          final long blockStart = block << blockShift;
+          final int blockLength = (int) Math.min(blockSize, in.length() - blockStart);
+          if (blockBuffer == null) {
+            blockBuffer = new byte[blockSize];
+          }
+          in.seek(blockStart);
+          in.readBytes(blockBuffer, 0, blockLength);
+          cache.put(fileId, block, blockBuffer, blockLength);
+          System.arraycopy(blockBuffer, blockOffset, b, offset, toRead);
+        }
+        pos += toRead;
+        offset += toRead;
+        len -= toRead;
+      }
+    }
+
+    @Override
+    protected void seekInternal(long pos) {
+    }
+
+    @Override
+    public void prefetch(long offset, long length) throws IOException {
+      if (offset < 0 || length < 0 || offset + length > this.length) {
+        throw new IllegalArgumentException("prefetch() out of bounds: offset=" + offset + ",length=" + length + ",fileLength=" + this.length + ": " + this);
+      }
+      if (length == 0) {
+        return;
+      }
+      // only ask the wrapped input to prefetch the range of blocks that are not cached
+      final int blockShift = cache.blockShift();
+      long firstBlock = (off + offset) >>> blockShift;
+      long lastBlock = (off + offset + length - 1) >>> blockShift;
+      while (firstBlock <= lastBlock && cache.contains(fileId, firstBlock)) {
+        ++firstBlock;
+      }
+      while (lastBlock >= firstBlock && cache.contains(fileId, lastBlock)) {
+        --lastBlock;
+      }
+      if (firstBlock <= lastBlock) {
+        final long start = firstBlock << blockShift;
+        final long end = Math.min((lastBlock + 1) << blockShift, in.length());
+        in.prefetch(start, end - start);
+      }
+    }
+
+    @Override
+    public long length() {
+      return length;
+    }
+
+    @Override
+    public CachingIndexInput clone() {
+      final CachingIndexInput clone = (CachingIndexInput) super.clone();
+      clone.in = in.clone();
+      clone.blockBuffer = null;
+      clone.isClone = true;
+      return clone;
+    }
+
+    @Override
+    public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+      if (offset < 0 || length < 0 || offset + length > this.length) {
+        throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: " + this);
+      }
+      return new CachingIndexInput(getFullSliceDescription(sliceDescription), this, off + offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (isClone == false) {
+        in.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package org.apache.lucene.store;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.lucene.index.IndexFileNames;
+
+/**
+ * A {@link MMapDirectory} that tells the operating system how mapped files
+ * are going to be accessed through {@code madvise}:
+ * <ul>
+ *   <li>files that are opened for merging or read once are read
+ *       sequentially ({@link NativePosixUtil#SEQUENTIAL}), so that the
+ *       kernel reads ahead aggressively and frees their pages soon after
+ *       they have been read instead of evicting the pages that queries need,
+ *   <li>files that are preloaded, see {@link #setPreloadExtensions}, are
+ *       going to be needed soon ({@link NativePosixUtil#WILLNEED}), which
+ *       reads them in the background rather than on the calling thread,
+ *   <li>files whose extension is in {@link #setRandomAccessExtensions} are
+ *       accessed randomly ({@link NativePosixUtil#RANDOM}), which disables
+ *       read-ahead,
+ *   <li>other files use the default read-ahead of the kernel.
+ * </ul>
+ *
+ * <p>To use this you must compile
+ * NativePosixUtil.cpp (exposes Linux-specific APIs through
+ * JNI) for your platform, by running <code>ant
+ * build-native-unix</code>, and then putting the resulting
+ * <code>libNativePosixUtil.so</code> (from
+ * <code>lucene/build/native</code>) onto your dynamic
+ * linker search path.
+ *
+ * @lucene.experimental
+ */
+public class NativeMMapDirectory extends MMapDirectory {
+
+  /** Default extensions of files that are accessed randomly: terms
+   *  dictionaries, postings and doc values. */
+  public static final Set<String> DEFAULT_RANDOM_ACCESS_EXTENSIONS = Collections.unmodifiableSet(
+      new HashSet<>(Arrays.asList("tim", "doc", "pos", "pay", "dvd")));
+
+  private volatile Set<String> randomAccessExtensions = DEFAULT_RANDOM_ACCESS_EXTENSIONS;
+
+  /** Create a new NativeMMapDirectory for the named location.
+   *
+   * @param path the path of the directory
+   * @param lockFactory the lock factory to use
+   * @throws IOException if there is a low-level I/O error
+   */
+  public NativeMMapDirectory(Path path, LockFactory lockFactory) throws IOException {
+    super(path, lockFactory);
+  }
+
+  /** Create a new NativeMMapDirectory for the named location and {@link FSLockFactory#getDefault()}.
+   *
+   * @param path the path of the directory
+   * @throws IOException if there is a low-level I/O error
+   */
+  public NativeMMapDirectory(Path path) throws IOException {
+    super(path);
+  }
+
+  /**
+   * Set the extensions of the files that are accessed randomly when they
+   * are not merged. Defaults to {@link #DEFAULT_RANDOM_ACCESS_EXTENSIONS}.
+   */
+  public void setRandomAccessExtensions(Set<String> extensions) {
+    this.randomAccessExtensions = Collections.unmodifiableSet(new HashSet<>(extensions));
+  }
+
+  /**
+   * Returns the extensions of the files that are accessed randomly.
+   * @see #setRandomAccessExtensions
+   */
+  public Set<String> getRandomAccessExtensions() {
+    return randomAccessExtensions;
+  }
+
+  /** Returns the advice to give for a file, one of the constants of
+   *  {@link NativePosixUtil}. */
+  protected int getAdvice(String name, IOContext context) {
+    if (context.context == IOContext.Context.MERGE || context.readOnce) {
+      return NativePosixUtil.SEQUENTIAL;
+    }
+    if (preload(name, context)) {
+      return NativePosixUtil.WILLNEED;
+    }
+    final String extension = IndexFileNames.getExtension(name);
+    if (extension != null && randomAccessExtensions.contains(extension)) {
+      return NativePosixUtil.RANDOM;
+    }
+    return NativePosixUtil.NORMAL;
+  }
+
+  @Override
+  protected void advise(String name, IOContext context, MappedByteBuffer buffer) throws IOException {
+    if (buffer.capacity() == 0) {
+      // the last buffer of a file may be empty
+      return;
+    }
+    final int advice = getAdvice(name, context);
+    if (advice != NativePosixUtil.NORMAL) {
+      NativePosixUtil.madvise(buffer, advice);
+    }
+  }
+}
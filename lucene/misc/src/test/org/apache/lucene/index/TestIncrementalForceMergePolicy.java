@@ -0,0 +1,193 @@
+package org.apache.lucene.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestIncrementalForceMergePolicy extends LuceneTestCase {
+
+  private static IndexWriter newWriter(Directory dir, IncrementalForceMergePolicy mp) throws IOException {
+    return new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMergePolicy(mp)
+        .setMergeScheduler(new SerialMergeScheduler())
+        // only flush on commit
+        .setMaxBufferedDocs(IndexWriterConfig.DISABLE_AUTO_FLUSH)
+        .setRAMBufferSizeMB(IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB));
+  }
+
+  private static int createIndex(Directory dir, int numSegments) throws IOException {
+    IndexWriter w = newWriter(dir, new IncrementalForceMergePolicy(NoMergePolicy.INSTANCE));
+    int numDocs = 0;
+    for (int i = 0; i < numSegments; ++i) {
+      for (int j = 0; j < 20; ++j) {
+        Document doc = new Document();
+        doc.add(new StringField("id", "" + numDocs++, Store.YES));
+        doc.add(new TextField("body", TestUtil.randomSimpleString(random(), 100), Store.NO));
+        w.addDocument(doc);
+      }
+      w.commit();
+    }
+    w.close();
+    return numDocs;
+  }
+
+  private static long indexBytes(Directory dir) throws IOException {
+    long bytes = 0;
+    for (SegmentCommitInfo info : SegmentInfos.readLatestCommit(dir)) {
+      bytes += info.sizeInBytes();
+    }
+    return bytes;
+  }
+
+  private static void assertIndex(Directory dir, int numDocs) throws IOException {
+    DirectoryReader reader = DirectoryReader.open(dir);
+    assertEquals(numDocs, reader.numDocs());
+    reader.close();
+  }
+
+  public void testSteps() throws Exception {
+    Directory dir = newDirectory();
+    final int numDocs = createIndex(dir, 20);
+    final double totalMB = indexBytes(dir) / 1024. / 1024.;
+
+    IncrementalForceMergePolicy mp = new IncrementalForceMergePolicy(NoMergePolicy.INSTANCE);
+    mp.setMaxMergeAtOnce(3);
+    IndexWriter w = newWriter(dir, mp);
+    // not in a step: delegates to NoMergePolicy
+    w.forceMerge(1);
+    assertEquals(20, SegmentInfos.readLatestCommit(dir).size());
+
+    // a small step only merges some segments
+    assertFalse(mp.forceMergeStep(w, 2, totalMB / 4));
+    final int segmentCount = SegmentInfos.readLatestCommit(dir).size();
+    assertTrue(segmentCount < 20);
+    assertTrue(segmentCount > 2);
+    w.close();
+    assertIndex(dir, numDocs);
+
+    // progress survives restarts
+    mp = new IncrementalForceMergePolicy(NoMergePolicy.INSTANCE);
+    mp.setMaxMergeAtOnce(3);
+    w = newWriter(dir, mp);
+    assertEquals(segmentCount, SegmentInfos.readLatestCommit(dir).size());
+    assertTrue(mp.forceMergeStep(w, 2, totalMB * 10));
+    assertEquals(2, SegmentInfos.readLatestCommit(dir).size());
+    w.close();
+    assertIndex(dir, numDocs);
+    dir.close();
+  }
+
+  public void testNoCommit() throws Exception {
+    Directory dir = newDirectory();
+    final int numDocs = createIndex(dir, 10);
+
+    IncrementalForceMergePolicy mp = new IncrementalForceMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter w = newWriter(dir, mp);
+    // pending changes of the application
+    Document doc = new Document();
+    doc.add(new StringField("id", "" + numDocs, Store.YES));
+    w.addDocument(doc);
+
+    assertTrue(mp.forceMergeStep(w, 1, Double.POSITIVE_INFINITY, false));
+    // nothing has been committed
+    assertEquals(10, SegmentInfos.readLatestCommit(dir).size());
+    assertIndex(dir, numDocs);
+
+    DirectoryReader reader = DirectoryReader.open(w, true);
+    assertEquals(numDocs + 1, reader.numDocs());
+    reader.close();
+    w.commit();
+    assertEquals(1, SegmentInfos.readLatestCommit(dir).size());
+    w.close();
+    assertIndex(dir, numDocs + 1);
+    dir.close();
+  }
+
+  public void testCommitsPendingChanges() throws Exception {
+    Directory dir = newDirectory();
+    final int numDocs = createIndex(dir, 10);
+
+    IncrementalForceMergePolicy mp = new IncrementalForceMergePolicy(NoMergePolicy.INSTANCE);
+    IndexWriter w = newWriter(dir, mp);
+    Document doc = new Document();
+    doc.add(new StringField("id", "" + numDocs, Store.YES));
+    w.addDocument(doc);
+
+    // committing merges also commits the pending document
+    assertTrue(mp.forceMergeStep(w, 1, Double.POSITIVE_INFINITY));
+    assertIndex(dir, numDocs + 1);
+    w.close();
+    dir.close();
+  }
+
+  public void testCancel() throws Exception {
+    Directory dir = newDirectory();
+    final int numDocs = createIndex(dir, 10);
+
+    final IncrementalForceMergePolicy mp = new IncrementalForceMergePolicy(NoMergePolicy.INSTANCE);
+    mp.setMaxMergeAtOnce(2);
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMergePolicy(mp)
+        .setMergeScheduler(new SerialMergeScheduler())
+        .setMaxBufferedDocs(IndexWriterConfig.DISABLE_AUTO_FLUSH)
+        .setRAMBufferSizeMB(IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB)
+        // the warmer is only invoked when readers are pooled
+        .setReaderPooling(true)
+        .setMergedSegmentWarmer(new IndexWriter.IndexReaderWarmer() {
+          @Override
+          public void warm(LeafReader reader) throws IOException {
+            // cancel as soon as the first merge completes
+            mp.cancel();
+          }
+        }));
+    assertFalse(mp.forceMergeStep(w, 1, Double.POSITIVE_INFINITY));
+    // the completed merge has been committed
+    assertEquals(9, SegmentInfos.readLatestCommit(dir).size());
+    w.close();
+    assertIndex(dir, numDocs);
+    dir.close();
+  }
+
+  public void testMaxMergeMB() throws Exception {
+    Directory dir = newDirectory();
+    final int numDocs = createIndex(dir, 5);
+    long minSegmentBytes = Long.MAX_VALUE;
+    for (SegmentCommitInfo info : SegmentInfos.readLatestCommit(dir)) {
+      minSegmentBytes = Math.min(minSegmentBytes, info.sizeInBytes());
+    }
+
+    IncrementalForceMergePolicy mp = new IncrementalForceMergePolicy(NoMergePolicy.INSTANCE);
+    // too small to merge any two segments
+    mp.setMaxMergeMB(minSegmentBytes * 1.5 / 1024 / 1024);
+    IndexWriter w = newWriter(dir, mp);
+    assertTrue(mp.forceMergeStep(w, 1, Double.POSITIVE_INFINITY));
+    assertEquals(5, SegmentInfos.readLatestCommit(dir).size());
+    w.close();
+    assertIndex(dir, numDocs);
+    dir.close();
+  }
+}
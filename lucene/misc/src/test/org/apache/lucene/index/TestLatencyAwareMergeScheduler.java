@@ -0,0 +1,134 @@
+package org.apache.lucene.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.LatencyAwareMergeScheduler.State;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestLatencyAwareMergeScheduler extends LuceneTestCase {
+
+  public void testStates() throws Exception {
+    LatencyAwareMergeScheduler scheduler = new LatencyAwareMergeScheduler();
+    // no threshold: never throttle
+    scheduler.recordQueryLatency(TimeUnit.SECONDS.toNanos(10));
+    assertEquals(State.NORMAL, scheduler.getState());
+
+    scheduler.setQueryLatencyThresholdMS(10);
+    assertEquals(State.SPIKE, scheduler.getState());
+    assertEquals(1, scheduler.getSpikeCount());
+    for (int i = 0; i < 100; ++i) {
+      scheduler.recordQueryLatency(TimeUnit.MILLISECONDS.toNanos(6));
+    }
+    assertEquals(State.ELEVATED, scheduler.getState());
+    assertEquals(6, scheduler.getQueryLatencyMS(), 1);
+    for (int i = 0; i < 100; ++i) {
+      scheduler.recordQueryLatency(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    assertEquals(State.NORMAL, scheduler.getState());
+    scheduler.recordQueryLatency(TimeUnit.MILLISECONDS.toNanos(500));
+    assertEquals(State.SPIKE, scheduler.getState());
+    assertEquals(2, scheduler.getSpikeCount());
+
+    // once queries stop, the state goes back to normal
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (scheduler.getState() != State.NORMAL && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(State.NORMAL, scheduler.getState());
+    assertEquals(0, scheduler.getQueryLatencyMS(), 0d);
+    scheduler.close();
+  }
+
+  public void testIllegalThreshold() {
+    LatencyAwareMergeScheduler scheduler = new LatencyAwareMergeScheduler();
+    try {
+      scheduler.setQueryLatencyThresholdMS(0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    try {
+      scheduler.recordQueryLatency(-1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    scheduler.close();
+  }
+
+  public void testIndexing() throws Exception {
+    Directory dir = newDirectory();
+    final LatencyAwareMergeScheduler scheduler = new LatencyAwareMergeScheduler();
+    scheduler.setQueryLatencyThresholdMS(TestUtil.nextInt(random(), 1, 20));
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMergeScheduler(scheduler)
+        .setMaxBufferedDocs(TestUtil.nextInt(random(), 2, 20));
+    IndexWriter w = new IndexWriter(dir, iwc);
+
+    final AtomicBoolean done = new AtomicBoolean();
+    final long seed = random().nextLong();
+    Thread queries = new Thread() {
+      @Override
+      public void run() {
+        Random random = new Random(seed);
+        while (done.get() == false) {
+          scheduler.recordQueryLatency(TimeUnit.MILLISECONDS.toNanos(random.nextInt(30)));
+          try {
+            Thread.sleep(1);
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      }
+    };
+    queries.start();
+
+    final int numDocs = atLeast(500);
+    try {
+      for (int i = 0; i < numDocs; ++i) {
+        Document doc = new Document();
+        doc.add(new StringField("id", "" + i, Store.YES));
+        doc.add(new TextField("body", TestUtil.randomSimpleString(random()), Store.NO));
+        w.addDocument(doc);
+      }
+      w.forceMerge(1);
+    } finally {
+      done.set(true);
+      queries.join();
+    }
+    w.close();
+    assertTrue(scheduler.getPeakMergeMBPerSec() >= scheduler.getMergeMBPerSec());
+
+    DirectoryReader reader = DirectoryReader.open(dir);
+    assertEquals(numDocs, reader.numDocs());
+    assertEquals(1, reader.leaves().size());
+    reader.close();
+    dir.close();
+  }
+}
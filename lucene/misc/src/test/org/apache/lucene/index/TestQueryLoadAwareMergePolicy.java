@@ -0,0 +1,124 @@
+package org.apache.lucene.index;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestQueryLoadAwareMergePolicy extends LuceneTestCase {
+
+  private static void addDocs(IndexWriter w, int numDocs) throws Exception {
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("id", TestUtil.randomSimpleString(random()), Store.YES));
+      w.addDocument(doc);
+    }
+  }
+
+  public void testScore() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMergePolicy(NoMergePolicy.INSTANCE));
+    for (int i = 0; i < 4; ++i) {
+      addDocs(w, 10);
+      w.commit();
+    }
+    DirectoryReader reader = DirectoryReader.open(w, true);
+    assertEquals(4, reader.leaves().size());
+    SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+    List<SegmentCommitInfo> hot = Arrays.asList(infos.info(0), infos.info(1));
+    List<SegmentCommitInfo> cold = Arrays.asList(infos.info(2), infos.info(3));
+
+    QueryLoadAwareMergePolicy mp = new QueryLoadAwareMergePolicy();
+    mp.setHotSegmentWeight(100);
+    final int numSearches = atLeast(10);
+    for (int i = 0; i < numSearches; ++i) {
+      for (LeafReaderContext ctx : reader.leaves()) {
+        final String name = ((SegmentReader) ctx.reader()).getSegmentName();
+        if (name.equals(infos.info(0).info.name) || name.equals(infos.info(1).info.name)) {
+          mp.recordSearch(ctx);
+        }
+      }
+    }
+    assertEquals(numSearches, mp.getSearchCount(infos.info(0).info.name));
+    assertEquals(0, mp.getSearchCount(infos.info(2).info.name));
+
+    final double hotScore = mp.score(hot, false, 0, w).getScore();
+    final double coldScore = mp.score(cold, false, 0, w).getScore();
+    assertTrue(hotScore + " vs " + coldScore, hotScore < coldScore);
+
+    // all segments are fresh
+    final double freshScore = mp.setMinSegmentAgeSeconds(3600).score(cold, false, 0, w).getScore();
+    assertEquals(2 * coldScore, freshScore, coldScore * 1e-6);
+
+    IOUtils.close(reader, w, dir);
+  }
+
+  public void testMaxSegmentsPerTier() throws Exception {
+    Directory dir = newDirectory();
+    final int maxSegmentsPerTier = TestUtil.nextInt(random(), 2, 5);
+    QueryLoadAwareMergePolicy mp = new QueryLoadAwareMergePolicy();
+    // the tiered budget alone would allow many more segments
+    mp.setSegmentsPerTier(50);
+    mp.setMaxSegmentsPerTier(maxSegmentsPerTier);
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMergePolicy(mp)
+        .setMergeScheduler(new SerialMergeScheduler())
+        .setMaxBufferedDocs(TestUtil.nextInt(random(), 2, 10)));
+    final int numDocs = atLeast(200);
+    addDocs(w, numDocs);
+    w.close();
+
+    // all segments are below the floor size so they are in the same tier
+    DirectoryReader reader = DirectoryReader.open(dir);
+    assertEquals(numDocs, reader.numDocs());
+    assertTrue(reader.leaves().size() + " > " + maxSegmentsPerTier, reader.leaves().size() <= maxSegmentsPerTier);
+    IOUtils.close(reader, dir);
+  }
+
+  public void testIllegalSettings() {
+    QueryLoadAwareMergePolicy mp = new QueryLoadAwareMergePolicy();
+    try {
+      mp.setMaxSegmentsPerTier(1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    try {
+      mp.setHotSegmentWeight(-1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    try {
+      mp.setMinSegmentAgeSeconds(-1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package org.apache.lucene.store;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.apache.lucene.util.TestUtil;
+
+/**
+ * Tests BlockCacheDirectory
+ */
+public class TestBlockCacheDirectory extends BaseDirectoryTestCase {
+
+  @Override
+  protected Directory getDirectory(Path path) throws IOException {
+    final int blockSize = 1 << TestUtil.nextInt(random(), 4, 16);
+    final double maxSizeMB = (double) blockSize * TestUtil.nextInt(random(), 1, 100) / 1024 / 1024;
+    return new BlockCacheDirectory(FSDirectory.open(path), new BlockCache(maxSizeMB, blockSize));
+  }
+
+  private static void writeFile(Directory dir, String name, int length, int seed) throws IOException {
+    try (IndexOutput out = dir.createOutput(name, newIOContext(random()))) {
+      for (int i = 0; i < length; ++i) {
+        out.writeByte((byte) (seed + i));
+      }
+    }
+  }
+
+  private static void readFile(Directory dir, String name, IOContext context, int seed) throws IOException {
+    try (IndexInput in = dir.openInput(name, context)) {
+      for (long i = 0; i < in.length(); ++i) {
+        assertEquals((byte) (seed + i), in.readByte());
+      }
+    }
+  }
+
+  public void testHitsAndEvictions() throws IOException {
+    final BlockCache cache = new BlockCache(4.0 * 128 / 1024 / 1024, 128);
+    assertEquals(4, cache.getMaxBlockCount());
+    Directory dir = new BlockCacheDirectory(new RAMDirectory(), cache);
+    writeFile(dir, "a", 256, 0);
+    writeFile(dir, "b", 512, 0);
+
+    readFile(dir, "a", IOContext.DEFAULT, 0);
+    assertEquals(2, cache.getBlockCount());
+    assertEquals(0, cache.getHitCount());
+    final long misses = cache.getMissCount();
+    assertTrue(misses >= 2);
+
+    // served from the cache
+    readFile(dir, "a", IOContext.DEFAULT, 0);
+    assertEquals(misses, cache.getMissCount());
+    assertTrue(cache.getHitCount() > 0);
+    assertTrue(cache.getHitRate() > 0);
+
+    // merges bypass the cache
+    readFile(dir, "b", new IOContext(new MergeInfo(1, 512, false, -1)), 0);
+    assertEquals(2, cache.getBlockCount());
+    assertEquals(0, cache.getEvictionCount());
+
+    // but searches fill it, and evict blocks once it is full
+    readFile(dir, "b", IOContext.DEFAULT, 0);
+    assertEquals(4, cache.getBlockCount());
+    assertTrue(cache.getEvictionCount() > 0);
+
+    // overwritten files are not read from the cache
+    dir.deleteFile("a");
+    writeFile(dir, "a", 200, 42);
+    readFile(dir, "a", IOContext.DEFAULT, 42);
+    dir.deleteFile("a");
+    writeFile(dir, "c", 300, 7);
+    dir.renameFile("c", "a");
+    readFile(dir, "a", IOContext.DEFAULT, 7);
+    dir.close();
+  }
+
+  public void testSharedCache() throws IOException {
+    final BlockCache cache = new BlockCache(1, 1 << TestUtil.nextInt(random(), 4, 10));
+    Directory dir1 = new BlockCacheDirectory(new RAMDirectory(), cache);
+    Directory dir2 = new BlockCacheDirectory(new RAMDirectory(), cache);
+    writeFile(dir1, "a", 1000, 1);
+    writeFile(dir2, "a", 2000, 2);
+    for (int i = 0; i < 3; ++i) {
+      readFile(dir1, "a", IOContext.DEFAULT, 1);
+      readFile(dir2, "a", IOContext.DEFAULT, 2);
+    }
+    dir1.close();
+    dir2.close();
+  }
+
+  public void testIllegalArguments() {
+    try {
+      new BlockCache(1, 1000);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+    try {
+      new BlockCache(0.001, 1 << 16);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package org.apache.lucene.store;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.lucene.util.LuceneTestCase;
+
+/**
+ * Tests the advice that NativeMMapDirectory gives for files. This does not
+ * require the native library since advice constants are inlined.
+ */
+public class TestNativeMMapDirectory extends LuceneTestCase {
+
+  public void testGetAdvice() throws IOException {
+    NativeMMapDirectory dir = new NativeMMapDirectory(createTempDir("testGetAdvice"));
+    final IOContext merge = new IOContext(new MergeInfo(10, 1024, false, -1));
+
+    // merged and read-once files are read sequentially
+    assertEquals(NativePosixUtil.SEQUENTIAL, dir.getAdvice("_0.tim", merge));
+    assertEquals(NativePosixUtil.SEQUENTIAL, dir.getAdvice("_0.tim", IOContext.READONCE));
+    assertEquals(NativePosixUtil.SEQUENTIAL, dir.getAdvice("segments_1", IOContext.READONCE));
+
+    assertEquals(NativePosixUtil.RANDOM, dir.getAdvice("_0.tim", IOContext.DEFAULT));
+    assertEquals(NativePosixUtil.RANDOM, dir.getAdvice("_0_Lucene50_0.doc", IOContext.READ));
+    assertEquals(NativePosixUtil.NORMAL, dir.getAdvice("_0.fdt", IOContext.DEFAULT));
+    assertEquals(NativePosixUtil.NORMAL, dir.getAdvice("segments_1", IOContext.DEFAULT));
+
+    dir.setRandomAccessExtensions(Collections.singleton("fdt"));
+    assertEquals(NativePosixUtil.RANDOM, dir.getAdvice("_0.fdt", IOContext.DEFAULT));
+    assertEquals(NativePosixUtil.NORMAL, dir.getAdvice("_0.tim", IOContext.DEFAULT));
+    assertEquals(NativePosixUtil.SEQUENTIAL, dir.getAdvice("_0.fdt", merge));
+
+    // preloaded files will be needed soon, unless they are merged
+    dir.setPreloadExtensions(Collections.singleton("tip"));
+    assertEquals(NativePosixUtil.WILLNEED, dir.getAdvice("_0.tip", IOContext.DEFAULT));
+    assertEquals(NativePosixUtil.SEQUENTIAL, dir.getAdvice("_0.tip", merge));
+    assertEquals(NativePosixUtil.RANDOM, dir.getAdvice("_0.fdt", IOContext.DEFAULT));
+
+    dir.setPreload(true);
+    assertEquals(NativePosixUtil.WILLNEED, dir.getAdvice("_0.fdt", IOContext.DEFAULT));
+    assertEquals(NativePosixUtil.WILLNEED, dir.getAdvice("segments_1", IOContext.DEFAULT));
+    assertEquals(NativePosixUtil.SEQUENTIAL, dir.getAdvice("_0.fdt", merge));
+
+    dir.close();
+  }
+}
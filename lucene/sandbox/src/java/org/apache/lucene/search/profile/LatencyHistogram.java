@@ -0,0 +1,136 @@
+package org.apache.lucene.search.profile;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative long values, typically latencies in
+ * nanoseconds. Values are bucketed by their highest set bit, and each power
+ * of two range is further split into {@value #SUB_BUCKETS} linear
+ * sub-buckets, so that percentiles are reported with a relative error of at
+ * most {@code 1/}{@value #SUB_BUCKETS} while the memory usage stays constant.
+ * <p>
+ * This class is safe to use from several threads concurrently. Readers may
+ * observe values that are being recorded concurrently only partially, for
+ * instance in {@link #getCount()} but not yet in
+ * {@link #getValueAtPercentile(double)}.
+ *
+ * @lucene.experimental
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  /** Number of linear sub-buckets per power of two. */
+  public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /** Sole constructor. */
+  public LatencyHistogram() {}
+
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - 1 - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+  }
+
+  /** Return the highest value that maps to the given bucket. */
+  static long highestValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int shift = bucket / SUB_BUCKETS - 1;
+    final long sub = bucket % SUB_BUCKETS;
+    return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+  }
+
+  /** Record a value. Negative values are recorded as {@code 0}. */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    counts.incrementAndGet(bucket(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    for (long currentMax = max.get(); value > currentMax; currentMax = max.get()) {
+      if (max.compareAndSet(currentMax, value)) {
+        break;
+      }
+    }
+  }
+
+  /** Return the number of recorded values. */
+  public long getCount() {
+    return count.get();
+  }
+
+  /** Return the maximum recorded value, or {@code 0} if no values were recorded. */
+  public long getMax() {
+    return max.get();
+  }
+
+  /** Return the mean of the recorded values, or {@code 0} if no values were recorded. */
+  public double getMean() {
+    final long count = getCount();
+    return count == 0 ? 0 : (double) sum.get() / count;
+  }
+
+  /**
+   * Return an upper bound of the value that is greater than or equal to
+   * {@code percentile} percents of the recorded values. The returned value
+   * is never greater than {@link #getMax()}.
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be in [0, 100], got " + percentile);
+    }
+    long total = 0;
+    for (int i = 0; i < NUM_BUCKETS; ++i) {
+      total += counts.get(i);
+    }
+    if (total == 0) {
+      return 0;
+    }
+    final long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < NUM_BUCKETS; ++i) {
+      seen += counts.get(i);
+      if (seen >= target) {
+        return Math.min(highestValue(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  @Override
+  public String toString() {
+    return "LatencyHistogram(count=" + getCount()
+        + ", mean=" + getMean()
+        + ", p50=" + getValueAtPercentile(50)
+        + ", p99=" + getValueAtPercentile(99)
+        + ", max=" + getMax() + ")";
+  }
+}
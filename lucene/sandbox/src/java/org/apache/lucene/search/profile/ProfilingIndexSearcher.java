@@ -0,0 +1,169 @@
+package org.apache.lucene.search.profile;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexReaderContext;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Weight;
+
+/**
+ * An {@link IndexSearcher} that records how much time is spent in each
+ * {@link Phase} of query execution.
+ * <p>
+ * Timings of all searches are recorded into one {@link LatencyHistogram}
+ * per phase, see {@link #getHistogram(Phase)}. In addition,
+ * {@link #profile(Query, Collector)} returns a per-leaf {@link QueryProfile}
+ * of a single search. This makes it possible to tell whether a query is slow
+ * because of rewriting, of weight creation or of matching and scoring.
+ * <p>
+ * Timings are only taken at phase boundaries, so the overhead is a couple of
+ * calls to {@link System#nanoTime()} per search and per leaf. This searcher
+ * does not support executing searches on an executor service.
+ *
+ * @lucene.experimental
+ */
+public class ProfilingIndexSearcher extends IndexSearcher {
+
+  /** The phases of the execution of a query. */
+  public enum Phase {
+    /** {@link IndexSearcher#rewrite(Query) Rewriting} the top-level query. */
+    REWRITE,
+    /** Creating and normalizing the {@link Weight}. */
+    CREATE_WEIGHT,
+    /** Creating the {@link BulkScorer} of a leaf. */
+    BUILD_SCORER,
+    /** Iterating over matches of a leaf, scoring and collecting them. */
+    COLLECT
+  }
+
+  private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+
+  /** Creates a searcher searching the provided index. */
+  public ProfilingIndexSearcher(IndexReader r) {
+    this(r.getContext());
+  }
+
+  /** Creates a searcher searching the provided top-level {@link IndexReaderContext}. */
+  public ProfilingIndexSearcher(IndexReaderContext context) {
+    super(context);
+    for (Phase phase : Phase.values()) {
+      histograms.put(phase, new LatencyHistogram());
+    }
+  }
+
+  /**
+   * Return the histogram of the timings, in nanoseconds, of the given phase.
+   * Per-leaf phases record one value per leaf.
+   */
+  public LatencyHistogram getHistogram(Phase phase) {
+    return histograms.get(phase);
+  }
+
+  private void record(Phase phase, long nanos, QueryProfile profile) {
+    histograms.get(phase).record(nanos);
+    if (profile != null) {
+      profile.add(phase, nanos);
+    }
+  }
+
+  /**
+   * Run the given query and collect hits into the given collector like
+   * {@link #search(Query, Collector)}, and return a breakdown of the time
+   * that was spent in each phase.
+   */
+  public QueryProfile profile(Query query, Collector collector) throws IOException {
+    final QueryProfile profile = new QueryProfile(query.toString());
+    final Weight weight = createNormalizedWeight(query, collector.needsScores(), profile);
+    search(leafContexts, weight, collector, profile);
+    return profile;
+  }
+
+  @Override
+  public Weight createNormalizedWeight(Query query, boolean needsScores) throws IOException {
+    return createNormalizedWeight(query, needsScores, null);
+  }
+
+  private Weight createNormalizedWeight(Query query, boolean needsScores, QueryProfile profile) throws IOException {
+    long start = System.nanoTime();
+    query = rewrite(query);
+    record(Phase.REWRITE, System.nanoTime() - start, profile);
+
+    start = System.nanoTime();
+    // rewriting again is a no-op on a query that is already rewritten
+    final Weight weight = super.createNormalizedWeight(query, needsScores);
+    record(Phase.CREATE_WEIGHT, System.nanoTime() - start, profile);
+    return weight;
+  }
+
+  @Override
+  protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+    search(leaves, weight, collector, null);
+  }
+
+  private void search(List<LeafReaderContext> leaves, Weight weight, Collector collector, QueryProfile profile) throws IOException {
+    for (LeafReaderContext ctx : leaves) {
+      final QueryProfile leafProfile;
+      if (profile == null) {
+        leafProfile = null;
+      } else {
+        leafProfile = new QueryProfile("leaf ord=" + ctx.ord + ", docBase=" + ctx.docBase + ", maxDoc=" + ctx.reader().maxDoc());
+        profile.addChild(leafProfile);
+      }
+
+      long start = System.nanoTime();
+      final LeafCollector leafCollector;
+      try {
+        leafCollector = collector.getLeafCollector(ctx);
+      } catch (CollectionTerminatedException e) {
+        // there is no doc of interest in this reader context
+        // continue with the following leaf
+        record(Phase.COLLECT, System.nanoTime() - start, leafProfile);
+        continue;
+      }
+      long collectTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      final BulkScorer scorer = weight.bulkScorer(ctx);
+      record(Phase.BUILD_SCORER, System.nanoTime() - start, leafProfile);
+
+      if (scorer != null) {
+        start = System.nanoTime();
+        try {
+          scorer.score(leafCollector, ctx.reader().getLiveDocs());
+        } catch (CollectionTerminatedException e) {
+          // collection was terminated prematurely
+          // continue with the following leaf
+        }
+        collectTime += System.nanoTime() - start;
+      }
+      record(Phase.COLLECT, collectTime, leafProfile);
+    }
+  }
+}
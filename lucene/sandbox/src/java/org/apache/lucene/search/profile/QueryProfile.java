@@ -0,0 +1,113 @@
+package org.apache.lucene.search.profile;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.profile.ProfilingIndexSearcher.Phase;
+
+/**
+ * Breakdown of the time spent executing a query, per {@link Phase}. Like
+ * {@link Explanation}s, profiles form a tree: the profile of a query has one
+ * child per leaf that it was executed on.
+ *
+ * @lucene.experimental
+ */
+public final class QueryProfile {
+
+  private final String description;
+  private final Map<Phase, Long> timings = new EnumMap<>(Phase.class);
+  private final List<QueryProfile> children = new ArrayList<>();
+
+  QueryProfile(String description) {
+    this.description = description;
+  }
+
+  void add(Phase phase, long nanos) {
+    Long current = timings.get(phase);
+    timings.put(phase, current == null ? nanos : current + nanos);
+  }
+
+  void addChild(QueryProfile child) {
+    children.add(child);
+  }
+
+  /** Return the description of this profile. */
+  public String getDescription() {
+    return description;
+  }
+
+  /** Return the time spent in the given phase, in nanoseconds, including children. */
+  public long getTime(Phase phase) {
+    Long time = timings.get(phase);
+    long total = time == null ? 0 : time;
+    for (QueryProfile child : children) {
+      total += child.getTime(phase);
+    }
+    return total;
+  }
+
+  /** Return the total time spent in all phases, in nanoseconds, including children. */
+  public long getTotalTime() {
+    long total = 0;
+    for (Phase phase : Phase.values()) {
+      total += getTime(phase);
+    }
+    return total;
+  }
+
+  /** Return the sub profiles. */
+  public List<QueryProfile> getChildren() {
+    return Collections.unmodifiableList(children);
+  }
+
+  /** Render this profile as text. */
+  @Override
+  public String toString() {
+    return toString(0);
+  }
+
+  private String toString(int depth) {
+    StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      buffer.append("  ");
+    }
+    buffer.append(getTotalTime()).append("ns = ").append(description);
+    buffer.append(" [");
+    for (Phase phase : Phase.values()) {
+      if (phase.ordinal() > 0) {
+        buffer.append(", ");
+      }
+      buffer.append(phase.name().toLowerCase(Locale.ROOT)).append('=').append(getTime(phase)).append("ns");
+    }
+    buffer.append(']');
+    buffer.append("\n");
+
+    for (QueryProfile child : children) {
+      buffer.append(child.toString(depth + 1));
+    }
+
+    return buffer.toString();
+  }
+}
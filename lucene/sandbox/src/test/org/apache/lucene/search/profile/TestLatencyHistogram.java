@@ -0,0 +1,101 @@
+package org.apache.lucene.search.profile;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Arrays;
+
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestLatencyHistogram extends LuceneTestCase {
+
+  public void testBuckets() {
+    int previous = -1;
+    for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 34, 1000, 1L << 40, Long.MAX_VALUE }) {
+      final int bucket = LatencyHistogram.bucket(value);
+      assertTrue(bucket > previous);
+      assertTrue(LatencyHistogram.highestValue(bucket) >= value);
+      if (bucket > 0) {
+        assertTrue(LatencyHistogram.highestValue(bucket - 1) < value);
+      }
+      previous = bucket;
+    }
+    for (int iter = 0; iter < 1000; ++iter) {
+      final long value = TestUtil.nextLong(random(), 0, Long.MAX_VALUE);
+      final int bucket = LatencyHistogram.bucket(value);
+      final long highest = LatencyHistogram.highestValue(bucket);
+      assertTrue(highest >= value);
+      // bounded relative error
+      assertTrue(highest - value <= value / (LatencyHistogram.SUB_BUCKETS - 1));
+    }
+  }
+
+  public void testEmpty() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0, histogram.getMean(), 0d);
+    assertEquals(0, histogram.getValueAtPercentile(50));
+  }
+
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    final int numValues = atLeast(1000);
+    long[] values = new long[numValues];
+    for (int i = 0; i < numValues; ++i) {
+      values[i] = TestUtil.nextLong(random(), 0, 1L << TestUtil.nextInt(random(), 1, 40));
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+    assertEquals(numValues, histogram.getCount());
+    assertEquals(values[numValues - 1], histogram.getMax());
+    for (double percentile : new double[] { 0, 10, 50, 90, 99, 100 }) {
+      final long expected = values[Math.max(0, (int) Math.ceil(percentile / 100 * numValues) - 1)];
+      final long actual = histogram.getValueAtPercentile(percentile);
+      assertTrue(actual >= expected);
+      assertTrue(actual - expected <= expected / (LatencyHistogram.SUB_BUCKETS - 1));
+    }
+    assertEquals(values[numValues - 1], histogram.getValueAtPercentile(100));
+  }
+
+  public void testConcurrentRecords() throws Exception {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final int numThreads = TestUtil.nextInt(random(), 2, 5);
+    final int numValuesPerThread = atLeast(1000);
+    Thread[] threads = new Thread[numThreads];
+    for (int i = 0; i < numThreads; ++i) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < numValuesPerThread; ++j) {
+            histogram.record(j);
+          }
+        }
+      };
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(numThreads * numValuesPerThread, histogram.getCount());
+    assertEquals(numValuesPerThread - 1, histogram.getMax());
+    assertEquals((numValuesPerThread - 1) / 2d, histogram.getMean(), 0.0001);
+  }
+}
@@ -0,0 +1,82 @@
+package org.apache.lucene.search.profile;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.profile.ProfilingIndexSearcher.Phase;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestProfilingIndexSearcher extends LuceneTestCase {
+
+  public void testProfile() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(100);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("f", "v" + random().nextInt(20), Store.NO));
+      w.addDocument(doc);
+      if (random().nextInt(20) == 0) {
+        w.commit();
+      }
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+
+    ProfilingIndexSearcher searcher = new ProfilingIndexSearcher(reader);
+    Query query = new BooleanQuery.Builder()
+        .add(new PrefixQuery(new Term("f", "v1")), Occur.SHOULD)
+        .add(new TermQuery(new Term("f", "v2")), Occur.SHOULD)
+        .build();
+    TopScoreDocCollector collector = TopScoreDocCollector.create(10);
+    QueryProfile profile = searcher.profile(query, collector);
+    assertEquals(searcher.search(query, 10).totalHits, collector.getTotalHits());
+
+    assertEquals(query.toString(), profile.getDescription());
+    assertEquals(reader.leaves().size(), profile.getChildren().size());
+    long total = 0;
+    for (Phase phase : Phase.values()) {
+      assertTrue(profile.getTime(phase) >= 0);
+      total += profile.getTime(phase);
+    }
+    assertEquals(total, profile.getTotalTime());
+    assertEquals(0, profile.getChildren().get(0).getTime(Phase.REWRITE));
+    assertTrue(profile.toString().contains("build_scorer="));
+
+    // both the profiled search and the regular one have been recorded
+    assertEquals(2, searcher.getHistogram(Phase.REWRITE).getCount());
+    assertEquals(2, searcher.getHistogram(Phase.CREATE_WEIGHT).getCount());
+    assertEquals(2 * reader.leaves().size(), searcher.getHistogram(Phase.BUILD_SCORER).getCount());
+    assertEquals(2 * reader.leaves().size(), searcher.getHistogram(Phase.COLLECT).getCount());
+
+    IOUtils.close(reader, dir);
+  }
+}
@@ -73,6 +73,20 @@ public class AssertingScorer extends Scorer {
     return score;
   }
 
+  @Override
+  public float maxScore() {
+    final float maxScore = in.maxScore();
+    assert !Float.isNaN(maxScore) : "NaN max score for in="+in;
+    return maxScore;
+  }
+
+  @Override
+  public void setMinCompetitiveScore(float minScore) throws IOException {
+    assert needsScores;
+    assert !Float.isNaN(minScore);
+    in.setMinCompetitiveScore(minScore);
+  }
+
   @Override
   public Collection<ChildScorer> getChildren() {
     // We cannot hide that we hold a single child, else
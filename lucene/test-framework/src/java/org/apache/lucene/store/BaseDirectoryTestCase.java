@@ -31,6 +31,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.zip.CRC32;
 
 import org.apache.lucene.index.DirectoryReader;
@@ -1056,6 +1057,119 @@ public abstract class BaseDirectoryTestCase extends LuceneTestCase {
     dir.close();
   }
   
+  /** prefetch hints must not change what is read */
+  public void testPrefetch() throws Exception {
+    Directory dir = getDirectory(createTempDir("prefetch"));
+    if (dir instanceof FSDirectory && random().nextBoolean()) {
+      ((FSDirectory) dir).setPrefetchExecutor(new Executor() {
+        @Override
+        public void execute(Runnable command) {
+          command.run();
+        }
+      });
+    }
+    final int num = TestUtil.nextInt(random(), 50, 5000);
+    byte bytes[] = new byte[num];
+    random().nextBytes(bytes);
+    try (IndexOutput output = dir.createOutput("bytes", newIOContext(random()))) {
+      output.writeBytes(bytes, bytes.length);
+    }
+
+    IndexInput input = dir.openInput("bytes", newIOContext(random()));
+    final int sliceStart = TestUtil.nextInt(random(), 0, num);
+    IndexInput slice = input.slice("slice", sliceStart, num - sliceStart);
+    for (IndexInput in : Arrays.asList(input, input.clone(), slice, slice.clone())) {
+      for (int i = 0; i < 10; ++i) {
+        final long offset = TestUtil.nextLong(random(), 0, in.length());
+        in.prefetch(offset, TestUtil.nextLong(random(), 0, in.length() - offset));
+      }
+      in.prefetch(0, in.length());
+    }
+
+    // prefetching has no impact on reads
+    byte data[] = new byte[num];
+    input.readBytes(data, 0, num);
+    assertArrayEquals(bytes, data);
+    slice.readBytes(data, sliceStart, num - sliceStart);
+    assertArrayEquals(bytes, data);
+    input.close();
+    dir.close();
+  }
+
+  /** prefetch hints of inputs, clones and slices of slices must be
+   *  translated to the right ranges of the file */
+  public void testPrefetchExecutor() throws Exception {
+    Directory dir = getDirectory(createTempDir("prefetchExecutor"));
+    if (dir instanceof FSDirectory == false) {
+      dir.close();
+      assumeTrue("test only works for FSDirectory subclasses", false);
+    }
+    final List<FSDirectory.FilePrefetcher.PrefetchTask> tasks = new ArrayList<>();
+    ((FSDirectory) dir).setPrefetchExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        tasks.add((FSDirectory.FilePrefetcher.PrefetchTask) command);
+        command.run();
+      }
+    });
+    final int num = TestUtil.nextInt(random(), 50, 5000);
+    byte bytes[] = new byte[num];
+    random().nextBytes(bytes);
+    try (IndexOutput output = dir.createOutput("bytes", newIOContext(random()))) {
+      output.writeBytes(bytes, bytes.length);
+    }
+
+    IndexInput input = dir.openInput("bytes", newIOContext(random()));
+    final long sliceStart = TestUtil.nextInt(random(), 0, num);
+    IndexInput slice = input.slice("slice", sliceStart, num - sliceStart);
+    final long sliceSliceStart = TestUtil.nextLong(random(), 0, slice.length());
+    IndexInput sliceSlice = slice.slice("sliceSlice", sliceSliceStart, slice.length() - sliceSliceStart);
+    final IndexInput[] inputs = new IndexInput[] { input, input.clone(), slice, slice.clone(), sliceSlice, sliceSlice.clone() };
+    final long[] fileOffsets = new long[] { 0, 0, sliceStart, sliceStart, sliceStart + sliceSliceStart, sliceStart + sliceSliceStart };
+    input.prefetch(0, input.length());
+    // some implementations ignore prefetch hints
+    final boolean supportsPrefetch = tasks.isEmpty() == false;
+    for (int i = 0; i < inputs.length; ++i) {
+      final IndexInput in = inputs[i];
+      for (int iter = 0; iter < 10; ++iter) {
+        final long offset = TestUtil.nextLong(random(), 0, in.length());
+        final long length = TestUtil.nextLong(random(), 0, in.length() - offset);
+        tasks.clear();
+        in.prefetch(offset, length);
+        if (supportsPrefetch && length > 0) {
+          assertEquals(1, tasks.size());
+          assertEquals(fileOffsets[i] + offset, tasks.get(0).offset);
+          assertEquals(length, tasks.get(0).length);
+        } else {
+          assertTrue(tasks.isEmpty());
+        }
+      }
+      if (supportsPrefetch) {
+        try {
+          in.prefetch(in.length(), 1);
+          fail();
+        } catch (IllegalArgumentException expected) {
+          // expected
+        }
+      }
+    }
+
+    // prefetching has no impact on reads
+    byte data[] = new byte[num];
+    input.readBytes(data, 0, num);
+    assertArrayEquals(bytes, data);
+    input.close();
+
+    // only inputs that are opened after the executor is set are affected
+    ((FSDirectory) dir).setPrefetchExecutor(null);
+    tasks.clear();
+    try (IndexInput in = dir.openInput("bytes", newIOContext(random()))) {
+      in.prefetch(0, in.length());
+    }
+    assertTrue(tasks.isEmpty());
+    dir.close();
+  }
+
   /** try to stress slices of slices */
   public void testSliceOfSlice() throws Exception {
     Directory dir = getDirectory(createTempDir("sliceOfSlice"));
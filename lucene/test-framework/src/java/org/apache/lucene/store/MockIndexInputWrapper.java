@@ -108,6 +108,12 @@ public class MockIndexInputWrapper extends IndexInput {
     return clone;
   }
 
+  @Override
+  public void prefetch(long offset, long length) throws IOException {
+    ensureOpen();
+    delegate.prefetch(offset, length);
+  }
+
   @Override
   public long getFilePointer() {
     ensureOpen();
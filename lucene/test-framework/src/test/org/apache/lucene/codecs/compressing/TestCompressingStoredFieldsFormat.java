@@ -28,17 +28,23 @@ import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.IntField;
 import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.BaseStoredFieldsFormatTestCase;
 import org.apache.lucene.index.CodecReader;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.LogDocMergePolicy;
 import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.StoredDocument;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.store.ByteArrayDataInput;
 import org.apache.lucene.store.ByteArrayDataOutput;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.MockDirectoryWrapper;
+import org.apache.lucene.util.TestUtil;
 import org.junit.Test;
 
 import com.carrotsearch.randomizedtesting.generators.RandomInts;
@@ -319,4 +325,93 @@ public class TestCompressingStoredFieldsFormat extends BaseStoredFieldsFormatTes
     iw.close();
     dir.close();
   }
+
+  public void testMergeWithDeletes() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwConf = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwConf.setMergePolicy(NoMergePolicy.INSTANCE);
+    iwConf.setMaxBufferedDocs(IndexWriterConfig.DISABLE_AUTO_FLUSH);
+    iwConf.setRAMBufferSizeMB(IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB);
+    // small chunks so that segments have many of them, and are not too dirty
+    // to be bulk merged despite their last incomplete chunk
+    iwConf.setCodec(CompressingCodec.randomInstance(random(), 64, 4, false, 8));
+    IndexWriter iw = new IndexWriter(dir, iwConf);
+    final int numSegments = TestUtil.nextInt(random(), 2, 4);
+    final int docsPerSegment = atLeast(1000);
+    for (int i = 0; i < numSegments * docsPerSegment; i++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Store.YES));
+      doc.add(new StoredField("text", TestUtil.randomSimpleString(random(), 0, 20)));
+      iw.addDocument(doc);
+      if ((i + 1) % docsPerSegment == 0) {
+        iw.commit();
+      }
+    }
+    // delete a few documents, so that most chunks are still clean
+    final boolean[] deleted = new boolean[numSegments * docsPerSegment];
+    final int numDeletes = TestUtil.nextInt(random(), 1, 10);
+    for (int i = 0; i < numDeletes; i++) {
+      final int id = random().nextInt(deleted.length);
+      deleted[id] = true;
+      iw.deleteDocuments(new Term("id", Integer.toString(id)));
+    }
+    iw.getConfig().setMergePolicy(new LogDocMergePolicy());
+    iw.forceMerge(1);
+
+    DirectoryReader ir = DirectoryReader.open(iw, true);
+    CodecReader sr = getOnlySegmentReader(ir);
+    int docID = 0;
+    for (int i = 0; i < deleted.length; i++) {
+      if (deleted[i]) {
+        continue;
+      }
+      assertEquals(Integer.toString(i), sr.document(docID++).get("id"));
+    }
+    assertEquals(sr.maxDoc(), docID);
+    CompressingStoredFieldsReader reader = (CompressingStoredFieldsReader) sr.getFieldsReader();
+    // at most one incomplete chunk per chunk with deletions, plus the ones we
+    // inherited from the last chunk of each segment
+    assertTrue(reader.getNumDirtyChunks() + " dirty chunks", reader.getNumDirtyChunks() <= numDeletes + 2 * numSegments);
+    ir.close();
+    iw.close();
+    dir.close();
+  }
+
+  public void testReadDocumentsOfTheSameChunk() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwConf = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwConf.setMergePolicy(NoMergePolicy.INSTANCE);
+    iwConf.setCodec(CompressingCodec.randomInstance(random(), TestUtil.nextInt(random(), 256, 1024), TestUtil.nextInt(random(), 4, 32), false, 8));
+    IndexWriter iw = new IndexWriter(dir, iwConf);
+    final int numDocs = atLeast(200);
+    final String[] texts = new String[numDocs];
+    for (int i = 0; i < numDocs; i++) {
+      texts[i] = TestUtil.randomSimpleString(random(), 0, 50);
+      Document doc = new Document();
+      doc.add(new StoredField("id", i));
+      doc.add(new StoredField("text", texts[i]));
+      iw.addDocument(doc);
+    }
+    DirectoryReader ir = DirectoryReader.open(iw, true);
+
+    // read documents in increasing order, with repetitions and going back
+    // within a chunk, like when fetching the top hits of a query
+    for (LeafReaderContext context : ir.leaves()) {
+      final LeafReader leaf = context.reader();
+      final int maxDoc = leaf.maxDoc();
+      for (int iter = 0; iter < 5; ++iter) {
+        int docID = random().nextInt(maxDoc);
+        for (int i = 0; i < 50; ++i) {
+          final StoredDocument doc = leaf.document(docID);
+          final int id = doc.getField("id").numericValue().intValue();
+          assertEquals(context.docBase + docID, id);
+          assertEquals(texts[id], doc.get("text"));
+          docID = Math.max(0, Math.min(maxDoc - 1, docID + TestUtil.nextInt(random(), -2, 5)));
+        }
+      }
+    }
+    ir.close();
+    iw.close();
+    dir.close();
+  }
 }
@@ -6,8 +6,10 @@ import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.CodecReader;
 import org.apache.lucene.index.DirectoryReader;
@@ -16,13 +18,16 @@ import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.BaseTermVectorsFormatTestCase;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.LogDocMergePolicy;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.index.TermsEnum.SeekStatus;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
 
 /*
  * Licensed to the Apache Software Foundation (ASF) under one or more
@@ -127,4 +132,59 @@ public class TestCompressingTermVectorsFormat extends BaseTermVectorsFormatTestC
     iw.close();
     dir.close();
   }
+
+  public void testMergeWithDeletes() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwConf = newIndexWriterConfig(new MockAnalyzer(random()));
+    iwConf.setMergePolicy(NoMergePolicy.INSTANCE);
+    iwConf.setMaxBufferedDocs(IndexWriterConfig.DISABLE_AUTO_FLUSH);
+    iwConf.setRAMBufferSizeMB(IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB);
+    // small chunks so that segments have many of them, and are not too dirty
+    // to be bulk merged despite their last incomplete chunk
+    iwConf.setCodec(CompressingCodec.randomInstance(random(), 64, 4, false, 8));
+    IndexWriter iw = new IndexWriter(dir, iwConf);
+    FieldType ft = new FieldType(TextField.TYPE_NOT_STORED);
+    ft.setStoreTermVectors(true);
+    final int numSegments = TestUtil.nextInt(random(), 2, 4);
+    final int docsPerSegment = atLeast(1000);
+    for (int i = 0; i < numSegments * docsPerSegment; i++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Store.NO));
+      doc.add(new Field("text", "term" + i, ft));
+      iw.addDocument(doc);
+      if ((i + 1) % docsPerSegment == 0) {
+        iw.commit();
+      }
+    }
+    // delete a few documents, so that most chunks are still clean
+    final boolean[] deleted = new boolean[numSegments * docsPerSegment];
+    final int numDeletes = TestUtil.nextInt(random(), 1, 10);
+    for (int i = 0; i < numDeletes; i++) {
+      final int id = random().nextInt(deleted.length);
+      deleted[id] = true;
+      iw.deleteDocuments(new Term("id", Integer.toString(id)));
+    }
+    iw.getConfig().setMergePolicy(new LogDocMergePolicy());
+    iw.forceMerge(1);
+
+    DirectoryReader ir = DirectoryReader.open(iw, true);
+    CodecReader sr = getOnlySegmentReader(ir);
+    int docID = 0;
+    for (int i = 0; i < deleted.length; i++) {
+      if (deleted[i]) {
+        continue;
+      }
+      TermsEnum termsEnum = sr.getTermVector(docID++, "text").iterator();
+      assertEquals(new BytesRef("term" + i), termsEnum.next());
+      assertNull(termsEnum.next());
+    }
+    assertEquals(sr.maxDoc(), docID);
+    CompressingTermVectorsReader reader = (CompressingTermVectorsReader) sr.getTermVectorsReader();
+    // at most one incomplete chunk per chunk with deletions, plus the ones we
+    // inherited from the last chunk of each segment
+    assertTrue(reader.getNumDirtyChunks() + " dirty chunks", reader.getNumDirtyChunks() <= numDeletes + 2 * numSegments);
+    ir.close();
+    iw.close();
+    dir.close();
+  }
 }
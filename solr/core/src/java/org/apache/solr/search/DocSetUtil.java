@@ -41,6 +41,9 @@ import org.apache.lucene.util.FixedBitSet;
 /** @lucene.experimental */
 public class DocSetUtil {
 
+  /** Number of documents to read at once from postings, see {@link PostingsEnum#read(int[], int[], int)} */
+  public static final int BULK_READ_SIZE = 128;
+
   /** The cut-off point for small sets (SortedIntDocSet) vs large sets (BitDocSet) */
   public static int smallSetSize(int maxDoc) {
     return (maxDoc>>6)+5;  // The +5 is for better test coverage for small sets
@@ -146,6 +149,7 @@ public class DocSetUtil {
 
   private static DocSet createSmallSet(List<LeafReaderContext> leaves, PostingsEnum[] postList, int maxPossible, int firstReader) throws IOException {
     int[] docs = new int[maxPossible];
+    int[] buffer = new int[BULK_READ_SIZE];
     int sz = 0;
     for (int i = firstReader; i < postList.length; i++) {
       PostingsEnum postings = postList[i];
@@ -153,12 +157,14 @@ public class DocSetUtil {
       LeafReaderContext ctx = leaves.get(i);
       Bits liveDocs = ctx.reader().getLiveDocs();
       int base = ctx.docBase;
-      for (; ; ) {
-        int subId = postings.nextDoc();
-        if (subId == DocIdSetIterator.NO_MORE_DOCS) break;
-        if (liveDocs != null && !liveDocs.get(subId)) continue;
-        int globalId = subId + base;
-        docs[sz++] = globalId;
+      for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.docID()) {
+        int read = postings.read(buffer, null, DocIdSetIterator.NO_MORE_DOCS);
+        for (int j = 0; j < read; ++j) {
+          int subId = buffer[j];
+          if (liveDocs != null && !liveDocs.get(subId)) continue;
+          int globalId = subId + base;
+          docs[sz++] = globalId;
+        }
       }
     }
 
@@ -168,6 +174,7 @@ public class DocSetUtil {
 
   private static DocSet createBigSet(List<LeafReaderContext> leaves, PostingsEnum[] postList, int maxDoc, int firstReader) throws IOException {
     long[] bits = new long[FixedBitSet.bits2words(maxDoc)];
+    int[] buffer = new int[BULK_READ_SIZE];
     int sz = 0;
     for (int i = firstReader; i < postList.length; i++) {
       PostingsEnum postings = postList[i];
@@ -175,13 +182,15 @@ public class DocSetUtil {
       LeafReaderContext ctx = leaves.get(i);
       Bits liveDocs = ctx.reader().getLiveDocs();
       int base = ctx.docBase;
-      for (; ; ) {
-        int subId = postings.nextDoc();
-        if (subId == DocIdSetIterator.NO_MORE_DOCS) break;
-        if (liveDocs != null && !liveDocs.get(subId)) continue;
-        int globalId = subId + base;
-        bits[globalId >> 6] |= (1L << globalId);
-        sz++;
+      for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.docID()) {
+        int read = postings.read(buffer, null, DocIdSetIterator.NO_MORE_DOCS);
+        for (int j = 0; j < read; ++j) {
+          int subId = buffer[j];
+          if (liveDocs != null && !liveDocs.get(subId)) continue;
+          int globalId = subId + base;
+          bits[globalId >> 6] |= (1L << globalId);
+          sz++;
+        }
       }
     }
 
@@ -210,4 +219,21 @@ public class DocSetUtil {
     return new SortedIntDocSet(docs);
   }
 
-}
\ No newline at end of file
+  /**
+   * Returns the number of documents of <code>postings</code>, shifted by
+   * <code>base</code>, that exist in <code>set</code>. Postings are read in
+   * bulk into <code>buffer</code>, see {@link PostingsEnum#read(int[], int[], int)}.
+   * @lucene.internal
+   */
+  public static int intersectionSize(PostingsEnum postings, int base, DocSet set, int[] buffer) throws IOException {
+    int count = 0;
+    for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.docID()) {
+      final int read = postings.read(buffer, null, DocIdSetIterator.NO_MORE_DOCS);
+      for (int i = 0; i < read; ++i) {
+        if (set.exists(buffer[i] + base)) count++;
+      }
+    }
+    return count;
+  }
+
+}
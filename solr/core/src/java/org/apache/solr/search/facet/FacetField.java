@@ -53,6 +53,7 @@ import org.apache.solr.schema.FieldType;
 import org.apache.solr.schema.SchemaField;
 import org.apache.solr.schema.TrieField;
 import org.apache.solr.search.DocSet;
+import org.apache.solr.search.DocSetUtil;
 import org.apache.solr.search.Filter;
 import org.apache.solr.search.HashDocSet;
 import org.apache.solr.search.SolrIndexSearcher;
@@ -758,6 +759,7 @@ class FacetFieldProcessorStream extends FacetFieldProcessor implements Closeable
   TermsEnum termsEnum = null;
   SolrIndexSearcher.DocsEnumState deState = null;
   PostingsEnum postingsEnum;
+  final int[] bulkDocs = new int[DocSetUtil.BULK_READ_SIZE];
   BytesRef startTermBytes;
   BytesRef term;
   LeafReaderContext[] leaves;
@@ -974,9 +976,7 @@ class FacetFieldProcessorStream extends FacetFieldProcessor implements Closeable
               int docid;
 
               if (countOnly) {
-                while ((docid = sub.postingsEnum.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-                  if (fastForRandomSet.exists(docid + base)) c++;
-                }
+                c += DocSetUtil.intersectionSize(sub.postingsEnum, base, fastForRandomSet, bulkDocs);
               } else {
                 setNextReader(leaves[sub.slice.readerIndex]);
                 while ((docid = sub.postingsEnum.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
@@ -991,9 +991,7 @@ class FacetFieldProcessorStream extends FacetFieldProcessor implements Closeable
           } else {
             int docid;
             if (countOnly) {
-              while ((docid = postingsEnum.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-                if (fastForRandomSet.exists(docid)) c++;
-              }
+              c += DocSetUtil.intersectionSize(postingsEnum, 0, fastForRandomSet, bulkDocs);
             } else {
               setNextReader(leaves[0]);
               while ((docid = postingsEnum.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {